@@ -0,0 +1,98 @@
+package wavl.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wavl.WAVLTree;
+
+/**
+ * AggregateBenchmark
+ *
+ * The sum of the values over a random range of width keys: the maintained sum aggregate
+ * (aggregate(lo, hi)) against a cursor scan of the range.
+ * The insertDelete benchmarks measure what maintaining the aggregate costs the writes -
+ * a random odd key is inserted and deleted again, on a tree with and without the aggregate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregateBenchmark {
+
+	//the values are numbers, parsed by the aggregate
+	static final String ZERO = "0";
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({"100", "10000"})
+	public int width;
+
+	WAVLTree plain;
+	WAVLTree summed;
+	WAVLTree.Cursor cursor;
+
+	@Setup(Level.Trial)
+	public void load()
+	{
+		int[] keys = new int[size];
+		String[] values = new String[size];
+		for (int i = 0; i < size; i++)
+		{
+			keys[i] = 2 * i;
+			values[i] = Integer.toString(i % 1000);
+		}
+		plain = WAVLTree.fromSorted(keys, values);
+		summed = WAVLTree.fromSorted(keys, values);
+		summed.setAggregate(WAVLTree.Aggregate.sum((key, info) -> Integer.parseInt(info)));
+		cursor = summed.cursor();
+	}
+
+	@Benchmark
+	public long aggregate()
+	{
+		int lo = ThreadLocalRandom.current().nextInt(2 * size);
+		return summed.aggregate(lo, lo + 2 * width);
+	}
+
+	@Benchmark
+	public long cursorScan()
+	{
+		int lo = ThreadLocalRandom.current().nextInt(2 * size);
+		long sum = 0;
+		for (cursor.forward(lo, lo + 2 * width); cursor.next(); )
+			sum += Integer.parseInt(cursor.value());
+		return sum;
+	}
+
+	@Benchmark
+	public int insertDeletePlain()
+	{
+		int key = ThreadLocalRandom.current().nextInt(2 * size) | 1;
+		plain.insert(key, ZERO);
+		return plain.delete(key);
+	}
+
+	@Benchmark
+	public int insertDeleteAggregate()
+	{
+		int key = ThreadLocalRandom.current().nextInt(2 * size) | 1;
+		summed.insert(key, ZERO);
+		return summed.delete(key);
+	}
+}
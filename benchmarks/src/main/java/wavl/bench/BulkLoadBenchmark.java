@@ -0,0 +1,66 @@
+package wavl.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wavl.WAVLTree;
+
+/**
+ * BulkLoadBenchmark
+ *
+ * Time to build a whole WAVLTree from sorted input:
+ * one insert per key, against the linear fromSorted build.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkLoadBenchmark {
+
+	@Param({"100000", "1000000", "10000000"})
+	public int size;
+
+	int[] keys;
+	String[] values;
+
+	@Setup(Level.Trial)
+	public void load()
+	{
+		keys = new int[size];
+		values = new String[size];
+		for (int i = 0; i < size; i++)
+		{
+			keys[i] = 2 * i;
+			values[i] = WAVLTreeBenchmark.VALUE;
+		}
+	}
+
+	@Benchmark
+	public WAVLTree insertLoop()
+	{
+		WAVLTree tree = new WAVLTree();
+		for (int i = 0; i < keys.length; i++)
+			tree.insert(keys[i], values[i]);
+		return tree;
+	}
+
+	@Benchmark
+	public WAVLTree fromSorted()
+	{
+		return WAVLTree.fromSorted(keys, values);
+	}
+}
@@ -0,0 +1,97 @@
+package wavl.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wavl.ConcurrentWAVLTree;
+import wavl.WAVLTree;
+
+/**
+ * ConcurrentBenchmark
+ *
+ * A shared tree hit by several threads (4 by default, change it with -t), each doing
+ * writePercent% writes and the rest searches.
+ * ConcurrentWAVLTree (StampedLock, optimistic reads) against the plain tree behind one monitor.
+ * The tree is loaded with the even keys of [0, 2*size); the writes insert or delete a random
+ * odd key, so the tree size stays about the same and searches hit and miss alike.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentBenchmark {
+
+	public enum Locking { STAMPED, SYNCHRONIZED }
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({"0", "1", "10", "50"})
+	public int writePercent;
+
+	@Param({"STAMPED", "SYNCHRONIZED"})
+	public Locking locking;
+
+	ConcurrentWAVLTree concurrent;
+	WAVLTree plain;
+
+	@Setup(Level.Trial)
+	public void load()
+	{
+		int[] keys = new int[size];
+		for (int i = 0; i < size; i++)
+			keys[i] = 2 * i;
+		String[] values = new String[size];
+		Arrays.fill(values, WAVLTreeBenchmark.VALUE);
+		plain = WAVLTree.fromSorted(keys, values);
+		concurrent = new ConcurrentWAVLTree(WAVLTree.fromSorted(keys, values));
+	}
+
+	@Benchmark
+	public Object mixed()
+	{
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int key = random.nextInt(2 * size);
+		if (random.nextInt(100) >= writePercent)
+			return search(key);
+		return write(key | 1, random.nextBoolean());
+	}
+
+	private String search(int key)
+	{
+		if (locking == Locking.STAMPED)
+			return concurrent.search(key);
+		synchronized (plain)
+		{
+			return plain.search(key);
+		}
+	}
+
+	private Integer write(int key, boolean insert)
+	{
+		if (locking == Locking.STAMPED)
+			return insert ? concurrent.insert(key, WAVLTreeBenchmark.VALUE) : concurrent.delete(key);
+		synchronized (plain)
+		{
+			return insert ? plain.insert(key, WAVLTreeBenchmark.VALUE) : plain.delete(key);
+		}
+	}
+}
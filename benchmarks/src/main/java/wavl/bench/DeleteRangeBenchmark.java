@@ -0,0 +1,108 @@
+package wavl.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wavl.WAVLTree;
+
+/**
+ * DeleteRangeBenchmark
+ *
+ * Retention cleanup: deleting the oldest percent% of the keys of a tree,
+ * one delete per key, against deleteRange and deleteAll.
+ * The *Spread benchmarks delete the same number of keys, spread evenly over the tree.
+ * The tree is rebuilt (fromSorted) before every operation.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeleteRangeBenchmark {
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({"1", "10", "50"})
+	public int percent;
+
+	int[] keys;
+	String[] values;
+	int[] deleted;
+	int[] spread;
+	WAVLTree tree;
+
+	@Setup(Level.Trial)
+	public void load()
+	{
+		keys = new int[size];
+		values = new String[size];
+		for (int i = 0; i < size; i++)
+		{
+			keys[i] = 2 * i;
+			values[i] = WAVLTreeBenchmark.VALUE;
+		}
+		deleted = Arrays.copyOf(keys, (int) ((long) size * percent / 100));
+		spread = new int[deleted.length];
+		for (int i = 0; i < spread.length; i++)
+			spread[i] = keys[(int) ((long) i * size / spread.length)];
+	}
+
+	@Setup(Level.Iteration)
+	public void rebuild()
+	{
+		tree = WAVLTree.fromSorted(keys, values);
+	}
+
+	@Benchmark
+	public int deleteLoop()
+	{
+		int removed = 0;
+		for (int k : deleted)
+			if (tree.delete(k) != -1)
+				removed++;
+		return removed;
+	}
+
+	@Benchmark
+	public int deleteRange()
+	{
+		return tree.deleteRange(Integer.MIN_VALUE, 2 * deleted.length);
+	}
+
+	@Benchmark
+	public int deleteAll()
+	{
+		return tree.deleteAll(deleted);
+	}
+
+	@Benchmark
+	public int deleteLoopSpread()
+	{
+		int removed = 0;
+		for (int k : spread)
+			if (tree.delete(k) != -1)
+				removed++;
+		return removed;
+	}
+
+	@Benchmark
+	public int deleteAllSpread()
+	{
+		return tree.deleteAll(spread);
+	}
+}
@@ -0,0 +1,81 @@
+package wavl.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wavl.DurableWAVLTree;
+
+/**
+ * DurableBenchmark
+ *
+ * Durable writes: several threads (4 by default, change it with -t) insert or delete a random key
+ * of a DurableWAVLTree, and every call waits for its log record to reach the disk.
+ * With group commit the fsyncs are shared, so the throughput grows with the thread count;
+ * flushIntervalMicros > 0 makes the log wait for more writes before each fsync.
+ * The log lives in the temp directory - the numbers depend on the fsync latency of that disk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class DurableBenchmark {
+
+	@Param({"100000"})
+	public int keyRange;
+
+	@Param({"0", "200"})
+	public int flushIntervalMicros;
+
+	Path directory;
+	DurableWAVLTree tree;
+
+	@Setup(Level.Trial)
+	public void open() throws IOException
+	{
+		directory = Files.createTempDirectory("wavl-wal");
+		tree = DurableWAVLTree.open(directory, flushIntervalMicros, DurableWAVLTree.DEFAULT_BATCH_SIZE,
+				DurableWAVLTree.DEFAULT_SEGMENT_SIZE);
+	}
+
+	@TearDown(Level.Trial)
+	public void close() throws IOException
+	{
+		tree.close();
+		try (Stream<Path> files = Files.walk(directory))
+		{
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+				Files.delete(file);
+		}
+	}
+
+	@Benchmark
+	public int write()
+	{
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int key = random.nextInt(keyRange);
+		return random.nextBoolean() ? tree.insert(key, WAVLTreeBenchmark.VALUE) : tree.delete(key);
+	}
+}
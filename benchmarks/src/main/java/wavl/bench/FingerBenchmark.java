@@ -0,0 +1,70 @@
+package wavl.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wavl.WAVLTree;
+
+/**
+ * FingerBenchmark
+ *
+ * Time to build a WAVLTree from nearly sorted keys - timestamps 16 apart, each moved by
+ * a random jitter of up to +-jitter - with plain inserts against inserts in finger mode.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FingerBenchmark {
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({"0", "64", "4096"})
+	public int jitter;
+
+	int[] keys;
+
+	@Setup(Level.Trial)
+	public void load()
+	{
+		Random random = new Random(42);
+		keys = new int[size];
+		for (int i = 0; i < size; i++)
+			keys[i] = 16 * i + (jitter == 0 ? 0 : random.nextInt(2 * jitter + 1) - jitter);
+	}
+
+	@Benchmark
+	public WAVLTree insertFromRoot()
+	{
+		WAVLTree tree = new WAVLTree();
+		for (int k : keys)
+			tree.insert(k, WAVLTreeBenchmark.VALUE);
+		return tree;
+	}
+
+	@Benchmark
+	public WAVLTree insertFingerMode()
+	{
+		WAVLTree tree = new WAVLTree();
+		tree.setFingerMode(true);
+		for (int k : keys)
+			tree.insert(k, WAVLTreeBenchmark.VALUE);
+		return tree;
+	}
+}
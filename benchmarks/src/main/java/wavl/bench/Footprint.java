@@ -0,0 +1,53 @@
+package wavl.bench;
+
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import wavl.IWAVLTree;
+import wavl.IntWAVLSet;
+
+/**
+ * Footprint
+ *
+ * Prints the retained heap size per entry (measured with JOL) of every tree implementation,
+ * and of IntWAVLSet.
+ * All the entries share a single info string, so only the tree structure is measured.
+ *
+ * usage: java -cp benchmarks/target/benchmarks.jar wavl.bench.Footprint [size...]
+ */
+public class Footprint {
+
+	public static void main(String[] args)
+	{
+		int[] sizes = {1000, 100000, 1000000};
+		if (args.length > 0)
+		{
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++)
+				sizes[i] = Integer.parseInt(args[i]);
+		}
+		System.out.println(VM.current().details());
+		System.out.printf("%-12s %10s %16s %14s%n", "impl", "size", "total bytes", "bytes/entry");
+		for (Implementation implementation : Implementation.values())
+		{
+			for (int size : sizes)
+			{
+				//grown one insert at a time, so array backed trees carry their usual spare capacity
+				IWAVLTree tree = implementation.create(0);
+				for (int index : KeyDistribution.RANDOM.loadOrder(size, 42))
+					tree.insert(2 * index, WAVLTreeBenchmark.VALUE);
+				long total = GraphLayout.parseInstance(tree).totalSize();
+				System.out.printf("%-12s %10d %16d %14.1f%n", implementation, size, total, (double) total / size);
+			}
+		}
+		//the keys-only set, grown the same way
+		for (int size : sizes)
+		{
+			IntWAVLSet set = new IntWAVLSet(0);
+			for (int index : KeyDistribution.RANDOM.loadOrder(size, 42))
+				set.add(2 * index);
+			long total = GraphLayout.parseInstance(set).totalSize();
+			System.out.printf("%-12s %10d %16d %14.1f%n", "INT_SET", size, total, (double) total / size);
+		}
+	}
+}
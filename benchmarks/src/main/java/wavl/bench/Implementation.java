@@ -0,0 +1,51 @@
+package wavl.bench;
+
+import wavl.IWAVLTree;
+import wavl.OffHeapWAVLTree;
+import wavl.PersistentWAVLTree;
+import wavl.PooledWAVLTree;
+import wavl.WAVLTree;
+
+/**
+ * Implementation
+ *
+ * The IWAVLTree implementations the benchmarks can be run against.
+ */
+public enum Implementation {
+
+	//one object per node
+	WAVL_TREE {
+		@Override
+		public IWAVLTree create(int capacity)
+		{
+			return new WAVLTree();
+		}
+	},
+	//parallel primitive arrays, int-indexed nodes
+	POOLED {
+		@Override
+		public IWAVLTree create(int capacity)
+		{
+			return new PooledWAVLTree(capacity);
+		}
+	},
+	//nodes and info in direct memory
+	OFF_HEAP {
+		@Override
+		public IWAVLTree create(int capacity)
+		{
+			return new OffHeapWAVLTree();
+		}
+	},
+	//no parent links, path copying once a snapshot was taken
+	PERSISTENT {
+		@Override
+		public IWAVLTree create(int capacity)
+		{
+			return new PersistentWAVLTree();
+		}
+	};
+
+	//a new empty tree, that is going to hold about capacity items
+	public abstract IWAVLTree create(int capacity);
+}
@@ -0,0 +1,102 @@
+package wavl.bench;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wavl.WAVLTree;
+
+/**
+ * InsertAllBenchmark
+ *
+ * Merging an unsorted batch into an existing tree: one insert per key, against insertAll.
+ * The tree holds the even keys of [0, 2*size); the batch is random keys of the same range,
+ * so about half of them are rejected. The tree is rebuilt (fromSorted) before every batch.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InsertAllBenchmark {
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({"100000", "1000000"})
+	public int batchSize;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	ForkJoinPool pool;
+	int[] treeKeys;
+	String[] treeValues;
+	int[] batchKeys;
+	String[] batchValues;
+	WAVLTree tree;
+
+	@Setup(Level.Trial)
+	public void load()
+	{
+		pool = new ForkJoinPool(threads);
+		treeKeys = new int[size];
+		treeValues = new String[size];
+		for (int i = 0; i < size; i++)
+		{
+			treeKeys[i] = 2 * i;
+			treeValues[i] = WAVLTreeBenchmark.VALUE;
+		}
+		Random random = new Random(42);
+		batchKeys = new int[batchSize];
+		batchValues = new String[batchSize];
+		for (int i = 0; i < batchSize; i++)
+		{
+			batchKeys[i] = random.nextInt(2 * size);
+			batchValues[i] = WAVLTreeBenchmark.VALUE;
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void rebuild()
+	{
+		tree = WAVLTree.fromSorted(treeKeys, treeValues);
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdown()
+	{
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public int insertLoop()
+	{
+		int inserted = 0;
+		for (int i = 0; i < batchKeys.length; i++)
+			if (tree.insert(batchKeys[i], batchValues[i]) >= 0)
+				inserted++;
+		return inserted;
+	}
+
+	@Benchmark
+	public int insertAll()
+	{
+		return tree.insertAll(batchKeys, batchValues, pool, WAVLTree.DEFAULT_SEQUENTIAL_CUTOFF);
+	}
+}
@@ -0,0 +1,103 @@
+package wavl.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wavl.IntWAVLSet;
+import wavl.PooledWAVLTree;
+import wavl.WAVLTree;
+
+/**
+ * IntSetBenchmark
+ *
+ * Membership tests on the same keys held in an IntWAVLSet, a WAVLTree and a PooledWAVLTree
+ * (contains against search), and an absent key added and removed again.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntSetBenchmark {
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({"RANDOM", "ZIPFIAN"})
+	public KeyDistribution distribution;
+
+	IntWAVLSet set;
+	WAVLTree tree;
+	PooledWAVLTree pooled;
+	int[] probes;
+	int cursor;
+
+	@Setup(Level.Trial)
+	public void load()
+	{
+		set = new IntWAVLSet(size);
+		tree = new WAVLTree();
+		pooled = new PooledWAVLTree(size);
+		for (int index : distribution.loadOrder(size, 42))
+		{
+			set.add(2 * index);
+			tree.insert(2 * index, WAVLTreeBenchmark.VALUE);
+			pooled.insert(2 * index, WAVLTreeBenchmark.VALUE);
+		}
+		probes = distribution.probes(size, WAVLTreeBenchmark.PROBES, 7);
+		cursor = 0;
+	}
+
+	//index (0..size-1 in sorted order) of the next key to work on
+	private int nextProbe()
+	{
+		int probe = probes[cursor];
+		cursor = (cursor + 1) & (WAVLTreeBenchmark.PROBES - 1);
+		return probe;
+	}
+
+	@Benchmark
+	public boolean containsSet()
+	{
+		return set.contains(2 * nextProbe());
+	}
+
+	@Benchmark
+	public boolean searchTree()
+	{
+		return tree.search(2 * nextProbe()) != null;
+	}
+
+	@Benchmark
+	public boolean searchPooled()
+	{
+		return pooled.search(2 * nextProbe()) != null;
+	}
+
+	@Benchmark
+	public int addRemoveSet()
+	{
+		int k = 2 * nextProbe() + 1;
+		return set.add(k) + set.remove(k);
+	}
+
+	@Benchmark
+	public int insertDeleteTree()
+	{
+		int k = 2 * nextProbe() + 1;
+		return tree.insert(k, WAVLTreeBenchmark.VALUE) + tree.delete(k);
+	}
+}
@@ -0,0 +1,125 @@
+package wavl.bench;
+
+import java.util.Random;
+
+/**
+ * KeyDistribution
+ *
+ * The shapes of workload the benchmarks are run against.
+ * A tree of size n always holds the even keys 0,2,...,2(n-1); the odd keys
+ * in between are the "absent" keys used by insert benchmarks.
+ * The distribution decides the order in which the tree is loaded and the
+ * order in which existing keys are probed.
+ */
+public enum KeyDistribution {
+
+	//keys are loaded in ascending order and probed in ascending order
+	SEQUENTIAL,
+	//keys are loaded in a random order and probed uniformly at random
+	RANDOM,
+	//keys are loaded in a random order and probed with a Zipfian skew (theta = 0.99),
+	//so a few hot keys are hit most of the time
+	ZIPFIAN;
+
+	private static final double ZIPF_THETA = 0.99;
+
+	/**
+	 * returns the indexes (0..n-1 in sorted order) of the keys in the order
+	 * they should be inserted into a fresh tree
+	 */
+	public int[] loadOrder(int n, long seed)
+	{
+		int[] order = identity(n);
+		if (this != SEQUENTIAL)
+			shuffle(order, new Random(seed));
+		return order;
+	}
+
+	/**
+	 * returns count probe indexes (0..n-1 in sorted order).
+	 * the index i stands for the key 2i, for the absent key 2i+1 and for select(i+1).
+	 */
+	public int[] probes(int n, int count, long seed)
+	{
+		int[] probes = new int[count];
+		Random random = new Random(seed);
+		switch (this)
+		{
+		case SEQUENTIAL:
+			for (int i = 0; i < count; i++)
+				probes[i] = i % n;
+			break;
+		case RANDOM:
+			for (int i = 0; i < count; i++)
+				probes[i] = random.nextInt(n);
+			break;
+		case ZIPFIAN:
+			//popularity rank -> key index, so the hot keys are scattered over the tree
+			int[] scatter = identity(n);
+			shuffle(scatter, random);
+			Zipf zipf = new Zipf(n, ZIPF_THETA);
+			for (int i = 0; i < count; i++)
+				probes[i] = scatter[zipf.next(random)];
+			break;
+		}
+		return probes;
+	}
+
+	private static int[] identity(int n)
+	{
+		int[] arr = new int[n];
+		for (int i = 0; i < n; i++)
+			arr[i] = i;
+		return arr;
+	}
+
+	//Fisher-Yates
+	private static void shuffle(int[] arr, Random random)
+	{
+		for (int i = arr.length - 1; i > 0; i--)
+		{
+			int j = random.nextInt(i + 1);
+			int tmp = arr[i];
+			arr[i] = arr[j];
+			arr[j] = tmp;
+		}
+	}
+
+	//Zipfian generator over 0..n-1 (Gray et al., "Quickly Generating Billion-Record Synthetic Databases")
+	private static final class Zipf
+	{
+		private final int n;
+		private final double theta;
+		private final double alpha;
+		private final double zetan;
+		private final double eta;
+
+		Zipf(int n, double theta)
+		{
+			this.n = n;
+			this.theta = theta;
+			this.alpha = 1.0 / (1.0 - theta);
+			this.zetan = zeta(n, theta);
+			this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+		}
+
+		private static double zeta(int n, double theta)
+		{
+			double sum = 0;
+			for (int i = 1; i <= n; i++)
+				sum += 1 / Math.pow(i, theta);
+			return sum;
+		}
+
+		int next(Random random)
+		{
+			double u = random.nextDouble();
+			double uz = u * zetan;
+			if (uz < 1.0)
+				return 0;
+			if (uz < 1.0 + Math.pow(0.5, theta))
+				return Math.min(1, n - 1);
+			return Math.min(n - 1, (int) (n * Math.pow(eta * u - eta + 1, alpha)));
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package wavl.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wavl.WAVLMetrics;
+import wavl.WAVLTree;
+
+/**
+ * MetricsBenchmark
+ *
+ * What the rebalance listener costs: a random odd key is inserted into a tree of the even keys
+ * of [0, 2*size), and deleted again - with no listener, and with a WAVLMetrics.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+	public enum Listener { NONE, METRICS }
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({"NONE", "METRICS"})
+	public Listener listener;
+
+	WAVLTree tree;
+
+	@Setup(Level.Trial)
+	public void load()
+	{
+		int[] keys = new int[size];
+		String[] values = new String[size];
+		for (int i = 0; i < size; i++)
+		{
+			keys[i] = 2 * i;
+			values[i] = WAVLTreeBenchmark.VALUE;
+		}
+		tree = WAVLTree.fromSorted(keys, values);
+		if (listener == Listener.METRICS)
+			tree.setRebalanceListener(new WAVLMetrics());
+	}
+
+	@Benchmark
+	public int insertDelete()
+	{
+		int key = ThreadLocalRandom.current().nextInt(2 * size) | 1;
+		tree.insert(key, WAVLTreeBenchmark.VALUE);
+		return tree.delete(key);
+	}
+}
@@ -0,0 +1,110 @@
+package wavl.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wavl.WAVLTree;
+
+/**
+ * SetOperationBenchmark
+ *
+ * union, intersection and difference of two trees on a ForkJoinPool of 1..N threads.
+ * The first tree holds the multiples of 2 and the second the multiples of 3 (of a range of 3*size),
+ * so a sixth of the keys are in both.
+ * The operations consume their input, so both trees are rebuilt (fromSorted) before every operation.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SetOperationBenchmark {
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+
+	@Param({"4096"})
+	public int sequentialCutoff;
+
+	ForkJoinPool pool;
+	int[] keysA;
+	int[] keysB;
+	String[] valuesA;
+	String[] valuesB;
+	WAVLTree a;
+	WAVLTree b;
+
+	@Setup(Level.Trial)
+	public void load()
+	{
+		pool = new ForkJoinPool(threads);
+		keysA = multiples(2, 3 * size);
+		keysB = multiples(3, 3 * size);
+		valuesA = values(keysA.length);
+		valuesB = values(keysB.length);
+	}
+
+	private static int[] multiples(int step, int range)
+	{
+		int[] keys = new int[(range + step - 1) / step];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = i * step;
+		return keys;
+	}
+
+	private static String[] values(int n)
+	{
+		String[] values = new String[n];
+		java.util.Arrays.fill(values, WAVLTreeBenchmark.VALUE);
+		return values;
+	}
+
+	@Setup(Level.Iteration)
+	public void rebuild()
+	{
+		a = WAVLTree.fromSorted(keysA, valuesA);
+		b = WAVLTree.fromSorted(keysB, valuesB);
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdown()
+	{
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public WAVLTree union()
+	{
+		return WAVLTree.union(a, b, pool, sequentialCutoff);
+	}
+
+	@Benchmark
+	public WAVLTree intersection()
+	{
+		return WAVLTree.intersection(a, b, pool, sequentialCutoff);
+	}
+
+	@Benchmark
+	public WAVLTree difference()
+	{
+		return WAVLTree.difference(a, b, pool, sequentialCutoff);
+	}
+}
@@ -0,0 +1,96 @@
+package wavl.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wavl.WAVLTree;
+
+/**
+ * SnapshotBenchmark
+ *
+ * Cold start: rebuilding a tree of size random keys (with short values) by inserting
+ * them one by one, against loading it from a snapshot file (loadSnapshot).
+ * writeSnapshot is measured too. The file lives in the temp directory, so it is
+ * usually in the page cache - this measures the CPU side of the load.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+	@Param({"1000000"})
+	public int size;
+
+	int[] keys;
+	String[] values;
+	WAVLTree tree;
+	Path file;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException
+	{
+		Random random = new Random(42);
+		keys = new int[size];
+		values = new String[size];
+		tree = new WAVLTree();
+		for (int i = 0; i < size; i++)
+		{
+			int key;
+			do
+				key = random.nextInt(Integer.MAX_VALUE);
+			while (tree.insert(key, WAVLTreeBenchmark.VALUE) == -1);
+			keys[i] = key;
+			values[i] = WAVLTreeBenchmark.VALUE;
+		}
+		file = Files.createTempFile("wavl", ".snapshot");
+		tree.writeSnapshot(file);
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() throws IOException
+	{
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public WAVLTree insertLoop()
+	{
+		WAVLTree rebuilt = new WAVLTree();
+		for (int i = 0; i < size; i++)
+			rebuilt.insert(keys[i], values[i]);
+		return rebuilt;
+	}
+
+	@Benchmark
+	public WAVLTree loadSnapshot() throws IOException
+	{
+		return WAVLTree.loadSnapshot(file);
+	}
+
+	@Benchmark
+	public Path writeSnapshot() throws IOException
+	{
+		tree.writeSnapshot(file);
+		return file;
+	}
+}
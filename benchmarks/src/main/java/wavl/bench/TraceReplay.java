@@ -0,0 +1,194 @@
+package wavl.bench;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import wavl.IWAVLTree;
+import wavl.WAVLMetrics;
+import wavl.WAVLTree;
+import wavl.WorkloadTrace;
+
+/**
+ * TraceReplay
+ *
+ * Replays a WorkloadTrace (recorded with wavl.TraceRecorder) against tree implementations, on a
+ * single thread, and prints the throughput, the latency percentiles and the rebalancing of each.
+ * Every run starts from an empty tree; the warm-up runs are not reported.
+ * The inserts all use the same info string.
+ *
+ * By default the operations run back to back. With --paced every operation waits for its recorded
+ * start time, and its latency is measured from that time - an operation that starts late because
+ * the previous ones were slow is charged for the wait.
+ *
+ * For WAVL_TREE the promotions, demotions, rotations and search depths come from a WAVLMetrics.
+ *
+ * usage: java -cp benchmarks/target/benchmarks.jar wavl.bench.TraceReplay trace
+ *            [--paced] [--warmup n] [--runs n] [implementation...]
+ */
+public class TraceReplay {
+
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length == 0)
+		{
+			System.err.println("usage: TraceReplay trace [--paced] [--warmup n] [--runs n] [implementation...]");
+			System.exit(2);
+		}
+		Path path = Paths.get(args[0]);
+		boolean paced = false;
+		int warmup = 2;
+		int runs = 1;
+		List<Implementation> implementations = new ArrayList<>();
+		for (int a = 1; a < args.length; a++)
+		{
+			if (args[a].equals("--paced"))
+				paced = true;
+			else if (args[a].equals("--warmup"))
+				warmup = Integer.parseInt(args[++a]);
+			else if (args[a].equals("--runs"))
+				runs = Integer.parseInt(args[++a]);
+			else
+				implementations.add(Implementation.valueOf(args[a]));
+		}
+		if (implementations.isEmpty())
+			implementations.addAll(Arrays.asList(Implementation.values()));
+
+		WorkloadTrace trace = WorkloadTrace.read(path);
+		System.out.printf("%s: %d operations (%d insert, %d delete, %d search, %d select) over %.3f s recorded%n",
+				path, trace.size(), trace.count(WorkloadTrace.INSERT), trace.count(WorkloadTrace.DELETE),
+				trace.count(WorkloadTrace.SEARCH), trace.count(WorkloadTrace.SELECT),
+				trace.size() == 0 ? 0.0 : trace.nanos(trace.size() - 1) / 1e9);
+		System.out.printf("%-12s %10s %8s %8s %8s %8s %10s %12s%n",
+				"impl", "ops/us", "p50 ns", "p90 ns", "p99 ns", "p99.9 ns", "max ns", "rebal/write");
+		long[] latencies = new long[trace.size()];
+		for (Implementation implementation : implementations)
+		{
+			for (int run = 0; run < warmup; run++)
+				replay(trace, implementation, paced, latencies, null);
+			for (int run = 0; run < runs; run++)
+			{
+				WAVLMetrics metrics = implementation == Implementation.WAVL_TREE ? new WAVLMetrics() : null;
+				long[] result = replay(trace, implementation, paced, latencies, metrics);
+				report(implementation, trace, result, latencies);
+				if (metrics != null)
+					reportMetrics(metrics);
+			}
+		}
+	}
+
+	//replays the trace on a new tree, and fills in the latency of every operation.
+	//returns {elapsed nanoseconds, rebalance operations of the inserts and deletes, inserts and deletes}
+	private static long[] replay(WorkloadTrace trace, Implementation implementation, boolean paced, long[] latencies,
+			WAVLMetrics metrics) throws Exception
+	{
+		IWAVLTree tree = implementation.create(trace.count(WorkloadTrace.INSERT));
+		if (metrics != null)
+			((WAVLTree) tree).setRebalanceListener(metrics);
+		long rebalancing = 0;
+		long writes = 0;
+		long sink = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < trace.size(); i++)
+		{
+			long begin = System.nanoTime();
+			if (paced)
+			{
+				long scheduled = start + trace.nanos(i);
+				waitUntil(scheduled);
+				begin = scheduled;
+			}
+			int arg = trace.arg(i);
+			switch (trace.op(i))
+			{
+				case WorkloadTrace.INSERT:
+				{
+					int steps = tree.insert(arg, WAVLTreeBenchmark.VALUE);
+					if (steps >= 0)
+					{
+						rebalancing += steps;
+						writes++;
+					}
+					break;
+				}
+				case WorkloadTrace.DELETE:
+				{
+					int steps = tree.delete(arg);
+					if (steps >= 0)
+					{
+						rebalancing += steps;
+						writes++;
+					}
+					break;
+				}
+				case WorkloadTrace.SEARCH:
+					sink += tree.search(arg) == null ? 0 : 1;
+					break;
+				default:
+					sink += tree.selectKey(arg);
+					break;
+			}
+			latencies[i] = System.nanoTime() - begin;
+		}
+		long elapsed = System.nanoTime() - start;
+		if (tree instanceof AutoCloseable)
+			((AutoCloseable) tree).close();
+		if (sink == 42)
+			System.out.print(""); //keeps the reads from being optimized away
+		return new long[] {elapsed, rebalancing, writes};
+	}
+
+	//sleeps most of the way, and spins the last 50us
+	private static void waitUntil(long deadline)
+	{
+		long left;
+		while ((left = deadline - System.nanoTime()) > 0)
+		{
+			if (left > TimeUnit.MICROSECONDS.toNanos(50))
+				LockSupport.parkNanos(left - TimeUnit.MICROSECONDS.toNanos(50));
+			else
+				Thread.onSpinWait();
+		}
+	}
+
+	private static void report(Implementation implementation, WorkloadTrace trace, long[] result, long[] latencies)
+	{
+		long[] sorted = Arrays.copyOf(latencies, trace.size());
+		Arrays.sort(sorted);
+		StringBuilder line = new StringBuilder(String.format("%-12s %10.3f", implementation,
+				result[0] == 0 ? 0.0 : trace.size() * 1000.0 / result[0]));
+		for (double percentile : PERCENTILES)
+			line.append(String.format(" %8d", percentile(sorted, percentile)));
+		line.append(String.format(" %10d %12.3f", sorted.length == 0 ? 0 : sorted[sorted.length - 1],
+				result[2] == 0 ? 0.0 : (double) result[1] / result[2]));
+		System.out.println(line);
+	}
+
+	private static void reportMetrics(WAVLMetrics metrics)
+	{
+		long[] depths = metrics.getSearchDepths();
+		long weighted = 0;
+		for (int depth = 0; depth < depths.length; depth++)
+			weighted += depth * depths[depth];
+		System.out.printf("%-12s promotions %d, demotions %d, rotations %d single / %d double, "
+				+ "delete loop %d, mean search depth %.2f%n", "",
+				metrics.getPromotions(), metrics.getDemotions(), metrics.getSingleRotations(),
+				metrics.getDoubleRotations(), metrics.getDeleteSteps(),
+				metrics.getSearches() == 0 ? 0.0 : (double) weighted / metrics.getSearches());
+	}
+
+	//nearest-rank percentile of a sorted array
+	private static long percentile(long[] sorted, double percentile)
+	{
+		if (sorted.length == 0)
+			return 0;
+		int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+		return sorted[Math.max(rank - 1, 0)];
+	}
+}
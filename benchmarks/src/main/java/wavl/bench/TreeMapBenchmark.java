@@ -0,0 +1,123 @@
+package wavl.bench;
+
+import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TreeMapBenchmark
+ *
+ * The WAVLTreeBenchmark workloads run against java.util.TreeMap (a red-black tree),
+ * as a baseline for WAVLTree.
+ * TreeMap has no order statistics, so there is no select benchmark here.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeMapBenchmark {
+
+	@State(Scope.Thread)
+	public static class MapState
+	{
+		@Param({"1000", "100000", "1000000", "10000000"})
+		public int size;
+
+		@Param({"SEQUENTIAL", "RANDOM", "ZIPFIAN"})
+		public KeyDistribution distribution;
+
+		TreeMap<Integer, String> map;
+		int[] probes;
+		int cursor;
+
+		@Setup(Level.Trial)
+		public void load()
+		{
+			map = new TreeMap<>();
+			for (int index : distribution.loadOrder(size, 42))
+				map.put(2 * index, WAVLTreeBenchmark.VALUE);
+			probes = distribution.probes(size, WAVLTreeBenchmark.PROBES, 7);
+			cursor = 0;
+		}
+
+		int nextProbe()
+		{
+			int probe = probes[cursor];
+			cursor = (cursor + 1) & (WAVLTreeBenchmark.PROBES - 1);
+			return probe;
+		}
+	}
+
+	public static class InsertState extends MapState
+	{
+		int inserted;
+
+		@TearDown(Level.Invocation)
+		public void undo()
+		{
+			map.remove(inserted);
+		}
+	}
+
+	public static class DeleteState extends MapState
+	{
+		int deleted;
+
+		@TearDown(Level.Invocation)
+		public void undo()
+		{
+			map.put(deleted, WAVLTreeBenchmark.VALUE);
+		}
+	}
+
+	@Benchmark
+	public String insert(InsertState s)
+	{
+		s.inserted = 2 * s.nextProbe() + 1;
+		return s.map.put(s.inserted, WAVLTreeBenchmark.VALUE);
+	}
+
+	@Benchmark
+	public String delete(DeleteState s)
+	{
+		s.deleted = 2 * s.nextProbe();
+		return s.map.remove(s.deleted);
+	}
+
+	@Benchmark
+	public String search(MapState s)
+	{
+		return s.map.get(2 * s.nextProbe());
+	}
+
+	@Benchmark
+	public int[] keysToArray(MapState s)
+	{
+		int[] keys = new int[s.map.size()];
+		Iterator<Integer> it = s.map.keySet().iterator();
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = it.next();
+		return keys;
+	}
+
+	@Benchmark
+	public String[] infoToArray(MapState s)
+	{
+		return s.map.values().toArray(new String[0]);
+	}
+}
@@ -0,0 +1,158 @@
+package wavl.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import wavl.IWAVLTree;
+
+/**
+ * WAVLTreeBenchmark
+ *
+ * Throughput and latency (SampleTime gives the p99) of the WAVLTree API,
+ * for every tree implementation.
+ * Run with "-prof gc" to get the allocation rate - see the README.
+ * TreeMapBenchmark runs the same workloads against java.util.TreeMap.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WAVLTreeBenchmark {
+
+	static final String VALUE = "info";
+
+	//number of precomputed probes, a power of 2 so the cursor can wrap with a mask
+	static final int PROBES = 1 << 16;
+
+	@State(Scope.Thread)
+	public static class TreeState
+	{
+		@Param({"1000", "100000", "1000000", "10000000"})
+		public int size;
+
+		@Param({"SEQUENTIAL", "RANDOM", "ZIPFIAN"})
+		public KeyDistribution distribution;
+
+		@Param({"WAVL_TREE", "POOLED", "OFF_HEAP", "PERSISTENT"})
+		public Implementation implementation;
+
+		IWAVLTree tree;
+		int[] probes;
+		int cursor;
+
+		@Setup(Level.Trial)
+		public void load()
+		{
+			tree = implementation.create(size);
+			for (int index : distribution.loadOrder(size, 42))
+				tree.insert(2 * index, VALUE);
+			probes = distribution.probes(size, PROBES, 7);
+			cursor = 0;
+		}
+
+		@TearDown(Level.Trial)
+		public void release() throws Exception
+		{
+			if (tree instanceof AutoCloseable)
+				((AutoCloseable) tree).close();
+		}
+
+		//index (0..size-1 in sorted order) of the next key to work on
+		int nextProbe()
+		{
+			int probe = probes[cursor];
+			cursor = (cursor + 1) & (PROBES - 1);
+			return probe;
+		}
+	}
+
+	//insert is measured alone - the key is taken out again outside of the measurement
+	//so the tree keeps its size. note that Level.Invocation adds a few ns of
+	//timestamping to every call, which matters only for the smallest trees.
+	public static class InsertState extends TreeState
+	{
+		int inserted;
+
+		@TearDown(Level.Invocation)
+		public void undo()
+		{
+			tree.delete(inserted);
+		}
+	}
+
+	//symmetric to InsertState - the deleted key is put back outside of the measurement
+	public static class DeleteState extends TreeState
+	{
+		int deleted;
+
+		@TearDown(Level.Invocation)
+		public void undo()
+		{
+			tree.insert(deleted, VALUE);
+		}
+	}
+
+	@Benchmark
+	public int insert(InsertState s)
+	{
+		s.inserted = 2 * s.nextProbe() + 1; //absent key
+		return s.tree.insert(s.inserted, VALUE);
+	}
+
+	@Benchmark
+	public int delete(DeleteState s)
+	{
+		s.deleted = 2 * s.nextProbe(); //existing key
+		return s.tree.delete(s.deleted);
+	}
+
+	@Benchmark
+	public String search(TreeState s)
+	{
+		return s.tree.search(2 * s.nextProbe());
+	}
+
+	@Benchmark
+	public String select(TreeState s)
+	{
+		return s.tree.select(s.nextProbe() + 1);
+	}
+
+	@Benchmark
+	public int selectKey(TreeState s)
+	{
+		return s.tree.selectKey(s.nextProbe() + 1);
+	}
+
+	@Benchmark
+	public int rank(TreeState s)
+	{
+		return s.tree.rank(2 * s.nextProbe());
+	}
+
+	@Benchmark
+	public int[] keysToArray(TreeState s)
+	{
+		return s.tree.keysToArray();
+	}
+
+	@Benchmark
+	public String[] infoToArray(TreeState s)
+	{
+		return s.tree.infoToArray();
+	}
+}
@@ -0,0 +1,869 @@
+package wavl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+
+import wavl.WAVLTree.WAVLNode;
+
+/**
+ *
+ * ConcurrentWAVLTree
+ *
+ * A thread-safe WAVLTree. Writers (insert, delete and the other mutations, with their
+ * rotations) take the write lock of a StampedLock. The point reads - search, containsKey,
+ * min, max, peekFirstKey, peekLastKey, select, selectKey, rank, size and empty - first run
+ * as optimistic reads: they walk the tree with no lock at all, read the key or info they
+ * return, and keep it only if no writer came in meanwhile (StampedLock.validate). Otherwise they run again under the read lock.
+ * The nodes themselves are never handed out: a delete moves keys and infos between nodes
+ * (WAVLTree.swapNodes), so a node found by a reader may hold another item a moment later.
+ * So as long as writes are rare, readers never block each other nor write to shared memory.
+ *
+ * A walk that overlaps a rotation can see a half-updated tree, so the optimistic walks
+ * are bounded by the maximal height of a WAVL tree, and any exception they hit just means
+ * the read is retried under the lock.
+ *
+ * The whole-tree reads (keysToArray, infoToArray, forEach, ...), the range and navigation
+ * reads (countRange, aggregate, floorKey, ceilingValue, ...) always take the read lock.
+ *
+ * Deliberately not offered, since they cannot be made safe by a lock around the call:
+ * whatever hands out or takes nodes (getRoot, findNodeFromKey, successor, predecessor,
+ * insertNear, searchFrom), the cursor (it walks the tree between calls), and finger mode.
+ * split, join, concat and the set operations make new trees out of whole WAVLTrees -
+ * they are run on a WAVLTree before it is wrapped.
+ *
+ */
+public class ConcurrentWAVLTree implements IWAVLTree {
+
+	//the rank of a WAVL tree with n nodes is at most 2log(n) < 64 - a longer walk read a torn tree
+	private static final int MAX_DEPTH = 64;
+	//returned by the optimistic walks when they gave up
+	private static final WAVLNode TORN = new WAVLNode();
+
+	private final WAVLTree tree;
+	private final StampedLock lock = new StampedLock();
+
+	//constructor
+	public ConcurrentWAVLTree()
+	{
+		this(new WAVLTree());
+	}
+
+	//constructor - wraps an existing tree, which must not be used directly afterwards.
+	//finger mode is turned off: it makes every search write the finger, and the reads under the
+	//read lock run side by side
+	public ConcurrentWAVLTree(WAVLTree tree)
+	{
+		tree.setFingerMode(false);
+		this.tree = tree;
+	}
+
+	//==================================================================
+	//=========================Optimistic reads=========================
+	//==================================================================
+
+	public boolean empty()
+	{
+		long stamp = lock.tryOptimisticRead();
+		boolean empty = tree.getRoot() == null;
+		if (lock.validate(stamp))
+			return empty;
+		stamp = lock.readLock();
+		try
+		{
+			return tree.empty();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public int size()
+	{
+		long stamp = lock.tryOptimisticRead();
+		WAVLNode root = tree.getRoot();
+		int size = root == null ? 0 : root.getSubtreeSize();
+		if (lock.validate(stamp))
+			return size;
+		stamp = lock.readLock();
+		try
+		{
+			return tree.size();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public String search(int k)
+	{
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0)
+		{
+			WAVLNode node = TORN;
+			String value = null;
+			try
+			{
+				node = optimisticFind(k);
+				if (node != null && node != TORN)
+					value = node.getValue();
+			}
+			catch (RuntimeException e)
+			{
+				//a torn read - retried under the lock
+			}
+			if (node != TORN && lock.validate(stamp))
+				return value;
+		}
+		stamp = lock.readLock();
+		try
+		{
+			return tree.search(k);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	//returns true iff an item with key k is in the tree
+	public boolean containsKey(int k)
+	{
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0)
+		{
+			WAVLNode node = TORN;
+			try
+			{
+				node = optimisticFind(k);
+			}
+			catch (RuntimeException e)
+			{
+				//a torn read - retried under the lock
+			}
+			if (node != TORN && lock.validate(stamp))
+				return node != null;
+		}
+		stamp = lock.readLock();
+		try
+		{
+			return tree.findNodeFromKey(k) != null;
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	//the tree caches its minimal and maximal nodes, so these are a couple of reads
+	public String min()
+	{
+		long stamp = lock.tryOptimisticRead();
+		String min = tree.min();
+		if (lock.validate(stamp))
+			return min;
+		stamp = lock.readLock();
+		try
+		{
+			return tree.min();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public String max()
+	{
+		long stamp = lock.tryOptimisticRead();
+		String max = tree.max();
+		if (lock.validate(stamp))
+			return max;
+		stamp = lock.readLock();
+		try
+		{
+			return tree.max();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	//like min and max - the cached end nodes
+	public int peekFirstKey()
+	{
+		return peekFirstKey(-1);
+	}
+
+	public int peekFirstKey(int notFound)
+	{
+		long stamp = lock.tryOptimisticRead();
+		int key = tree.peekFirstKey(notFound);
+		if (lock.validate(stamp))
+			return key;
+		stamp = lock.readLock();
+		try
+		{
+			return tree.peekFirstKey(notFound);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public int peekLastKey()
+	{
+		return peekLastKey(-1);
+	}
+
+	public int peekLastKey(int notFound)
+	{
+		long stamp = lock.tryOptimisticRead();
+		int key = tree.peekLastKey(notFound);
+		if (lock.validate(stamp))
+			return key;
+		stamp = lock.readLock();
+		try
+		{
+			return tree.peekLastKey(notFound);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public String select(int i)
+	{
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0)
+		{
+			WAVLNode node = TORN;
+			String value = null;
+			try
+			{
+				if (tree.getRoot() == null)
+				{
+					node = null;
+					value = "-1";
+				}
+				else
+				{
+					node = optimisticSelect(i);
+					if (node != null && node != TORN)
+						value = node.getValue();
+				}
+			}
+			catch (RuntimeException e)
+			{
+				//a torn read - retried under the lock
+			}
+			if (node != TORN && lock.validate(stamp))
+				return value;
+		}
+		stamp = lock.readLock();
+		try
+		{
+			return tree.select(i);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public int selectKey(int i)
+	{
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0)
+		{
+			WAVLNode node = TORN;
+			int key = -1;
+			try
+			{
+				node = optimisticSelect(i);
+				if (node != null && node != TORN)
+					key = node.getKey();
+			}
+			catch (RuntimeException e)
+			{
+				//a torn read - retried under the lock
+			}
+			if (node != TORN && lock.validate(stamp))
+				return key;
+		}
+		stamp = lock.readLock();
+		try
+		{
+			return tree.selectKey(i);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public int rank(int k)
+	{
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0)
+		{
+			int rank = -1;
+			try
+			{
+				rank = optimisticRank(k);
+			}
+			catch (RuntimeException e)
+			{
+				//a torn read - retried under the lock
+			}
+			if (rank >= 0 && lock.validate(stamp))
+				return rank;
+		}
+		stamp = lock.readLock();
+		try
+		{
+			return tree.rank(k);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	//the walks below only use the public node API, and give up (TORN, or -1 for rank)
+	//once they went deeper than any valid tree
+
+	private WAVLNode optimisticFind(int k)
+	{
+		WAVLNode current = tree.getRoot();
+		if (current == null)
+			return null;
+		for (int depth = 0; depth < MAX_DEPTH; depth++)
+		{
+			if (!current.isRealNode())
+				return null;
+			int key = current.getKey();
+			if (key == k)
+				return current;
+			current = key > k ? current.getLeft() : current.getRight();
+		}
+		return TORN;
+	}
+
+	private WAVLNode optimisticSelect(int i)
+	{
+		WAVLNode current = tree.getRoot();
+		if (current == null || i < 1 || i > current.getSubtreeSize())
+			return null;
+		for (int depth = 0; depth < MAX_DEPTH; depth++)
+		{
+			if (!current.isRealNode())
+				return TORN;
+			int leftSize = current.getLeft().getSubtreeSize();
+			if (i == leftSize + 1)
+				return current;
+			if (i <= leftSize)
+				current = current.getLeft();
+			else
+			{
+				i -= leftSize + 1;
+				current = current.getRight();
+			}
+		}
+		return TORN;
+	}
+
+	private int optimisticRank(int k)
+	{
+		WAVLNode current = tree.getRoot();
+		if (current == null)
+			return 0;
+		int counter = 0;
+		for (int depth = 0; depth < MAX_DEPTH; depth++)
+		{
+			if (!current.isRealNode())
+				return counter;
+			if (current.getKey() <= k)
+			{
+				counter += current.getLeft().getSubtreeSize() + 1;
+				current = current.getRight();
+			}
+			else
+				current = current.getLeft();
+		}
+		return -1;
+	}
+
+	//==================================================================
+	//=========================Locked reads=============================
+	//==================================================================
+
+	public int[] keysToArray()
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.keysToArray();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public int keysInto(int[] dst, int offset)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.keysInto(dst, offset);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public String[] infoToArray()
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.infoToArray();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	//the action runs under the read lock - it must not write to this tree
+	public void forEach(WAVLTree.IntObjConsumer action)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			tree.forEach(action);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public String[] selectRange(int i, int j)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.selectRange(i, j);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	//writers wait until the snapshot file is written - see WAVLTree.writeSnapshot
+	public void writeSnapshot(Path path) throws IOException
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			tree.writeSnapshot(path);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	//the number of keys k with lo <= k < hi - see WAVLTree.countRange
+	public int countRange(int lo, int hi)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.countRange(lo, hi);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	//the aggregate of all the items - see WAVLTree.aggregate
+	public long aggregate()
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.aggregate();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	//the aggregate of the items with lo <= key < hi - see WAVLTree.aggregate
+	public long aggregate(int lo, int hi)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.aggregate(lo, hi);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	//==================================================================
+	//=========================Navigation===============================
+	//==================================================================
+	//the nearest key lookups of WAVLTree, under the read lock
+
+	public int floorKey(int k)
+	{
+		return floorKey(k, -1);
+	}
+
+	public int floorKey(int k, int notFound)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.floorKey(k, notFound);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public int ceilingKey(int k)
+	{
+		return ceilingKey(k, -1);
+	}
+
+	public int ceilingKey(int k, int notFound)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.ceilingKey(k, notFound);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public int lowerKey(int k)
+	{
+		return lowerKey(k, -1);
+	}
+
+	public int lowerKey(int k, int notFound)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.lowerKey(k, notFound);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public int higherKey(int k)
+	{
+		return higherKey(k, -1);
+	}
+
+	public int higherKey(int k, int notFound)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.higherKey(k, notFound);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public String floorValue(int k)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.floorValue(k);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public String ceilingValue(int k)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.ceilingValue(k);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public String lowerValue(int k)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.lowerValue(k);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public String higherValue(int k)
+	{
+		long stamp = lock.readLock();
+		try
+		{
+			return tree.higherValue(k);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	//==================================================================
+	//=========================Writes===================================
+	//==================================================================
+
+	public int insert(int k, String i)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.insert(k, i);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public int delete(int k)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.delete(k);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	//deletes the item with the smallest key and returns its info, or null - see WAVLTree.pollFirst
+	public String pollFirst()
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.pollFirst();
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public String pollLast()
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.pollLast();
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	//readers wait for the whole range - see WAVLTree.deleteRange
+	public int deleteRange(int lo, int hi)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.deleteRange(lo, hi);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public int deleteAll(int[] sortedKeys)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.deleteAll(sortedKeys);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public String put(int k, String i)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.put(k, i);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public String putIfAbsent(int k, String i)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.putIfAbsent(k, i);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	//the function runs under the write lock - it must not use this tree
+	public String computeIfAbsent(int k, IntFunction<String> function)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.computeIfAbsent(k, function);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	//the function runs under the write lock - it must not use this tree
+	public String compute(int k, WAVLTree.IntObjFunction function)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.compute(k, function);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	//the function runs under the write lock - it must not use this tree
+	public String merge(int k, String i, BinaryOperator<String> function)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.merge(k, i, function);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public int insertAll(int[] keys, String[] values)
+	{
+		return insertAll(keys, values, ForkJoinPool.commonPool(), WAVLTree.DEFAULT_SEQUENTIAL_CUTOFF);
+	}
+
+	public int insertAll(int[] keys, String[] values, ForkJoinPool pool, int sequentialCutoff)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			return tree.insertAll(keys, values, pool, sequentialCutoff);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public void setAggregate(WAVLTree.Aggregate aggregate)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			tree.setAggregate(aggregate);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	//the listener is called by the writers and by the locked reads, from any thread - see WAVLMetrics
+	public void setRebalanceListener(WAVLTree.RebalanceListener listener)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			tree.setRebalanceListener(listener);
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public void rebuild()
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			tree.rebuild();
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+}
@@ -0,0 +1,382 @@
+package wavl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *
+ * DurableWAVLTree
+ *
+ * A thread-safe WAVLTree (see ConcurrentWAVLTree) that survives a crash: every insert and delete
+ * is appended to a write-ahead log, and takes effect - becomes visible to the reads - only once
+ * its log record is on disk. The fsyncs are shared by all the writes that are waiting for one
+ * (group commit, see WriteAheadLog), so with many writers a write costs a fraction of an fsync.
+ * The logged writes wait in log order, and whichever writer takes the lock next applies
+ * all of those that are durable.
+ *
+ * checkpoint() writes a snapshot of the tree (WAVLTree.writeSnapshot) and drops the log records
+ * it covers. open() loads the last snapshot and replays the log written after it.
+ *
+ * The directory holds snapshot-<n>.wavl (the tree up to the record n-1) and the log segments,
+ * wal-<n>.log (the records from n on). A directory must be opened by one tree at a time.
+ *
+ */
+public class DurableWAVLTree implements IWAVLTree, AutoCloseable {
+
+	//the flusher does not wait for more writes - a batch is whatever was appended during the last fsync
+	public static final int DEFAULT_FLUSH_INTERVAL_MICROS = 0;
+	public static final int DEFAULT_BATCH_SIZE = 1024;
+	public static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+	private static final String SNAPSHOT_SUFFIX = ".wavl";
+
+	private final Path directory;
+	private final ConcurrentWAVLTree tree;
+	private final WriteAheadLog log;
+	//the writers append and apply under this lock, so the log order is the order of the changes
+	private final ReentrantLock writes = new ReentrantLock();
+	//the logged writes that are not applied yet, in log order, and the last of them for every key
+	private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+	private final HashMap<Integer, Pending> pendingByKey = new HashMap<>();
+
+	private DurableWAVLTree(Path directory, WAVLTree tree, WriteAheadLog log)
+	{
+		this.directory = directory;
+		this.tree = new ConcurrentWAVLTree(tree);
+		this.log = log;
+	}
+
+	/**
+	 * public static DurableWAVLTree open(Path directory)
+	 *
+	 * opens the tree kept in directory (created if needed) with the default group commit settings.
+	 */
+	public static DurableWAVLTree open(Path directory) throws IOException
+	{
+		return open(directory, DEFAULT_FLUSH_INTERVAL_MICROS, DEFAULT_BATCH_SIZE, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * public static DurableWAVLTree open(Path directory, int flushIntervalMicros, int batchSize, long segmentSize)
+	 *
+	 * opens the tree kept in directory (created if needed): loads the last snapshot and replays the log
+	 * after it, in O(n + log length). a record that was torn by a crash was never acknowledged, and is dropped.
+	 * the log syncs at most every flushIntervalMicros once a write is waiting, or as soon as batchSize
+	 * writes are waiting. a new log segment is started every segmentSize bytes.
+	 */
+	public static DurableWAVLTree open(Path directory, int flushIntervalMicros, int batchSize, long segmentSize) throws IOException
+	{
+		Files.createDirectories(directory);
+		List<Path> snapshots = snapshots(directory);
+		Path last = snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+		WAVLTree tree = last == null ? new WAVLTree() : WAVLTree.loadSnapshot(last);
+		long from = last == null ? 1 : sequence(last);
+		long next = WriteAheadLog.replay(directory, from, (op, key, info) ->
+		{
+			if (op == WriteAheadLog.INSERT)
+				tree.insert(key, info);
+			else
+				tree.delete(key);
+		});
+		WriteAheadLog log = new WriteAheadLog(directory, next, TimeUnit.MICROSECONDS.toNanos(flushIntervalMicros),
+				batchSize, segmentSize);
+		return new DurableWAVLTree(directory, tree, log);
+	}
+
+	//==================================================================
+	//=========================Writes===================================
+	//==================================================================
+
+	/**
+	 * public int insert(int k, String i)
+	 *
+	 * as WAVLTree.insert - returns once the insert is on disk, and only then the reads see it.
+	 * a rejected insert (k exists, or is being inserted) is not logged.
+	 * throws UncheckedIOException if the log could not be written - then the insert may or may not
+	 * be on disk, is not applied, and the tree takes no more writes.
+	 */
+	public int insert(int k, String i)
+	{
+		Pending write;
+		writes.lock();
+		try
+		{
+			if (contains(k))
+				return -1;
+			write = log(WriteAheadLog.INSERT, k, i);
+		}
+		finally
+		{
+			writes.unlock();
+		}
+		return await(write);
+	}
+
+	/**
+	 * public int delete(int k)
+	 *
+	 * as WAVLTree.delete - returns once the delete is on disk, and only then the reads see it.
+	 * deleting a missing key is not logged.
+	 * throws UncheckedIOException if the log could not be written - then the delete may or may not
+	 * be on disk, is not applied, and the tree takes no more writes.
+	 */
+	public int delete(int k)
+	{
+		Pending write;
+		writes.lock();
+		try
+		{
+			if (!contains(k))
+				return -1;
+			write = log(WriteAheadLog.DELETE, k, null);
+		}
+		finally
+		{
+			writes.unlock();
+		}
+		return await(write);
+	}
+
+	//whether k is in the tree once the pending writes are applied. called under the writes lock
+	private boolean contains(int k)
+	{
+		Pending last = pendingByKey.get(k);
+		if (last != null)
+			return last.op == WriteAheadLog.INSERT;
+		return tree.containsKey(k);
+	}
+
+	//appends a write to the log, and queues it until it is durable. called under the writes lock
+	private Pending log(byte op, int k, String i)
+	{
+		Pending write = new Pending(log.append(op, k, i), op, k, i);
+		pending.addLast(write);
+		pendingByKey.put(k, write);
+		return write;
+	}
+
+	//waits until the write is on disk, applies it (with the writes before it) and returns its result
+	private int await(Pending write)
+	{
+		UncheckedIOException failure = null;
+		try
+		{
+			log.awaitDurable(write.sequence);
+		}
+		catch (UncheckedIOException e)
+		{
+			failure = e;
+		}
+		writes.lock();
+		try
+		{
+			applyDurable();
+			if (failure != null)
+			{
+				//the log takes no more records - the writes that did not make it are never applied
+				pending.clear();
+				pendingByKey.clear();
+				throw failure;
+			}
+			return write.result;
+		}
+		finally
+		{
+			writes.unlock();
+		}
+	}
+
+	//applies the queued writes that are on disk, in log order. called under the writes lock
+	private void applyDurable()
+	{
+		long durable = log.durableSequence();
+		while (!pending.isEmpty() && pending.peekFirst().sequence <= durable)
+		{
+			Pending write = pending.removeFirst();
+			write.result = write.op == WriteAheadLog.INSERT ? tree.insert(write.key, write.info) : tree.delete(write.key);
+			if (pendingByKey.get(write.key) == write)
+				pendingByKey.remove(write.key);
+		}
+	}
+
+	/**
+	 * public void checkpoint()
+	 *
+	 * writes a snapshot of the tree, and deletes the older snapshots and the log segments it covers,
+	 * so the log does not grow without bound and open() has less to replay.
+	 * the writers wait until the snapshot is written, the readers do not.
+	 */
+	public void checkpoint() throws IOException
+	{
+		writes.lock();
+		try
+		{
+			long next = log.rotate();
+			//every record before next is on disk now, and has to be in the snapshot
+			applyDurable();
+			tree.writeSnapshot(directory.resolve(snapshotName(next)));
+			WriteAheadLog.syncDirectory(directory);
+			for (Path snapshot : snapshots(directory))
+				if (sequence(snapshot) < next)
+					Files.delete(snapshot);
+			log.deleteSegmentsBefore(next);
+		}
+		finally
+		{
+			writes.unlock();
+		}
+	}
+
+	/**
+	 * public void close()
+	 *
+	 * writes out the log, applies the writes still waiting for it, and stops its flusher thread.
+	 * the tree must not be written to afterwards (IllegalStateException). closing twice does nothing.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		writes.lock();
+		try
+		{
+			log.close();
+			applyDurable();
+		}
+		finally
+		{
+			writes.unlock();
+		}
+	}
+
+	//==================================================================
+	//==============================END=================================
+	//==================================================================
+
+	//==================================================================
+	//=========================Reads====================================
+	//==================================================================
+	//the reads see the writes that are on disk - not one that is still waiting for its fsync
+
+	public boolean empty()
+	{
+		return tree.empty();
+	}
+
+	public String search(int k)
+	{
+		return tree.search(k);
+	}
+
+	public String min()
+	{
+		return tree.min();
+	}
+
+	public String max()
+	{
+		return tree.max();
+	}
+
+	public int[] keysToArray()
+	{
+		return tree.keysToArray();
+	}
+
+	public int keysInto(int[] dst, int offset)
+	{
+		return tree.keysInto(dst, offset);
+	}
+
+	public String[] infoToArray()
+	{
+		return tree.infoToArray();
+	}
+
+	public void forEach(WAVLTree.IntObjConsumer action)
+	{
+		tree.forEach(action);
+	}
+
+	public int size()
+	{
+		return tree.size();
+	}
+
+	public String select(int i)
+	{
+		return tree.select(i);
+	}
+
+	public int selectKey(int i)
+	{
+		return tree.selectKey(i);
+	}
+
+	public String[] selectRange(int i, int j)
+	{
+		return tree.selectRange(i, j);
+	}
+
+	public int rank(int k)
+	{
+		return tree.rank(k);
+	}
+
+	//==================================================================
+	//==============================END=================================
+	//==================================================================
+
+	//a write that is logged, but not applied yet
+	private static final class Pending
+	{
+		final long sequence;
+		final byte op;
+		final int key;
+		final String info;
+		int result; //the return value of the insert or delete, once applied
+
+		Pending(long sequence, byte op, int key, String info)
+		{
+			this.sequence = sequence;
+			this.op = op;
+			this.key = key;
+			this.info = info;
+		}
+	}
+
+	//the snapshot files, oldest first
+	private static List<Path> snapshots(Path directory) throws IOException
+	{
+		List<Path> snapshots = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX))
+		{
+			for (Path file : files)
+				snapshots.add(file);
+		}
+		Collections.sort(snapshots); //the sequence numbers are zero padded
+		return snapshots;
+	}
+
+	private static String snapshotName(long next)
+	{
+		return String.format("%s%020d%s", SNAPSHOT_PREFIX, next, SNAPSHOT_SUFFIX);
+	}
+
+	//the sequence number of the first log record that is not in the snapshot
+	private static long sequence(Path snapshot)
+	{
+		String name = snapshot.getFileName().toString();
+		return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+	}
+}
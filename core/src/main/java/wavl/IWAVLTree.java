@@ -0,0 +1,28 @@
+package wavl;
+
+/**
+ *
+ * IWAVLTree
+ *
+ * The public API of a WAVL tree with distinct integer keys and info,
+ * shared by the different tree implementations (WAVLTree, PooledWAVLTree, ...).
+ * See WAVLTree for the documentation of every operation.
+ *
+ */
+public interface IWAVLTree {
+	public boolean empty(); //true iff the tree is empty
+	public String search(int k); //info of key k, or null
+	public int insert(int k, String i); //number of rebalancing operations, or -1 if k exists
+	public int delete(int k); //number of rebalancing operations, or -1 if k does not exist
+	public String min(); //info of the minimal key, or null if the tree is empty
+	public String max(); //info of the maximal key, or null if the tree is empty
+	public int[] keysToArray(); //sorted keys
+	public int keysInto(int[] dst, int offset); //copies the sorted keys into dst, returns size()
+	public String[] infoToArray(); //info sorted by key
+	public void forEach(WAVLTree.IntObjConsumer action); //(key, info) pairs in key order
+	public int size(); //number of items
+	public String select(int i); //info of the i'th smallest key
+	public int selectKey(int i); //the i'th smallest key
+	public String[] selectRange(int i, int j); //info of the i'th to the j'th smallest keys
+	public int rank(int k); //number of keys smaller than or equal to k
+}
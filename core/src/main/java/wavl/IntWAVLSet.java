@@ -0,0 +1,247 @@
+package wavl;
+
+/**
+ *
+ * IntWAVLSet
+ *
+ * A sorted set of ints - a WAVL tree of keys only, for membership and order statistics
+ * where there is nothing to map the keys to. The nodes are slots of the same primitive arrays
+ * as PooledWAVLTree, with the same insert/delete/rebalance steps (PooledWAVLCore), minus the info:
+ * a key costs ~21 bytes of array space, and a lookup only reads the key and child arrays.
+ *
+ */
+public class IntWAVLSet extends PooledWAVLCore {
+
+	//constructor
+	public IntWAVLSet()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	//constructor - room for initialCapacity keys before the arrays have to grow
+	public IntWAVLSet(int initialCapacity)
+	{
+		super(initialCapacity);
+	}
+
+	/**
+	 * public int add(int k)
+	 *
+	 * adds k to the set, and returns the number of rebalancing operations (as WAVLTree.insert),
+	 * or -1 if k is already in the set.
+	 */
+	public int add(int k)
+	{
+		int node = addNode(k);
+		if (node == EXT)
+			return -1;
+		return rebalanceAdded(node);
+	}
+
+	/**
+	 * public int remove(int k)
+	 *
+	 * removes k from the set, and returns the number of rebalancing operations (as WAVLTree.delete),
+	 * or -1 if k is not in the set.
+	 */
+	public int remove(int k)
+	{
+		return removeKey(k);
+	}
+
+	//returns true iff k is in the set
+	public boolean contains(int k)
+	{
+		return findNode(k) != EXT;
+	}
+
+	//returns true iff the set is empty
+	public boolean empty()
+	{
+		return root == EXT;
+	}
+
+	//returns the number of keys in the set
+	public int size()
+	{
+		return size[root]; //size[EXT] = 0
+	}
+
+	//returns the smallest key, or -1 if the set is empty
+	public int min()
+	{
+		return key[firstNode()]; //key[EXT] = -1
+	}
+
+	//returns the largest key, or -1 if the set is empty
+	public int max()
+	{
+		return key[lastNode()];
+	}
+
+	/**
+	 * public int select(int i)
+	 *
+	 * returns the i'th smallest key (i = 1 for the smallest), or -1 if i is not in 1..size(), in O(log n).
+	 */
+	public int select(int i)
+	{
+		return key[selectNode(i)];
+	}
+
+	/**
+	 * public int rank(int k)
+	 *
+	 * returns the number of keys <= k in O(log n) - the index select() returns k for, if k is in the set.
+	 */
+	public int rank(int k)
+	{
+		return rankOf(k);
+	}
+
+	//returns the number of keys k with lo <= k < hi (0 if lo >= hi), in O(log n)
+	public int countRange(int lo, int hi)
+	{
+		if (lo >= hi)
+			return 0;
+		//rank(hi - 1) - rank(lo - 1), without overflowing at Integer.MIN_VALUE
+		return rankOf(hi - 1) - (lo == Integer.MIN_VALUE ? 0 : rankOf(lo - 1));
+	}
+
+	//returns a sorted array of the keys, or an empty array if the set is empty
+	public int[] toArray()
+	{
+		int[] arr = new int[size()];
+		int i = 0;
+		for (int current = firstNode(); current != EXT; current = nextNode(current))
+			arr[i++] = key[current];
+		return arr;
+	}
+
+	/**
+	 * public Cursor cursor()
+	 *
+	 * Returns a new cursor over this set, used like WAVLTree.cursor():
+	 *
+	 *   IntWAVLSet.Cursor c = set.cursor();
+	 *   for (c.forward(lo, hi); c.next(); )
+	 *       use(c.key());
+	 *
+	 * The set must not be modified while a scan is in progress.
+	 */
+	public Cursor cursor()
+	{
+		return new Cursor();
+	}
+
+	//the slot with the smallest key >= k, or EXT
+	private int ceilingNode(int k)
+	{
+		int result = EXT;
+		int current = root;
+		while (current != EXT)
+		{
+			if (key[current] >= k)
+			{
+				result = current;
+				current = left[current];
+			}
+			else
+				current = right[current];
+		}
+		return result;
+	}
+
+	//the slot with the largest key < k, or EXT
+	private int lowerNode(int k)
+	{
+		int result = EXT;
+		int current = root;
+		while (current != EXT)
+		{
+			if (key[current] < k)
+			{
+				result = current;
+				current = right[current];
+			}
+			else
+				current = left[current];
+		}
+		return result;
+	}
+
+	//walks the keys of [lo, hi) in either direction along the successor/predecessor links:
+	//O(log n) to position, then amortized O(1) per key, no recursion
+	public final class Cursor
+	{
+		private int current = EXT; //the slot next() returned last
+		private int pending = EXT; //the slot next() returns next, EXT at the end
+		private boolean forward;
+		private int lo;
+		private int hi;
+
+		private Cursor()
+		{
+		}
+
+		//positions the cursor before the smallest key >= lo - next() goes up to the largest key < hi
+		public Cursor forward(int lo, int hi)
+		{
+			return position(true, lo, hi, lo < hi ? ceilingNode(lo) : EXT);
+		}
+
+		//positions the cursor after the largest key < hi - next() goes down to the smallest key >= lo
+		public Cursor backward(int lo, int hi)
+		{
+			return position(false, lo, hi, lo < hi ? lowerNode(hi) : EXT);
+		}
+
+		private Cursor position(boolean forward, int lo, int hi, int first)
+		{
+			this.forward = forward;
+			this.lo = lo;
+			this.hi = hi;
+			current = EXT;
+			pending = inRange(first) ? first : EXT;
+			return this;
+		}
+
+		private boolean inRange(int node)
+		{
+			return node != EXT && key[node] >= lo && key[node] < hi;
+		}
+
+		//moves to the next key of the range. returns false (and stays put) when there is none left
+		public boolean next()
+		{
+			if (pending == EXT)
+				return false;
+			current = pending;
+			int following = forward ? nextNode(current) : prevNode(current);
+			pending = inRange(following) ? following : EXT;
+			return true;
+		}
+
+		//the key next() moved to
+		public int key()
+		{
+			return key[current];
+		}
+	}
+
+	//nothing is kept per slot besides the key
+	@Override
+	void growValues(int capacity)
+	{
+	}
+
+	@Override
+	void swapValues(int a, int b)
+	{
+	}
+
+	@Override
+	void releaseValue(int node)
+	{
+	}
+}
@@ -0,0 +1,583 @@
+package wavl;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ *
+ * OffHeapWAVLTree
+ *
+ * A WAVL tree with the same API and the same insert/delete/rebalance steps as PooledWAVLTree,
+ * where both the nodes and the info strings live off-heap, in direct memory.
+ * The heap only holds the tree object and the arrays of chunk buffers, no matter how big the tree is,
+ * so the GC has nothing to trace. The rank and rotation steps are SlotWAVLCore's, on the node records.
+ *
+ * The memory is released by close(), after which the tree must not be used.
+ *
+ */
+public class OffHeapWAVLTree extends SlotWAVLCore implements IWAVLTree, AutoCloseable {
+
+	//node record layout - 32 bytes per node
+	private static final int KEY = 0;
+	private static final int LEFT = 4;
+	private static final int RIGHT = 8;
+	private static final int PARENT = 12;
+	private static final int SIZE = 16;
+	private static final int RANK = 20;
+	private static final int VALUE = 24; //reference to the info in the value area, NULL_VALUE for a null info
+	private static final int NODE_SHIFT = 5;
+
+	//nodes are allocated in chunks of 2^16 (2MB), so growing never copies
+	private static final int NODE_CHUNK_SHIFT = 16;
+	private static final int NODE_CHUNK_MASK = (1 << NODE_CHUNK_SHIFT) - 1;
+
+	//the info strings are appended, UTF-8 encoded and length prefixed, to 16MB chunks
+	private static final int VALUE_CHUNK_SIZE = 1 << 24;
+	private static final long NULL_VALUE = -1;
+
+	private ByteBuffer[] nodeChunks = new ByteBuffer[0];
+	private ByteBuffer[] valueChunks = new ByteBuffer[0];
+
+	private int freeList = EXT; // the first free node, free nodes are linked through LEFT
+	private int nextNode = 0; // the first node that was never used
+	private int valueChunk = -1; // the value chunk that is being appended to
+	private long liveValueBytes = 0; // bytes used by the info of the nodes in the tree
+	private long garbageValueBytes = 0; // bytes used by info that was deleted or replaced
+	private boolean closed = false;
+
+	//constructor
+	public OffHeapWAVLTree()
+	{
+		int ext = allocateNode();
+		setKey(ext, -1);
+		setRank(ext, -1);
+		setSize(ext, 0);
+		setValue(ext, NULL_VALUE);
+	}
+
+	/**
+	 * public void close()
+	 *
+	 * releases the off-heap memory of the tree. the tree must not be used afterwards
+	 * (operations throw IllegalStateException). closing twice does nothing.
+	 */
+	@Override
+	public void close()
+	{
+		if (closed)
+			return;
+		closed = true;
+		for (ByteBuffer chunk : nodeChunks)
+			free(chunk);
+		for (ByteBuffer chunk : valueChunks)
+			free(chunk);
+		nodeChunks = null;
+		valueChunks = null;
+	}
+
+	/**
+	 * public long offHeapBytes()
+	 *
+	 * returns the number of off-heap bytes currently reserved by the tree
+	 */
+	public long offHeapBytes()
+	{
+		checkOpen();
+		return ((long) nodeChunks.length << (NODE_CHUNK_SHIFT + NODE_SHIFT)) + (long) valueChunks.length * VALUE_CHUNK_SIZE;
+	}
+
+	public boolean empty()
+	{
+		checkOpen();
+		return root == EXT;
+	}
+
+	public String search(int k)
+	{
+		checkOpen();
+		int node = findNode(k);
+		if (node == EXT)
+			return null;
+		return info(node);
+	}
+
+	//goes down from the root to find the desired key, returns EXT if it is not in the tree
+	private int findNode(int k)
+	{
+		int current = root;
+		while (current != EXT)
+		{
+			int currentKey = getKey(current);
+			if (currentKey == k)
+				return current;
+			current = currentKey > k ? getLeft(current) : getRight(current);
+		}
+		return EXT;
+	}
+
+	public String min()
+	{
+		checkOpen();
+		if (root == EXT)
+			return null;
+		return info(firstNode());
+	}
+
+	public String max()
+	{
+		checkOpen();
+		if (root == EXT)
+			return null;
+		int current = root;
+		while (getRight(current) != EXT)
+			current = getRight(current);
+		return info(current);
+	}
+
+	public int[] keysToArray()
+	{
+		int[] arr = new int[size()];
+		keysInto(arr, 0);
+		return arr;
+	}
+
+	public int keysInto(int[] dst, int offset)
+	{
+		int n = size();
+		if (offset < 0 || offset > dst.length - n)
+			throw new IndexOutOfBoundsException("offset " + offset + " + size " + n + " > length " + dst.length);
+		for (int current = firstNode(); current != EXT; current = nextNode(current))
+			dst[offset++] = getKey(current);
+		return n;
+	}
+
+	public String[] infoToArray()
+	{
+		String[] arr = new String[size()];
+		int i = 0;
+		for (int current = firstNode(); current != EXT; current = nextNode(current))
+			arr[i++] = info(current);
+		return arr;
+	}
+
+	public void forEach(WAVLTree.IntObjConsumer action)
+	{
+		checkOpen();
+		for (int current = firstNode(); current != EXT; current = nextNode(current))
+			action.accept(getKey(current), info(current));
+	}
+
+	public int size()
+	{
+		checkOpen();
+		return getSize(root); //size of EXT is 0
+	}
+
+	public String select(int i)
+	{
+		checkOpen();
+		if (root == EXT)
+			return "-1";
+		int node = selectNode(i);
+		if (node == EXT)
+			return null;
+		return info(node);
+	}
+
+	public int selectKey(int i)
+	{
+		checkOpen();
+		int node = selectNode(i);
+		if (node == EXT)
+			return -1;
+		return getKey(node);
+	}
+
+	public String[] selectRange(int i, int j)
+	{
+		if (i < 1 || j > size() || i > j)
+			return new String[0];
+		String[] arr = new String[j-i+1];
+		int current = selectNode(i);
+		for (int index = 0; index < arr.length; index++)
+		{
+			arr[index] = info(current);
+			current = nextNode(current);
+		}
+		return arr;
+	}
+
+	public int rank(int k)
+	{
+		checkOpen();
+		int counter = 0;
+		int current = root;
+		while (current != EXT)
+		{
+			if (getKey(current) <= k)
+			{
+				counter += getSize(getLeft(current)) + 1;
+				current = getRight(current);
+			}
+			else
+				current = getLeft(current);
+		}
+		return counter;
+	}
+
+	//the node with the i'th smallest key, or EXT if there is no such node
+	private int selectNode(int i)
+	{
+		if (i < 1 || i > getSize(root))
+			return EXT;
+		int current = root;
+		while (true)
+		{
+			int leftSize = getSize(getLeft(current));
+			if (i == leftSize + 1)
+				return current;
+			if (i <= leftSize)
+				current = getLeft(current);
+			else
+			{
+				i -= leftSize + 1;
+				current = getRight(current);
+			}
+		}
+	}
+
+	//the node with the minimal key, or EXT if the tree is empty
+	private int firstNode()
+	{
+		int current = root;
+		if (current == EXT)
+			return EXT;
+		while (getLeft(current) != EXT)
+			current = getLeft(current);
+		return current;
+	}
+
+	//in-order successor through the parent links, EXT for the maximal node
+	private int nextNode(int node)
+	{
+		if (getRight(node) != EXT)
+		{
+			node = getRight(node);
+			while (getLeft(node) != EXT)
+				node = getLeft(node);
+			return node;
+		}
+		while (node != root && node == getRight(getParent(node)))
+			node = getParent(node);
+		if (node == root)
+			return EXT;
+		return getParent(node);
+	}
+
+	//==================================================================
+	//=========================Insert Functions=========================
+	//==================================================================
+
+	//same steps as PooledWAVLTree.insert
+	public int insert(int k, String i)
+	{
+		checkOpen();
+		if (root == EXT)
+		{
+			root = newLeaf(k, i);
+			return 0;
+		}
+		//find the parent of the new node, or the node with key k
+		int current = root;
+		int p = EXT;
+		while (current != EXT)
+		{
+			int currentKey = getKey(current);
+			if (currentKey == k)
+				return -1;
+			p = current;
+			current = currentKey > k ? getLeft(current) : getRight(current);
+		}
+		int newNode = newLeaf(k, i);
+		setParent(newNode, p);
+		if (getKey(p) > k)
+			setLeft(p, newNode);
+		else
+			setRight(p, newNode);
+		updateSizes(p);
+		return rebalanceAdded(newNode);
+	}
+
+	//==================================================================
+	//==========================Delete functions========================
+	//==================================================================
+
+	//same steps as PooledWAVLTree.delete
+	public int delete(int k)
+	{
+		checkOpen();
+		int current = findNode(k);
+		if (current == EXT)
+			return -1;
+
+		if (current == root)
+		{
+			//check for a "leaf" root and "unary" root
+			if (getLeft(root) == EXT && getRight(root) == EXT)
+			{
+				releaseNode(root);
+				root = EXT;
+				return 0;
+			}
+			if (getLeft(root) == EXT || getRight(root) == EXT)
+			{
+				int child = getLeft(root) == EXT ? getRight(root) : getLeft(root);
+				releaseNode(root);
+				root = child;
+				setParent(root, EXT);
+				return 0;
+			}
+		}
+		//if the node is note unary of leaf -->replace it with its successor
+		if (getRight(current) != EXT && getLeft(current) != EXT)
+			current = replaceWithSuccessor(current);
+
+		int p = getParent(current);
+		//the node is now a leaf or a unary node - link its only child (or EXT) to its parent
+		int child = getLeft(current) != EXT ? getLeft(current) : getRight(current);
+		if (getLeft(p) == current)
+			setLeft(p, child);
+		else
+			setRight(p, child);
+		if (child != EXT)
+			setParent(child, p);
+		releaseNode(current);
+		updateSizes(p);
+
+		return rebalanceDelete(p);
+	}
+
+	//swap key and info with the successor, and return the successor
+	private int replaceWithSuccessor(int node)
+	{
+		int successor = getRight(node);
+		while (getLeft(successor) != EXT)
+			successor = getLeft(successor);
+		int k = getKey(node);
+		long v = getValue(node);
+		setKey(node, getKey(successor));
+		setValue(node, getValue(successor));
+		setKey(successor, k);
+		setValue(successor, v);
+		return successor;
+	}
+
+	//==================================================================
+	//=========================Off-heap storage=========================
+	//==================================================================
+
+	private void checkOpen()
+	{
+		if (closed)
+			throw new IllegalStateException("the tree is closed");
+	}
+
+	private ByteBuffer chunk(int node)
+	{
+		return nodeChunks[node >>> NODE_CHUNK_SHIFT];
+	}
+
+	private static int offset(int node)
+	{
+		return (node & NODE_CHUNK_MASK) << NODE_SHIFT;
+	}
+
+	//the node fields - all but the value are SlotWAVLCore's hooks
+	final int getKey(int node) { return chunk(node).getInt(offset(node) + KEY); }
+	final int getLeft(int node) { return chunk(node).getInt(offset(node) + LEFT); }
+	final int getRight(int node) { return chunk(node).getInt(offset(node) + RIGHT); }
+	final int getParent(int node) { return chunk(node).getInt(offset(node) + PARENT); }
+	final int getSize(int node) { return chunk(node).getInt(offset(node) + SIZE); }
+	final int getRank(int node) { return chunk(node).getInt(offset(node) + RANK); }
+	private long getValue(int node) { return chunk(node).getLong(offset(node) + VALUE); }
+
+	private void setKey(int node, int key) { chunk(node).putInt(offset(node) + KEY, key); }
+	final void setLeft(int node, int left) { chunk(node).putInt(offset(node) + LEFT, left); }
+	final void setRight(int node, int right) { chunk(node).putInt(offset(node) + RIGHT, right); }
+	final void setParent(int node, int parent) { chunk(node).putInt(offset(node) + PARENT, parent); }
+	final void setSize(int node, int size) { chunk(node).putInt(offset(node) + SIZE, size); }
+	final void setRank(int node, int rank) { chunk(node).putInt(offset(node) + RANK, rank); }
+	private void setValue(int node, long value) { chunk(node).putLong(offset(node) + VALUE, value); }
+
+	//a new internal leaf holding key k and info i
+	private int newLeaf(int k, String i)
+	{
+		long value = storeValue(i);
+		int node = allocateNode();
+		setKey(node, k);
+		setLeft(node, EXT);
+		setRight(node, EXT);
+		setParent(node, EXT);
+		setSize(node, 1);
+		setRank(node, 0);
+		setValue(node, value);
+		return node;
+	}
+
+	//takes a node from the free list, or a fresh one
+	private int allocateNode()
+	{
+		if (freeList != EXT)
+		{
+			int node = freeList;
+			freeList = getLeft(node);
+			return node;
+		}
+		if ((nextNode >>> NODE_CHUNK_SHIFT) == nodeChunks.length)
+		{
+			nodeChunks = Arrays.copyOf(nodeChunks, nodeChunks.length + 1);
+			nodeChunks[nodeChunks.length - 1] = allocateChunk(1 << (NODE_CHUNK_SHIFT + NODE_SHIFT));
+		}
+		return nextNode++;
+	}
+
+	//returns a node (and its info) to the free lists
+	private void releaseNode(int node)
+	{
+		discardValue(getValue(node));
+		setValue(node, NULL_VALUE);
+		setLeft(node, freeList);
+		freeList = node;
+	}
+
+	//the info of a node, decoded from the value area
+	private String info(int node)
+	{
+		long value = getValue(node);
+		if (value == NULL_VALUE)
+			return null;
+		ByteBuffer chunk = valueChunks[(int) (value >>> 32)];
+		int position = (int) value;
+		byte[] bytes = new byte[chunk.getInt(position)];
+		chunk.get(position + 4, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	//appends an info string to the value area, returns its reference (chunk << 32 | position)
+	private long storeValue(String i)
+	{
+		if (i == null)
+			return NULL_VALUE;
+		byte[] bytes = i.getBytes(StandardCharsets.UTF_8);
+		int length = 4 + bytes.length;
+		if (length > VALUE_CHUNK_SIZE)
+			throw new IllegalArgumentException("info of " + bytes.length + " bytes is larger than a value chunk");
+		if (garbageValueBytes > VALUE_CHUNK_SIZE && garbageValueBytes > liveValueBytes)
+			compactValues();
+		if (valueChunk < 0 || valueChunks[valueChunk].remaining() < length)
+			addValueChunk();
+		ByteBuffer chunk = valueChunks[valueChunk];
+		int position = chunk.position();
+		chunk.putInt(bytes.length);
+		chunk.put(bytes);
+		liveValueBytes += length;
+		return ((long) valueChunk << 32) | position;
+	}
+
+	//the value area is append-only, so a deleted info only becomes garbage
+	private void discardValue(long value)
+	{
+		if (value == NULL_VALUE)
+			return;
+		int length = 4 + valueChunks[(int) (value >>> 32)].getInt((int) value);
+		liveValueBytes -= length;
+		garbageValueBytes += length;
+	}
+
+	private void addValueChunk()
+	{
+		valueChunk++;
+		if (valueChunk == valueChunks.length)
+		{
+			valueChunks = Arrays.copyOf(valueChunks, valueChunks.length + 1);
+			valueChunks[valueChunk] = allocateChunk(VALUE_CHUNK_SIZE);
+		}
+	}
+
+	//once most of the value area is garbage, copy the live info to fresh chunks and free the old ones
+	private void compactValues()
+	{
+		ByteBuffer[] old = valueChunks;
+		valueChunks = new ByteBuffer[0];
+		valueChunk = -1;
+		liveValueBytes = 0;
+		garbageValueBytes = 0;
+		for (int node = firstNode(); node != EXT; node = nextNode(node))
+		{
+			long value = getValue(node);
+			if (value == NULL_VALUE)
+				continue;
+			ByteBuffer chunk = old[(int) (value >>> 32)];
+			int position = (int) value;
+			int length = 4 + chunk.getInt(position);
+			if (valueChunk < 0 || valueChunks[valueChunk].remaining() < length)
+				addValueChunk();
+			ByteBuffer target = valueChunks[valueChunk];
+			setValue(node, ((long) valueChunk << 32) | target.position());
+			target.put(chunk.slice(position, length));
+			liveValueBytes += length;
+		}
+		for (ByteBuffer chunk : old)
+			free(chunk);
+	}
+
+	private static ByteBuffer allocateChunk(int bytes)
+	{
+		return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+	}
+
+	//direct buffers are normally freed only when they are garbage collected -
+	//the jdk.unsupported Unsafe.invokeCleaner frees them right away. it is looked up reflectively,
+	//so the build does not depend on the internal API
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static
+	{
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try
+		{
+			Class<?> type = Class.forName("sun.misc.Unsafe");
+			Field field = type.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+			invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+		}
+		catch (ReflectiveOperationException | RuntimeException e)
+		{
+			unsafe = null; //the buffers will be freed by the GC
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	private static void free(ByteBuffer chunk)
+	{
+		if (INVOKE_CLEANER == null)
+			return;
+		try
+		{
+			INVOKE_CLEANER.invoke(UNSAFE, chunk);
+		}
+		catch (ReflectiveOperationException | RuntimeException e)
+		{
+			//left to the GC
+		}
+	}
+}
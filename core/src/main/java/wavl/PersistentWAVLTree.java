@@ -0,0 +1,728 @@
+package wavl;
+
+/**
+ *
+ * PersistentWAVLTree
+ *
+ * A WAVL tree with the same API and the same insert/delete/rebalance steps as WAVLTree,
+ * whose old versions stay readable: snapshot() returns, in O(1), a read-only Snapshot
+ * of the tree as it is now, and later inserts and deletes do not change it.
+ *
+ * The nodes have no parent links - insert and delete go down recursively and rebalance on
+ * the way back up, so a change only touches the nodes on its path (and their siblings in a
+ * rotation). A node that an existing snapshot may see is never changed: it is copied, and
+ * the copy is linked instead (path copying). Nodes created after the last snapshot are
+ * changed in place, so a tree that is never snapshotted does not copy at all.
+ *
+ * A Snapshot never changes, so any number of threads can read it without locks
+ * (the tree itself needs a single writer). Old versions are garbage collected as soon as
+ * no snapshot refers to them.
+ *
+ */
+public class PersistentWAVLTree implements IWAVLTree {
+
+	Node root = null; //null iff the tree is empty (package-private for the structural checks of the tests)
+	//nodes of older epochs may be shared with a snapshot. snapshot() starts a new epoch.
+	private int epoch = 0;
+	private Snapshot snapshot = null; //the snapshot of the current version, if one was taken
+
+	//state of the current insert/delete, for the recursion
+	private boolean changed;
+	private int counter;
+
+	/**
+	 * public Snapshot snapshot()
+	 *
+	 * returns a read-only view of the tree as it is now - O(1).
+	 * the snapshot stays the same whatever happens to the tree later.
+	 */
+	public Snapshot snapshot()
+	{
+		if (snapshot == null)
+		{
+			snapshot = new Snapshot(root);
+			epoch++; //from now on, all the current nodes are shared with the snapshot
+		}
+		return snapshot;
+	}
+
+	//==================================================================
+	//=========================Read functions===========================
+	//==================================================================
+	//all of these only read the nodes, and are shared with Snapshot
+
+	public boolean empty()
+	{
+		return root == null;
+	}
+
+	public String search(int k)
+	{
+		Node node = findNode(root, k);
+		return node == null ? null : node.info;
+	}
+
+	public String min()
+	{
+		Node node = edgeNode(root, true);
+		return node == null ? null : node.info;
+	}
+
+	public String max()
+	{
+		Node node = edgeNode(root, false);
+		return node == null ? null : node.info;
+	}
+
+	public int[] keysToArray()
+	{
+		int[] arr = new int[size()];
+		keysInto(root, arr, 0);
+		return arr;
+	}
+
+	public int keysInto(int[] dst, int offset)
+	{
+		return keysInto(root, dst, offset);
+	}
+
+	public String[] infoToArray()
+	{
+		return infoToArray(root);
+	}
+
+	public void forEach(WAVLTree.IntObjConsumer action)
+	{
+		forEach(root, action);
+	}
+
+	public int size()
+	{
+		return size(root);
+	}
+
+	public String select(int i)
+	{
+		return select(root, i);
+	}
+
+	public int selectKey(int i)
+	{
+		Node node = selectNode(root, i);
+		return node == null ? -1 : node.key;
+	}
+
+	public String[] selectRange(int i, int j)
+	{
+		return selectRange(root, i, j);
+	}
+
+	public int rank(int k)
+	{
+		return rank(root, k);
+	}
+
+	//by definition, the rank of an external leaf (null) is -1
+	private static int rank(Node node)
+	{
+		return node == null ? -1 : node.rank;
+	}
+
+	private static int size(Node node)
+	{
+		return node == null ? 0 : node.size;
+	}
+
+	private static Node findNode(Node current, int k)
+	{
+		while (current != null && current.key != k)
+			current = current.key > k ? current.left : current.right;
+		return current;
+	}
+
+	//the minimal (left) or maximal node, or null if the tree is empty
+	private static Node edgeNode(Node current, boolean left)
+	{
+		if (current == null)
+			return null;
+		for (Node next = left ? current.left : current.right; next != null; next = left ? current.left : current.right)
+			current = next;
+		return current;
+	}
+
+	//finds the node with the i'th smallest key using the subtree sizes, or null
+	private static Node selectNode(Node current, int i)
+	{
+		if (i < 1 || i > size(current))
+			return null;
+		while (true)
+		{
+			int leftSize = size(current.left);
+			if (i == leftSize + 1)
+				return current;
+			if (i <= leftSize)
+				current = current.left;
+			else
+			{
+				i -= leftSize + 1;
+				current = current.right;
+			}
+		}
+	}
+
+	private static String select(Node root, int i)
+	{
+		if (root == null)
+			return "-1";
+		Node node = selectNode(root, i);
+		return node == null ? null : node.info;
+	}
+
+	private static int rank(Node current, int k)
+	{
+		int counter = 0;
+		while (current != null)
+		{
+			if (current.key <= k)
+			{
+				counter += size(current.left) + 1;
+				current = current.right;
+			}
+			else
+				current = current.left;
+		}
+		return counter;
+	}
+
+	private static int keysInto(Node root, int[] dst, int offset)
+	{
+		int n = size(root);
+		if (offset < 0 || offset > dst.length - n)
+			throw new IndexOutOfBoundsException("offset " + offset + " + size " + n + " > length " + dst.length);
+		InOrder walk = new InOrder(root, 1);
+		for (Node current = walk.next(); current != null; current = walk.next())
+			dst[offset++] = current.key;
+		return n;
+	}
+
+	private static String[] infoToArray(Node root)
+	{
+		String[] arr = new String[size(root)];
+		InOrder walk = new InOrder(root, 1);
+		for (int i = 0; i < arr.length; i++)
+			arr[i] = walk.next().info;
+		return arr;
+	}
+
+	private static void forEach(Node root, WAVLTree.IntObjConsumer action)
+	{
+		InOrder walk = new InOrder(root, 1);
+		for (Node current = walk.next(); current != null; current = walk.next())
+			action.accept(current.key, current.info);
+	}
+
+	private static String[] selectRange(Node root, int i, int j)
+	{
+		if (i < 1 || j > size(root) || i > j)
+			return new String[0];
+		String[] arr = new String[j-i+1];
+		InOrder walk = new InOrder(root, i);
+		for (int index = 0; index < arr.length; index++)
+			arr[index] = walk.next().info;
+		return arr;
+	}
+
+	//in-order walk from the i'th smallest node, on an explicit stack (there are no parent links).
+	//the stack holds the nodes on the path whose left subtree is still being walked.
+	private static final class InOrder
+	{
+		private final Node[] stack;
+		private int depth = 0;
+
+		InOrder(Node root, int i)
+		{
+			//the height of a WAVL tree is at most its rank + 1
+			stack = new Node[rank(root) + 2];
+			Node current = root;
+			while (current != null)
+			{
+				int leftSize = size(current.left);
+				if (i <= leftSize)
+				{
+					stack[depth++] = current;
+					current = current.left;
+				}
+				else if (i == leftSize + 1)
+				{
+					stack[depth++] = current;
+					return;
+				}
+				else
+				{
+					i -= leftSize + 1;
+					current = current.right;
+				}
+			}
+		}
+
+		//returns the next node, or null after the maximal one
+		Node next()
+		{
+			if (depth == 0)
+				return null;
+			Node node = stack[--depth];
+			for (Node current = node.right; current != null; current = current.left)
+				stack[depth++] = current;
+			return node;
+		}
+	}
+
+	//==================================================================
+	//=========================Insert Functions=========================
+	//==================================================================
+
+	/**
+	 * public int insert(int k, String i)
+	 *
+	 * inserts an item with key k and info i to the tree, copying the nodes on the path that a snapshot
+	 * may see. returns the number of rebalancing operations, or 0 if none were needed.
+	 * returns -1 if an item with key k already exists in the tree.
+	 */
+	public int insert(int k, String i)
+	{
+		if (root == null)
+		{
+			root = new Node(k, i, epoch);
+			snapshot = null;
+			return 0;
+		}
+		changed = false;
+		counter = 0;
+		Node newRoot = insert(root, k, i, true);
+		if (!changed)
+			return -1;
+		root = newRoot;
+		snapshot = null;
+		return counter;
+	}
+
+	//inserts k under node, returns the new root of node's subtree
+	private Node insert(Node node, int k, String i, boolean isRoot)
+	{
+		if (node.key == k)
+			return node;
+		boolean toLeft = node.key > k;
+		Node child = toLeft ? node.left : node.right;
+		Node newChild;
+		if (child == null)
+		{
+			newChild = new Node(k, i, epoch);
+			changed = true;
+		}
+		else
+		{
+			newChild = insert(child, k, i, false);
+			if (!changed)
+				return node;
+		}
+		node = mutable(node);
+		if (toLeft)
+			node.left = newChild;
+		else
+			node.right = newChild;
+		node.size++;
+		//like WAVLTree, we promote the root if we insert a child directly
+		if (child == null && isRoot)
+		{
+			node.rank++;
+			counter++;
+			return node;
+		}
+		return rebalanceInsert(node);
+	}
+
+	//==================================================================
+	//==========================Delete functions========================
+	//==================================================================
+
+	/**
+	 * public int delete(int k)
+	 *
+	 * deletes the item with key k from the tree, if it is there, copying the nodes on the path
+	 * that a snapshot may see. returns the number of rebalancing operations, or 0 if none were needed.
+	 * returns -1 if an item with key k was not found in the tree.
+	 */
+	public int delete(int k)
+	{
+		changed = false;
+		counter = 0;
+		Node newRoot = delete(root, k);
+		if (!changed)
+			return -1;
+		root = newRoot;
+		snapshot = null;
+		return counter;
+	}
+
+	//deletes k from node's subtree, returns its new root
+	private Node delete(Node node, int k)
+	{
+		if (node == null)
+			return null;
+		if (node.key == k)
+		{
+			changed = true;
+			//a leaf or a unary node is replaced by its child
+			if (node.left == null)
+				return node.right;
+			if (node.right == null)
+				return node.left;
+			//otherwise it takes the key and info of its successor, which is deleted instead
+			node = mutable(node);
+			Node successor = edgeNode(node.right, true);
+			node.key = successor.key;
+			node.info = successor.info;
+			node.right = deleteMin(node.right);
+			node.size--;
+			return rebalanceDelete(node);
+		}
+		boolean toLeft = node.key > k;
+		Node newChild = delete(toLeft ? node.left : node.right, k);
+		if (!changed)
+			return node;
+		node = mutable(node);
+		if (toLeft)
+			node.left = newChild;
+		else
+			node.right = newChild;
+		node.size--;
+		return rebalanceDelete(node);
+	}
+
+	//deletes the minimal node of a subtree (that is not the tree's root), returns its new root
+	private Node deleteMin(Node node)
+	{
+		if (node.left == null)
+			return node.right;
+		node = mutable(node);
+		node.left = deleteMin(node.left);
+		node.size--;
+		return rebalanceDelete(node);
+	}
+
+	//==================================================================
+	//=========================Rebalance functions======================
+	//==================================================================
+	//the same cases and counting as WAVLTree, one node at a time: they are called on every
+	//node of the path on the way up, and do nothing on a valid node.
+	//the node they get is always mutable, and they return the new root of its subtree.
+
+	//returns node itself if no snapshot can see it, or a copy of it that belongs to the current epoch
+	private Node mutable(Node node)
+	{
+		if (node.epoch == epoch)
+			return node;
+		Node copy = new Node(node.key, node.info, epoch);
+		copy.rank = node.rank;
+		copy.size = node.size;
+		copy.left = node.left;
+		copy.right = node.right;
+		return copy;
+	}
+
+	//the rank differences to the left and right child, as in WAVLTree (0x21 = left 2, right 1)
+	private static int difType(Node node)
+	{
+		return ((node.rank - rank(node.left)) << 4) | (node.rank - rank(node.right));
+	}
+
+	//a child of node got a new subtree after insertion
+	private Node rebalanceInsert(Node node)
+	{
+		int type = difType(node);
+		//the child reached node's rank - promote, the problem is rolled up
+		if (type == 0x01 || type == 0x10)
+		{
+			node.rank++;
+			counter++;
+			return node;
+		}
+		if (type == 0x02)
+		{
+			int childType = difType(node.left);
+			if (childType == 0x12)
+			{
+				counter += 1;
+				return rotateRight(node);
+			}
+			if (childType == 0x21)
+			{
+				counter += 2;
+				return rotateLeftRight(node);
+			}
+		}
+		//symmetric cases
+		if (type == 0x20)
+		{
+			int childType = difType(node.right);
+			if (childType == 0x21)
+			{
+				counter += 1;
+				return rotateLeft(node);
+			}
+			if (childType == 0x12)
+			{
+				counter += 2;
+				return rotateRightLeft(node);
+			}
+		}
+		return node;
+	}
+
+	//a child of node got a new subtree after deletion
+	private Node rebalanceDelete(Node node)
+	{
+		int type = difType(node);
+		//node is a "22" leaf, or a "32"/"23" node - demote, the problem is rolled up
+		if ((type == 0x22 && node.left == null && node.right == null) || type == 0x32 || type == 0x23)
+		{
+			node.rank--;
+			counter++;
+			return node;
+		}
+		if (type == 0x31)
+		{
+			Node sibling = mutable(node.right);
+			node.right = sibling;
+			int siblingType = difType(sibling);
+			//double demote
+			if (siblingType == 0x22)
+			{
+				node.rank--;
+				sibling.rank--;
+				counter += 2;
+				return node;
+			}
+			//rotation - terminal case
+			if (siblingType == 0x21 || siblingType == 0x11)
+			{
+				Node top = rotateLeft(node);
+				top.rank++;
+				if (difType(node) == 0x22 && node.left == null && node.right == null)
+					node.rank--;
+				counter++;
+				return top;
+			}
+			//double rotation - terminal case
+			if (siblingType == 0x12)
+			{
+				node.rank--;
+				Node top = rotateRightLeft(node);
+				top.rank++;
+				counter += 2;
+				return top;
+			}
+		}
+		//symmetric cases
+		if (type == 0x13)
+		{
+			Node sibling = mutable(node.left);
+			node.left = sibling;
+			int siblingType = difType(sibling);
+			if (siblingType == 0x22)
+			{
+				node.rank--;
+				sibling.rank--;
+				counter += 2;
+				return node;
+			}
+			if (siblingType == 0x12 || siblingType == 0x11)
+			{
+				Node top = rotateRight(node);
+				top.rank++;
+				if (difType(node) == 0x22 && node.left == null && node.right == null)
+					node.rank--;
+				counter++;
+				return top;
+			}
+			if (siblingType == 0x21)
+			{
+				node.rank--;
+				Node top = rotateLeftRight(node);
+				top.rank++;
+				counter += 2;
+				return top;
+			}
+		}
+		return node; //a valid node
+	}
+
+	//rotating a subtree to the right, node is demoted. returns the new subtree root.
+	private Node rotateRight(Node node)
+	{
+		Node x = mutable(node.left);
+		node.left = x.right;
+		x.right = node;
+		node.rank--;
+		node.size = size(node.left) + size(node.right) + 1;
+		x.size = size(x.left) + node.size + 1;
+		return x;
+	}
+
+	//symmetric to rotateRight
+	private Node rotateLeft(Node node)
+	{
+		Node x = mutable(node.right);
+		node.right = x.left;
+		x.left = node;
+		node.rank--;
+		node.size = size(node.left) + size(node.right) + 1;
+		x.size = node.size + size(x.right) + 1;
+		return x;
+	}
+
+	//double rotation - the minor rotation is a left rotation, and the major one is a right rotation
+	private Node rotateLeftRight(Node node)
+	{
+		node.left = rotateLeft(mutable(node.left));
+		Node top = rotateRight(node);
+		top.rank++;
+		return top;
+	}
+
+	//symmetric to rotateLeftRight
+	private Node rotateRightLeft(Node node)
+	{
+		node.right = rotateRight(mutable(node.right));
+		Node top = rotateLeft(node);
+		top.rank++;
+		return top;
+	}
+
+	//==================================================================
+	//=========================Snapshot=================================
+	//==================================================================
+
+	/**
+	 *
+	 * Snapshot
+	 *
+	 * A read-only version of a PersistentWAVLTree. Its nodes are never changed again,
+	 * so it is safe to read from any number of threads without locking.
+	 * insert and delete throw UnsupportedOperationException.
+	 *
+	 */
+	public static final class Snapshot implements IWAVLTree {
+
+		final Node root; //package-private, like the tree's root
+
+		private Snapshot(Node root)
+		{
+			this.root = root;
+		}
+
+		public boolean empty()
+		{
+			return root == null;
+		}
+
+		public String search(int k)
+		{
+			Node node = findNode(root, k);
+			return node == null ? null : node.info;
+		}
+
+		public int insert(int k, String i)
+		{
+			throw new UnsupportedOperationException("a snapshot is read-only");
+		}
+
+		public int delete(int k)
+		{
+			throw new UnsupportedOperationException("a snapshot is read-only");
+		}
+
+		public String min()
+		{
+			Node node = edgeNode(root, true);
+			return node == null ? null : node.info;
+		}
+
+		public String max()
+		{
+			Node node = edgeNode(root, false);
+			return node == null ? null : node.info;
+		}
+
+		public int[] keysToArray()
+		{
+			int[] arr = new int[size()];
+			PersistentWAVLTree.keysInto(root, arr, 0);
+			return arr;
+		}
+
+		public int keysInto(int[] dst, int offset)
+		{
+			return PersistentWAVLTree.keysInto(root, dst, offset);
+		}
+
+		public String[] infoToArray()
+		{
+			return PersistentWAVLTree.infoToArray(root);
+		}
+
+		public void forEach(WAVLTree.IntObjConsumer action)
+		{
+			PersistentWAVLTree.forEach(root, action);
+		}
+
+		public int size()
+		{
+			return PersistentWAVLTree.size(root);
+		}
+
+		public String select(int i)
+		{
+			return PersistentWAVLTree.select(root, i);
+		}
+
+		public int selectKey(int i)
+		{
+			Node node = selectNode(root, i);
+			return node == null ? -1 : node.key;
+		}
+
+		public String[] selectRange(int i, int j)
+		{
+			return PersistentWAVLTree.selectRange(root, i, j);
+		}
+
+		public int rank(int k)
+		{
+			return PersistentWAVLTree.rank(root, k);
+		}
+	}
+
+	//==================================================================
+	//=========================Node=====================================
+	//==================================================================
+
+	//a node without parent link. external leaves are null.
+	static final class Node
+	{
+		int key;
+		String info;
+		int rank; //a new node is an internal leaf - rank 0
+		int size = 1; //subtree size of the node (including the node)
+		Node left;
+		Node right;
+		final int epoch; //the epoch the node was created in - only then it may be changed
+
+		private Node(int key, String info, int epoch)
+		{
+			this.key = key;
+			this.info = info;
+			this.epoch = epoch;
+		}
+	}
+}
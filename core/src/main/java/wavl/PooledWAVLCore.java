@@ -0,0 +1,316 @@
+package wavl;
+
+import java.util.Arrays;
+
+/**
+ *
+ * PooledWAVLCore
+ *
+ * The part of a pooled WAVL tree that does not depend on what a node carries besides its key:
+ * the slot arrays, the node pool, the walks down and the insert/delete steps (the same steps
+ * as WAVLTree - the rank and rotation steps are SlotWAVLCore's, on the arrays).
+ * PooledWAVLTree adds an info per slot, IntWAVLSet adds nothing.
+ *
+ * A subclass with per-slot data keeps it in its own arrays, indexed by slot, through the hooks
+ * growValues, swapValues and releaseValue. Slots never move - the rotations only relink them.
+ *
+ */
+abstract class PooledWAVLCore extends SlotWAVLCore {
+
+	static final int DEFAULT_CAPACITY = 16;
+
+	//node properties, one slot per node
+	int[] key;
+	byte[] rank; //the rank of a tree with n nodes is at most 2log(n)
+	int[] left;
+	int[] right;
+	int[] parent; //EXT for the root
+	int[] size; //subtree size of the node (including the node)
+
+	private int freeList = EXT; // the first free slot, free slots are linked through left[]
+	private int nextSlot = 1; // the first slot that was never used
+
+	//room for initialCapacity nodes before the arrays have to grow
+	PooledWAVLCore(int initialCapacity)
+	{
+		int capacity = Math.max(initialCapacity, 1) + 1;
+		key = new int[capacity];
+		rank = new byte[capacity];
+		left = new int[capacity];
+		right = new int[capacity];
+		parent = new int[capacity];
+		size = new int[capacity];
+		//by definition, the rank of external leaf is -1, and its size is 0
+		rank[EXT] = -1;
+		key[EXT] = -1;
+	}
+
+	//the per-slot data of the subclass - grown along with the slot arrays (capacity is the new length),
+	//swapped by the delete of a binary node, and dropped when a slot is freed
+	abstract void growValues(int capacity);
+
+	abstract void swapValues(int a, int b);
+
+	abstract void releaseValue(int node);
+
+	//the node fields for SlotWAVLCore - the walks below read the arrays directly
+	final int getKey(int node) { return key[node]; }
+	final int getLeft(int node) { return left[node]; }
+	final int getRight(int node) { return right[node]; }
+	final int getParent(int node) { return parent[node]; }
+	final int getSize(int node) { return size[node]; }
+	final int getRank(int node) { return rank[node]; }
+
+	final void setLeft(int node, int left) { this.left[node] = left; }
+	final void setRight(int node, int right) { this.right[node] = right; }
+	final void setParent(int node, int parent) { this.parent[node] = parent; }
+	final void setSize(int node, int size) { this.size[node] = size; }
+	final void setRank(int node, int rank) { this.rank[node] = (byte) rank; }
+
+	//goes down from the root to find the desired key, returns EXT if it is not in the tree
+	final int findNode(int k)
+	{
+		int current = root;
+		while (current != EXT && key[current] != k)
+			current = key[current] > k ? left[current] : right[current];
+		return current;
+	}
+
+	//the node with the i'th smallest key, or EXT if there is no such node
+	final int selectNode(int i)
+	{
+		if (i < 1 || i > size[root])
+			return EXT;
+		int current = root;
+		while (true)
+		{
+			int leftSize = size[left[current]];
+			if (i == leftSize + 1)
+				return current;
+			if (i <= leftSize)
+				current = left[current];
+			else
+			{
+				i -= leftSize + 1;
+				current = right[current];
+			}
+		}
+	}
+
+	//the number of keys <= k
+	final int rankOf(int k)
+	{
+		int counter = 0;
+		int current = root;
+		while (current != EXT)
+		{
+			if (key[current] <= k)
+			{
+				counter += size[left[current]] + 1;
+				current = right[current];
+			}
+			else
+				current = left[current];
+		}
+		return counter;
+	}
+
+	//the node with the minimal key, or EXT if the tree is empty
+	final int firstNode()
+	{
+		int current = root;
+		if (current == EXT)
+			return EXT;
+		while (left[current] != EXT)
+			current = left[current];
+		return current;
+	}
+
+	//the node with the maximal key, or EXT if the tree is empty
+	final int lastNode()
+	{
+		int current = root;
+		if (current == EXT)
+			return EXT;
+		while (right[current] != EXT)
+			current = right[current];
+		return current;
+	}
+
+	//in-order successor through the parent links, EXT for the maximal node
+	final int nextNode(int node)
+	{
+		if (right[node] != EXT)
+		{
+			node = right[node];
+			while (left[node] != EXT)
+				node = left[node];
+			return node;
+		}
+		while (node != root && node == right[parent[node]])
+			node = parent[node];
+		if (node == root)
+			return EXT;
+		return parent[node];
+	}
+
+	//in-order predecessor through the parent links, EXT for the minimal node
+	final int prevNode(int node)
+	{
+		if (left[node] != EXT)
+		{
+			node = left[node];
+			while (right[node] != EXT)
+				node = right[node];
+			return node;
+		}
+		while (node != root && node == left[parent[node]])
+			node = parent[node];
+		if (node == root)
+			return EXT;
+		return parent[node];
+	}
+
+	//==================================================================
+	//=========================Node pool================================
+	//==================================================================
+
+	//takes a slot from the free list (or a fresh one) for a new internal leaf
+	private int allocate(int k)
+	{
+		int node;
+		if (freeList != EXT)
+		{
+			node = freeList;
+			freeList = left[node];
+		}
+		else
+		{
+			if (nextSlot == key.length)
+				grow();
+			node = nextSlot++;
+		}
+		key[node] = k;
+		rank[node] = 0;
+		left[node] = EXT;
+		right[node] = EXT;
+		parent[node] = EXT;
+		size[node] = 1;
+		return node;
+	}
+
+	//returns a slot to the free list
+	private void release(int node)
+	{
+		releaseValue(node);
+		left[node] = freeList;
+		freeList = node;
+	}
+
+	//grows all the arrays by half
+	private void grow()
+	{
+		int capacity = key.length + (key.length >> 1) + 1;
+		key = Arrays.copyOf(key, capacity);
+		rank = Arrays.copyOf(rank, capacity);
+		left = Arrays.copyOf(left, capacity);
+		right = Arrays.copyOf(right, capacity);
+		parent = Arrays.copyOf(parent, capacity);
+		size = Arrays.copyOf(size, capacity);
+		growValues(capacity);
+	}
+
+	//==================================================================
+	//=========================Insert Functions=========================
+	//==================================================================
+
+	//links a new leaf with key k - the first half of WAVLTree.insert.
+	//returns its slot (the subclass sets its data there, then calls rebalanceAdded), or EXT if k exists
+	final int addNode(int k)
+	{
+		if (root == EXT)
+		{
+			root = allocate(k);
+			return root;
+		}
+		//find the parent of the new node, or the node with key k
+		int current = root;
+		int p = EXT;
+		while (current != EXT)
+		{
+			if (key[current] == k)
+				return EXT;
+			p = current;
+			current = key[current] > k ? left[current] : right[current];
+		}
+		int newNode = allocate(k);
+		parent[newNode] = p;
+		if (key[p] > k)
+			left[p] = newNode;
+		else
+			right[p] = newNode;
+		updateSizes(p);
+		return newNode;
+	}
+
+	//==================================================================
+	//==========================Delete functions========================
+	//==================================================================
+
+	//same steps as WAVLTree.delete - returns the number of rebalance steps, or -1 if k is not in the tree
+	final int removeKey(int k)
+	{
+		int current = findNode(k);
+		if (current == EXT)
+			return -1;
+
+		if (current == root)
+		{
+			//check for a "leaf" root and "unary" root
+			if (left[root] == EXT && right[root] == EXT)
+			{
+				release(root);
+				root = EXT;
+				return 0;
+			}
+			if (left[root] == EXT || right[root] == EXT)
+			{
+				int child = left[root] == EXT ? right[root] : left[root];
+				release(root);
+				root = child;
+				parent[root] = EXT;
+				return 0;
+			}
+		}
+		//if the node is note unary of leaf -->replace it with its successor
+		if (right[current] != EXT && left[current] != EXT)
+			current = replaceWithSuccessor(current);
+
+		int p = parent[current];
+		//the node is now a leaf or a unary node - link its only child (or EXT) to its parent
+		int child = left[current] != EXT ? left[current] : right[current];
+		if (left[p] == current)
+			left[p] = child;
+		else
+			right[p] = child;
+		if (child != EXT)
+			parent[child] = p;
+		release(current);
+		updateSizes(p);
+
+		return rebalanceDelete(p);
+	}
+
+	//swap key (and the subclass data) with the successor, and return the successor's slot
+	private int replaceWithSuccessor(int node)
+	{
+		int successor = right[node];
+		while (left[successor] != EXT)
+			successor = left[successor];
+		int k = key[node];
+		key[node] = key[successor];
+		key[successor] = k;
+		swapValues(node, successor);
+		return successor;
+	}
+}
@@ -0,0 +1,171 @@
+package wavl;
+
+import java.util.Arrays;
+
+/**
+ *
+ * PooledWAVLTree
+ *
+ * A WAVL tree with the same API and the same insert/delete/rebalance steps as WAVLTree,
+ * where the nodes are not objects but slots in parallel primitive arrays,
+ * addressed by their int index.
+ * A node costs ~25 bytes of array space and no object header or pointers,
+ * and the arrays grow as needed. Deleted slots are reused through a free list.
+ * The slots and the insert/delete/rebalance steps are in PooledWAVLCore - this class adds the info.
+ *
+ */
+public class PooledWAVLTree extends PooledWAVLCore implements IWAVLTree {
+
+	private String[] info; //the info of every slot
+
+	//constructor
+	public PooledWAVLTree()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	//constructor - room for initialCapacity nodes before the arrays have to grow
+	public PooledWAVLTree(int initialCapacity)
+	{
+		super(initialCapacity);
+		info = new String[key.length];
+	}
+
+	public boolean empty()
+	{
+		return root == EXT;
+	}
+
+	public String search(int k)
+	{
+		int node = findNode(k);
+		if (node == EXT)
+			return null;
+		return info[node];
+	}
+
+	public String min()
+	{
+		if (empty())
+			return null;
+		return info[firstNode()];
+	}
+
+	public String max()
+	{
+		if (empty())
+			return null;
+		return info[lastNode()];
+	}
+
+	public int[] keysToArray()
+	{
+		int[] arr = new int[size()];
+		keysInto(arr, 0);
+		return arr;
+	}
+
+	public int keysInto(int[] dst, int offset)
+	{
+		int n = size();
+		if (offset < 0 || offset > dst.length - n)
+			throw new IndexOutOfBoundsException("offset " + offset + " + size " + n + " > length " + dst.length);
+		for (int current = firstNode(); current != EXT; current = nextNode(current))
+			dst[offset++] = key[current];
+		return n;
+	}
+
+	public String[] infoToArray()
+	{
+		String[] arr = new String[size()];
+		int i = 0;
+		for (int current = firstNode(); current != EXT; current = nextNode(current))
+			arr[i++] = info[current];
+		return arr;
+	}
+
+	public void forEach(WAVLTree.IntObjConsumer action)
+	{
+		for (int current = firstNode(); current != EXT; current = nextNode(current))
+			action.accept(key[current], info[current]);
+	}
+
+	public int size()
+	{
+		return size[root]; //size[EXT] = 0
+	}
+
+	public String select(int i)
+	{
+		if (empty())
+			return "-1";
+		int node = selectNode(i);
+		if (node == EXT)
+			return null;
+		return info[node];
+	}
+
+	public int selectKey(int i)
+	{
+		int node = selectNode(i);
+		if (node == EXT)
+			return -1;
+		return key[node];
+	}
+
+	public String[] selectRange(int i, int j)
+	{
+		if (i < 1 || j > size() || i > j)
+			return new String[0];
+		String[] arr = new String[j-i+1];
+		int current = selectNode(i);
+		for (int index = 0; index < arr.length; index++)
+		{
+			arr[index] = info[current];
+			current = nextNode(current);
+		}
+		return arr;
+	}
+
+	public int rank(int k)
+	{
+		return rankOf(k);
+	}
+
+	//same steps as WAVLTree.insert
+	public int insert(int k, String i)
+	{
+		int node = addNode(k);
+		if (node == EXT)
+			return -1;
+		info[node] = i;
+		return rebalanceAdded(node);
+	}
+
+	//same steps as WAVLTree.delete
+	public int delete(int k)
+	{
+		return removeKey(k);
+	}
+
+	@Override
+	void growValues(int capacity)
+	{
+		info = Arrays.copyOf(info, capacity);
+	}
+
+	@Override
+	void swapValues(int a, int b)
+	{
+		String i = info[a];
+		info[a] = info[b];
+		info[b] = i;
+	}
+
+	//the info is dropped so it can be collected
+	@Override
+	void releaseValue(int node)
+	{
+		info[node] = null;
+	}
+}
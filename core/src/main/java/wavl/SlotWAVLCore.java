@@ -0,0 +1,313 @@
+package wavl;
+
+/**
+ *
+ * SlotWAVLCore
+ *
+ * The rank and rotation steps of the WAVL trees whose nodes are int slots rather than objects
+ * (PooledWAVLCore keeps them in arrays, OffHeapWAVLTree in direct memory): the second half of
+ * insert, the rebalancing after a delete unlinked a node, and the rotations - the same steps as WAVLTree.
+ *
+ * A subclass stores the node fields (key, left, right, parent, size, rank) behind the accessor
+ * hooks below, and the root in root. Slot EXT is the external leaf: rank -1, size 0.
+ * The steps do not need the key - it is there for the walks that only know the hooks.
+ *
+ */
+abstract class SlotWAVLCore {
+
+	//slot 0 is the external leaf: rank -1, size 0. it is also the "no node" index.
+	static final int EXT = 0;
+
+	int root = EXT; // the root slot, EXT iff the tree is empty
+
+	//the node fields, by slot
+	abstract int getKey(int node);
+
+	abstract int getLeft(int node);
+
+	abstract int getRight(int node);
+
+	abstract int getParent(int node);
+
+	abstract int getSize(int node);
+
+	abstract int getRank(int node);
+
+	abstract void setLeft(int node, int left);
+
+	abstract void setRight(int node, int right);
+
+	abstract void setParent(int node, int parent);
+
+	abstract void setSize(int node, int size);
+
+	abstract void setRank(int node, int rank);
+
+	//==================================================================
+	//=========================Rebalance functions======================
+	//==================================================================
+
+	//the second half of WAVLTree.insert, once newNode is linked under its parent and the sizes are
+	//updated - returns the number of rebalance steps
+	final int rebalanceAdded(int newNode)
+	{
+		if (newNode == root)
+			return 0;
+		int p = getParent(newNode);
+		//we will promote the root is we insert a child directly
+		if (p == root)
+		{
+			promote(root);
+			return 1;
+		}
+		if (getRank(p) != 0)
+			return 0;
+		return rebalanceInsert(newNode);
+	}
+
+	//update the sizes on the route from node up to the root
+	final void updateSizes(int node)
+	{
+		while (node != EXT)
+		{
+			updateSize(node);
+			node = getParent(node);
+		}
+	}
+
+	private void updateSize(int node)
+	{
+		setSize(node, getSize(getLeft(node)) + getSize(getRight(node)) + 1);
+	}
+
+	private void promote(int node)
+	{
+		setRank(node, getRank(node) + 1);
+	}
+
+	private void demote(int node)
+	{
+		setRank(node, getRank(node) - 1);
+	}
+
+	//rank differences of node - see WAVLTree.difType
+	private int difType(int node)
+	{
+		int r = getRank(node);
+		return ((r - getRank(getLeft(node))) << 4) | (r - getRank(getRight(node)));
+	}
+
+	private boolean isValidWAVLNode(int node)
+	{
+		int difType = difType(node);
+		return difType == 0x12 || difType == 0x21 || difType == 0x11 || difType == 0x22;
+	}
+
+	private boolean isLeaf(int node)
+	{
+		return getLeft(node) == EXT && getRight(node) == EXT;
+	}
+
+	//same steps as WAVLTree.rebalanceInsert
+	private int rebalanceInsert(int node)
+	{
+		int point = node;
+		int counter = 0;
+		//promote and roll the problem up
+		while (point != root)
+		{
+			int parentType = difType(getParent(point));
+			if (parentType != 0x01 && parentType != 0x10)
+				break;
+			promote(getParent(point));
+			point = getParent(point);
+			counter++;
+		}
+		if (point == root || isValidWAVLNode(getParent(point)))
+			return counter;
+
+		int parentType = difType(getParent(point));
+		int pointType = difType(point);
+		if (parentType == 0x02 && pointType == 0x12)
+		{
+			rotateRight(getParent(point));
+			return counter + 1;
+		}
+		if (parentType == 0x20 && pointType == 0x12)
+		{
+			rotateRightLeft(getParent(point));
+			return counter + 2;
+		}
+		if (parentType == 0x02 && pointType == 0x21)
+		{
+			rotateLeftRight(getParent(point));
+			return counter + 2;
+		}
+		if (parentType == 0x20 && pointType == 0x21)
+		{
+			rotateLeft(getParent(point));
+			return counter + 1;
+		}
+		return counter;
+	}
+
+	//same steps as WAVLTree.rebalanceDelete - current is the parent of the unlinked node.
+	//returns the number of rebalance steps
+	final int rebalanceDelete(int current)
+	{
+		int counter = 0;
+		while (true)
+		{
+			int type = difType(current);
+			//"22" leaf, "23" or "32" node - demote and roll the problem up
+			if ((type == 0x22 && isLeaf(current)) || type == 0x32 || type == 0x23)
+			{
+				demote(current);
+				if (current == root)
+					return counter + 1;
+				current = getParent(current);
+				counter++;
+				continue;
+			}
+			if (type == 0x12 || type == 0x21 || type == 0x11 || type == 0x22)
+				return counter;
+			if (type == 0x31)
+			{
+				int sibling = getRight(current);
+				int siblingType = difType(sibling);
+				//double demote, the problem might be rolled up
+				if (siblingType == 0x22)
+				{
+					demote(current);
+					demote(sibling);
+					if (current == root)
+						return counter + 2;
+					current = getParent(current);
+					counter += 2;
+					continue;
+				}
+				//single rotation - terminal
+				if (siblingType == 0x21 || siblingType == 0x11)
+				{
+					current = rotateLeft(current);
+					promote(current);
+					int temp = getLeft(current);
+					if (difType(temp) == 0x22 && isLeaf(temp))
+						demote(temp);
+					return counter + 1;
+				}
+				//double rotation - terminal
+				if (siblingType == 0x12)
+				{
+					demote(current);
+					current = rotateRightLeft(current);
+					promote(current);
+					return counter + 2;
+				}
+			}
+			//symmetric cases
+			if (type == 0x13)
+			{
+				int sibling = getLeft(current);
+				int siblingType = difType(sibling);
+				if (siblingType == 0x22)
+				{
+					demote(current);
+					demote(sibling);
+					if (current == root)
+						return counter + 2;
+					current = getParent(current);
+					counter += 2;
+					continue;
+				}
+				if (siblingType == 0x12 || siblingType == 0x11)
+				{
+					current = rotateRight(current);
+					promote(current);
+					int temp = getRight(current);
+					if (difType(temp) == 0x22 && isLeaf(temp))
+						demote(temp);
+					return counter + 1;
+				}
+				if (siblingType == 0x21)
+				{
+					demote(current);
+					current = rotateLeftRight(current);
+					promote(current);
+					return counter + 2;
+				}
+			}
+			return counter;
+		}
+	}
+
+	//puts newChild where oldChild was under p (or at the root)
+	private void replaceChild(int p, int oldChild, int newChild)
+	{
+		setParent(newChild, p);
+		if (p == EXT)
+			root = newChild;
+		else if (getLeft(p) == oldChild)
+			setLeft(p, newChild);
+		else
+			setRight(p, newChild);
+	}
+
+	//rotating a subtree to the right, y is demoted. returns the new subtree root
+	private int rotateRight(int y)
+	{
+		int x = getLeft(y);
+		int b = getRight(x);
+		int p = getParent(y);
+
+		setLeft(y, b);
+		if (b != EXT)
+			setParent(b, y);
+		setRight(x, y);
+		setParent(y, x);
+		replaceChild(p, y, x);
+		demote(y);
+
+		updateSize(y);
+		updateSize(x);
+		return x;
+	}
+
+	//symmetric to rotateRight
+	private int rotateLeft(int y)
+	{
+		int x = getRight(y);
+		int b = getLeft(x);
+		int p = getParent(y);
+
+		setRight(y, b);
+		if (b != EXT)
+			setParent(b, y);
+		setLeft(x, y);
+		setParent(y, x);
+		replaceChild(p, y, x);
+		demote(y);
+
+		updateSize(y);
+		updateSize(x);
+		return x;
+	}
+
+	//double rotation - left on the left child, then right. the new subtree root is promoted
+	private int rotateLeftRight(int node)
+	{
+		rotateLeft(getLeft(node));
+		int newNode = rotateRight(node);
+		promote(newNode);
+		return newNode;
+	}
+
+	//symmetric to rotateLeftRight
+	private int rotateRightLeft(int node)
+	{
+		rotateRight(getRight(node));
+		int newNode = rotateLeft(node);
+		promote(newNode);
+		return newNode;
+	}
+}
@@ -0,0 +1,143 @@
+package wavl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ *
+ * TraceRecorder
+ *
+ * Wraps any IWAVLTree, and records its insert, delete, search, select and selectKey calls
+ * (select and selectKey are both recorded as SELECT) - with their keys and start times -
+ * to a WorkloadTrace file. The other calls are passed on without being recorded.
+ *
+ * Recording costs a System.nanoTime() and a few buffered bytes per call. The records are
+ * written under the recorder's monitor, so a thread-safe tree can be shared by several threads.
+ * close() flushes the trace - the tree itself is not closed.
+ *
+ */
+public class TraceRecorder implements IWAVLTree, AutoCloseable {
+
+	private final IWAVLTree tree;
+	private final WorkloadTrace.Writer trace;
+
+	//constructor - records the calls on tree to a new trace file at path
+	public TraceRecorder(IWAVLTree tree, Path path) throws IOException
+	{
+		this.tree = tree;
+		this.trace = new WorkloadTrace.Writer(path);
+	}
+
+	private void record(byte op, int arg, long startNanos)
+	{
+		synchronized (trace)
+		{
+			try
+			{
+				trace.write(op, arg, startNanos);
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException("the trace could not be written", e);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		synchronized (trace)
+		{
+			trace.close();
+		}
+	}
+
+	//==================================================================
+	//=========================Recorded calls===========================
+	//==================================================================
+
+	public int insert(int k, String i)
+	{
+		record(WorkloadTrace.INSERT, k, System.nanoTime());
+		return tree.insert(k, i);
+	}
+
+	public int delete(int k)
+	{
+		record(WorkloadTrace.DELETE, k, System.nanoTime());
+		return tree.delete(k);
+	}
+
+	public String search(int k)
+	{
+		record(WorkloadTrace.SEARCH, k, System.nanoTime());
+		return tree.search(k);
+	}
+
+	public String select(int i)
+	{
+		record(WorkloadTrace.SELECT, i, System.nanoTime());
+		return tree.select(i);
+	}
+
+	public int selectKey(int i)
+	{
+		record(WorkloadTrace.SELECT, i, System.nanoTime());
+		return tree.selectKey(i);
+	}
+
+	//==================================================================
+	//==============================END=================================
+	//==================================================================
+
+	public boolean empty()
+	{
+		return tree.empty();
+	}
+
+	public String min()
+	{
+		return tree.min();
+	}
+
+	public String max()
+	{
+		return tree.max();
+	}
+
+	public int[] keysToArray()
+	{
+		return tree.keysToArray();
+	}
+
+	public int keysInto(int[] dst, int offset)
+	{
+		return tree.keysInto(dst, offset);
+	}
+
+	public String[] infoToArray()
+	{
+		return tree.infoToArray();
+	}
+
+	public void forEach(WAVLTree.IntObjConsumer action)
+	{
+		tree.forEach(action);
+	}
+
+	public int size()
+	{
+		return tree.size();
+	}
+
+	public String[] selectRange(int i, int j)
+	{
+		return tree.selectRange(i, j);
+	}
+
+	public int rank(int k)
+	{
+		return tree.rank(k);
+	}
+}
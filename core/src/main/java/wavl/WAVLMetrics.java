@@ -0,0 +1,190 @@
+package wavl;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ *
+ * WAVLMetrics
+ *
+ * A RebalanceListener that counts the rebalancing steps of the trees it listens to:
+ * promotions, demotions, single and double rotations, the iterations of delete's rebalancing
+ * loop, and histograms of the search depth and of the rebalance operations per insert or delete.
+ *
+ * The counters are LongAdders, so one WAVLMetrics can listen to several trees, and be read
+ * while they are changed from other threads. register() publishes it as a JMX MXBean.
+ *
+ * Usage:
+ *   WAVLMetrics metrics = new WAVLMetrics();
+ *   tree.setRebalanceListener(metrics);
+ *   metrics.register("orders");   // wavl:type=WAVLMetrics,name=orders
+ *
+ */
+public class WAVLMetrics implements WAVLTree.RebalanceListener, WAVLMetricsMXBean {
+
+	//the depth of a WAVL tree with n < 2^31 nodes is below 64, and so are its cascades
+	public static final int HISTOGRAM_SIZE = 64;
+
+	private final LongAdder promotions = new LongAdder();
+	private final LongAdder demotions = new LongAdder();
+	private final LongAdder singleRotations = new LongAdder();
+	private final LongAdder doubleRotations = new LongAdder();
+	private final LongAdder deleteSteps = new LongAdder();
+	private final LongAdder[] searchDepths = newHistogram();
+	private final LongAdder[] cascadeLengths = newHistogram();
+
+	//==================================================================
+	//=========================Listener=================================
+	//==================================================================
+
+	@Override
+	public void promoted()
+	{
+		promotions.increment();
+	}
+
+	@Override
+	public void demoted()
+	{
+		demotions.increment();
+	}
+
+	@Override
+	public void rotated(boolean twice)
+	{
+		(twice ? doubleRotations : singleRotations).increment();
+	}
+
+	@Override
+	public void deleteStep()
+	{
+		deleteSteps.increment();
+	}
+
+	@Override
+	public void rebalanced(int steps)
+	{
+		cascadeLengths[Math.min(steps, HISTOGRAM_SIZE - 1)].increment();
+	}
+
+	@Override
+	public void searched(int depth)
+	{
+		searchDepths[Math.min(depth, HISTOGRAM_SIZE - 1)].increment();
+	}
+
+	//==================================================================
+	//==============================END=================================
+	//==================================================================
+
+	//==================================================================
+	//=========================Counters=================================
+	//==================================================================
+
+	public long getPromotions()
+	{
+		return promotions.sum();
+	}
+
+	public long getDemotions()
+	{
+		return demotions.sum();
+	}
+
+	public long getSingleRotations()
+	{
+		return singleRotations.sum();
+	}
+
+	public long getDoubleRotations()
+	{
+		return doubleRotations.sum();
+	}
+
+	public long getDeleteSteps()
+	{
+		return deleteSteps.sum();
+	}
+
+	public long getOperations()
+	{
+		return total(cascadeLengths);
+	}
+
+	public long getSearches()
+	{
+		return total(searchDepths);
+	}
+
+	public long[] getSearchDepths()
+	{
+		return sums(searchDepths);
+	}
+
+	public long[] getCascadeLengths()
+	{
+		return sums(cascadeLengths);
+	}
+
+	//the counters are reset one by one - steps counted meanwhile may or may not survive
+	public void reset()
+	{
+		promotions.reset();
+		demotions.reset();
+		singleRotations.reset();
+		doubleRotations.reset();
+		deleteSteps.reset();
+		for (int i = 0; i < HISTOGRAM_SIZE; i++)
+		{
+			searchDepths[i].reset();
+			cascadeLengths[i].reset();
+		}
+	}
+
+	//==================================================================
+	//==============================END=================================
+	//==================================================================
+
+	/**
+	 * public ObjectName register(String name)
+	 *
+	 * registers the metrics with the platform MBeanServer as wavl:type=WAVLMetrics,name=<name>,
+	 * and returns the ObjectName (for unregistering).
+	 * throws JMException if the name is taken or invalid.
+	 */
+	public ObjectName register(String name) throws JMException
+	{
+		ObjectName objectName = ObjectName.getInstance("wavl:type=WAVLMetrics,name=" + ObjectName.quote(name));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.registerMBean(this, objectName);
+		return objectName;
+	}
+
+	private static LongAdder[] newHistogram()
+	{
+		LongAdder[] histogram = new LongAdder[HISTOGRAM_SIZE];
+		for (int i = 0; i < HISTOGRAM_SIZE; i++)
+			histogram[i] = new LongAdder();
+		return histogram;
+	}
+
+	private static long[] sums(LongAdder[] histogram)
+	{
+		long[] counts = new long[histogram.length];
+		for (int i = 0; i < histogram.length; i++)
+			counts[i] = histogram[i].sum();
+		return counts;
+	}
+
+	private static long total(LongAdder[] histogram)
+	{
+		long total = 0;
+		for (LongAdder count : histogram)
+			total += count.sum();
+		return total;
+	}
+}
@@ -0,0 +1,23 @@
+package wavl;
+
+/**
+ *
+ * WAVLMetricsMXBean
+ *
+ * The JMX view of WAVLMetrics (see WAVLMetrics.register).
+ * A histogram is an array of counts: index i counts the values i, and the last index also
+ * counts everything larger.
+ *
+ */
+public interface WAVLMetricsMXBean {
+	public long getPromotions(); //promote steps
+	public long getDemotions(); //demote steps
+	public long getSingleRotations(); //single rotations
+	public long getDoubleRotations(); //double rotations
+	public long getDeleteSteps(); //iterations of delete's rebalancing loop
+	public long getOperations(); //inserts and deletes that changed the tree
+	public long getSearches(); //walks down from the root (or from the finger)
+	public long[] getSearchDepths(); //histogram of the depth the walks down end at
+	public long[] getCascadeLengths(); //histogram of the rebalance operations of an insert or delete
+	public void reset(); //sets all the counters to 0
+}
@@ -0,0 +1,3029 @@
+package wavl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32C;
+
+/**
+ *
+ * WAVLTree
+ *
+ * An implementation of a WAVL Tree with
+ * distinct integer keys and info
+ *
+ */
+
+
+/**
+ * 
+ * @author Yotam Aharony - 308338169 - yotamaharony
+ * 		 & Itay Cohen - 308213883 - itayc
+ *
+ */
+public class WAVLTree implements IWAVLTree {
+	
+	//WAVL tree properties
+	private static final WAVLNode extLeaf = externalLeaf(); //external leaf, shared by all the trees
+	private static final WAVLNode sentinel = new WAVLNode(); // a "virtual" node, the parent of every root - shared, and never changed
+	private WAVLNode root; // the root node of the tree, null iff the tree is empty
+	private WAVLNode minNode; // the node with the minimal key, null iff the tree is empty
+	private WAVLNode maxNode; // the node with the maximal key, null iff the tree is empty
+	private boolean fingerMode = false; // when on, every walk down starts from the finger instead of the root
+	private WAVLNode finger; // the last inserted or accessed node in finger mode, null to start from the root
+	private Aggregate aggregate; // kept up to date in every node's subTreeAggregate (all nodes are AggregateNodes), null for none
+	private RebalanceListener listener; // told about the rebalancing steps and the walks down, null for none
+
+	//constructor
+	public WAVLTree()
+	{
+		makeEmpty();
+	}
+
+	//by definition, the rank of external leaf is -1, and its size is 0
+	//nothing ever changes it, so a single external leaf serves all the trees -
+	//and nodes can move from one tree to another (join, split)
+	private static WAVLNode externalLeaf()
+	{
+		WAVLNode leaf = new WAVLNode();
+		leaf.rank = -1;
+		leaf.setSubtreeSize(0);
+		return leaf;
+	}
+
+	//an empty tree has no root node at all - no placeholder object is allocated for it
+	private void makeEmpty()
+	{
+		root = null;
+		minNode = null;
+		maxNode = null;
+		finger = null;
+	}
+
+  /**
+   * public boolean empty()
+   *
+   * returns true if and only if the tree is empty
+   *
+   */
+  public boolean empty() {
+	//by definition, according to this implementation:
+	//root == null ---> happens iff the tree is empty.
+	  return (root == null);
+	  
+  }
+
+ /**
+   * public String search(int k)
+   *
+   * returns the info of an item with key k if it exists in the tree
+   * otherwise, returns null
+   */
+  //the assisting function in this case is findNodeFromKey
+  //findNodeFromKey finds the whole node, and search extracts the value from it
+  public String search(int k)
+  {
+	  WAVLNode searchedNode = findNodeFromKey(k);
+	  if(searchedNode==null)
+		  return null;
+	  return searchedNode.getValue();
+  }
+
+  //this function goes down to the leaves of the tree in order to find the desired key
+  //if there is no node with the desired key, return null.
+  public WAVLNode findNodeFromKey(int k)
+  {
+ 	if (this.empty())
+ 		return null;
+ 	
+ 	WAVLNode current = descend(k);
+ 	if (current.getKey() == k)
+ 		return current;
+ 	return null;
+  }
+
+  //goes down from the root once, towards key k (the tree must not be empty).
+  //returns the node with key k if there is one, otherwise the last real node on the way -
+  //which is the node that a new node with key k has to be linked to.
+  //in finger mode the walk starts from the finger, and the node it returns is the new finger.
+  private WAVLNode descend(int k)
+  {
+ 	WAVLNode place;
+ 	if (!fingerMode)
+ 		place = descendFrom(root, k);
+ 	else
+ 		place = finger = descendFrom(finger == null ? root : climb(finger, k), k);
+ 	if (listener != null)
+ 		listener.searched(depth(place));
+ 	return place;
+  }
+
+  //like descend, from a node whose subtree holds the place of key k
+  private WAVLNode descendFrom(WAVLNode current, int k)
+  {
+ 	while (true)
+ 	{
+ 		WAVLNode next;
+ 		if (current.getKey() == k)
+ 			return current;
+ 		if (current.getKey() > k)
+ 			next = current.getLeft();
+ 		else
+ 			next = current.getRight();
+ 		if (next == extLeaf)
+ 			return current;
+ 		current = next;
+ 	}
+  }
+  
+  /**
+   * public String min()
+   *
+   * Returns the info of the item with the smallest key in the tree,
+   * or null if the tree is empty
+   */
+  //the minimal node is cached - O(1)
+  // if tree is empty return null
+  public String min()
+  {
+	   return valueOf(minNode);
+  }
+
+  
+  /**
+   * public String max()
+   *
+   * Returns the info of the item with the largest key in the tree,
+   * or null if the tree is empty
+   */
+  //the maximal node is cached - O(1)
+  // if tree is empty return null
+  public String max()
+  {
+	   return valueOf(maxNode);
+  }
+
+ /**
+  * public int[] keysToArray()
+  *
+  * Returns a sorted array which contains all keys in the tree,
+  * or an empty array if the tree is empty.
+  */
+  //in-order walk along the successor links, straight into an array of size()
+  public int[] keysToArray()
+  {
+	  int[] arr = new int[size()];
+	  keysInto(arr, 0);
+	  return arr;
+  }
+
+ /**
+  * public int keysInto(int[] dst, int offset)
+  *
+  * Copies all keys in the tree, sorted, into dst starting at dst[offset].
+  * Returns the number of keys copied (size()).
+  * Throws IndexOutOfBoundsException if they do not fit (dst is left untouched).
+  */
+  public int keysInto(int[] dst, int offset)
+  {
+	  int n = size();
+	  if (offset < 0 || offset > dst.length - n)
+		  throw new IndexOutOfBoundsException("offset " + offset + " + size " + n + " > length " + dst.length);
+	  for (WAVLNode current = firstNode(); current != null; current = nextNode(current))
+		  dst[offset++] = current.getKey();
+	  return n;
+  }
+
+ /**
+  * public String[] infoToArray()
+  *
+  * Returns an array which contains all info in the tree,
+  * sorted by their respective keys,
+  * or an empty array if the tree is empty.
+  */
+ public String[] infoToArray()
+ {
+	 String[] arr = new String[size()];
+	 int i = 0;
+	 for (WAVLNode current = firstNode(); current != null; current = nextNode(current))
+		 arr[i++] = current.getValue();
+	 return arr;
+ }
+
+ /**
+  * public void forEach(IntObjConsumer action)
+  *
+  * Calls action with every key and its info, in ascending key order.
+  * The tree must not be modified while the walk is in progress.
+  */
+ public void forEach(IntObjConsumer action)
+ {
+	 for (WAVLNode current = firstNode(); current != null; current = nextNode(current))
+		 action.accept(current.getKey(), current.getValue());
+ }
+
+ //returns the node with the minimal key, or null if the tree is empty
+ private WAVLNode firstNode()
+ {
+	 return minNode;
+ }
+
+  /**
+   * public int size()
+   *
+   * Returns the number of nodes in the tree.
+   *
+   * precondition: none
+   * postcondition: none
+   */
+ //size is not a field in WAVLTree (It is a field in WAVLNode)
+ //therefore, size() method return the subrtree of the tree's root
+  public int size()
+  {
+	   if (empty())
+		   return 0;
+	   else
+		   return root.getSubtreeSize(); //method that returns the subrtree of the tree's root
+  }
+  
+    /**
+   * public int getRoot()
+   *
+   * Returns the root WAVL node, or null if the tree is empty
+   *
+   * precondition: none
+   * postcondition: none
+   */
+  public WAVLNode getRoot()
+  {
+	   return root;
+  }
+    /**
+   * public int select(int i)
+   *
+   * Returns the value of the i'th smallest key (return -1 if tree is empty)
+   * Example 1: select(1) returns the value of the node with minimal key 
+	* Example 2: select(size()) returns the value of the node with maximal key 
+	* Example 3: select(2) returns the value 2nd smallest minimal node, i.e the value of the node minimal node's successor 	
+   *
+	* precondition: size() >= i > 0
+   * postcondition: none
+   */   
+  //the info of the i'th smallest key will be returned
+  public String select(int i)
+  {
+	   if (empty())
+		   return "-1";
+	   WAVLNode node = selectNode(i);
+	   if (node == null)
+		   return null;
+	   return node.getValue();
+  }
+
+  /**
+   * public int selectKey(int i)
+   *
+   * Returns the i'th smallest key (return -1 if tree is empty)
+   * Example: selectKey(1) returns the minimal key, selectKey(size()) returns the maximal key
+   *
+   * precondition: size() >= i > 0
+   * postcondition: none
+   */
+  public int selectKey(int i)
+  {
+	   WAVLNode node = selectNode(i);
+	   if (node == null)
+		   return -1;
+	   return node.getKey();
+  }
+
+  /**
+   * public String[] selectRange(int i, int j)
+   *
+   * Returns the values of the i'th to the j'th smallest keys (both included), sorted by their keys.
+   * Example: selectRange(1, size()) returns the same array as infoToArray()
+   *
+   * precondition: size() >= j >= i > 0
+   * postcondition: none
+   */
+  //select the i'th node in O(log n), then walk its successors - O(log n + (j-i))
+  public String[] selectRange(int i, int j)
+  {
+	   if (i < 1 || j > size() || i > j)
+		   return new String[0];
+	   String[] arr = new String[j-i+1];
+	   WAVLNode current = selectNode(i);
+	   for (int index = 0; index < arr.length; index++)
+	   {
+		   arr[index] = current.getValue();
+		   current = nextNode(current);
+	   }
+	   return arr;
+  }
+
+  /**
+   * public int rank(int k)
+   *
+   * Returns the number of keys in the tree that are smaller than or equal to k
+   * (the inverse of select: if k is in the tree, select(rank(k)) returns its value)
+   *
+   * precondition: none
+   * postcondition: none
+   */
+  //go down from the root - every time we go right, the left subtree and the current node are smaller than k
+  public int rank(int k)
+  {
+	   if (empty())
+		   return 0;
+	   int counter = 0;
+	   WAVLNode current = root;
+	   while (current != extLeaf)
+	   {
+		   if (current.getKey() <= k)
+		   {
+			   counter += current.getLeft().getSubtreeSize() + 1;
+			   current = current.getRight();
+		   }
+		   else
+			   current = current.getLeft();
+	   }
+	   return counter;
+  }
+
+  //finds the node with the i'th smallest key using the subtree sizes - O(log n)
+  //returns null if there is no such node
+  private WAVLNode selectNode(int i)
+  {
+	   if (i < 1 || i > size())
+		   return null;
+	   WAVLNode current = root;
+	   while (true)
+	   {
+		   int leftSize = current.getLeft().getSubtreeSize();
+		   if (i == leftSize + 1)
+			   return current;
+		   if (i <= leftSize)
+			   current = current.getLeft();
+		   else
+		   {
+			   i -= leftSize + 1;
+			   current = current.getRight();
+		   }
+	   }
+  }
+
+  //returns the node with the next key (in-order successor), or null for the maximal node
+  //uses the parent links, so walking the whole tree this way is O(n)
+  private WAVLNode nextNode(WAVLNode node)
+  {
+	   if (node.getRight() != extLeaf)
+	   {
+		   node = node.getRight();
+		   while (node.getLeft() != extLeaf)
+			   node = node.getLeft();
+		   return node;
+	   }
+	   while (node != root && node == node.getParent().getRight())
+		   node = node.getParent();
+	   if (node == root)
+		   return null;
+	   return node.getParent();
+  }
+
+  //returns the node with the previous key (in-order predecessor), or null for the minimal node
+  //symmetric to nextNode
+  private WAVLNode prevNode(WAVLNode node)
+  {
+	   if (node.getLeft() != extLeaf)
+	   {
+		   node = node.getLeft();
+		   while (node.getRight() != extLeaf)
+			   node = node.getRight();
+		   return node;
+	   }
+	   while (node != root && node == node.getParent().getLeft())
+		   node = node.getParent();
+	   if (node == root)
+		   return null;
+	   return node.getParent();
+  }
+
+   //==================================================================
+   //=========================Range functions==========================
+   //==================================================================
+
+  /**
+   * public int countRange(int lo, int hi)
+   *
+   * Returns the number of keys k in the tree with lo <= k < hi (0 if lo >= hi), in O(log n).
+   */
+   //two walks down, like rank()
+   public int countRange(int lo, int hi)
+   {
+	   if (lo >= hi)
+		   return 0;
+	   return countBelow(hi) - countBelow(lo);
+   }
+
+   //the number of keys that are smaller than k
+   private int countBelow(int k)
+   {
+	   if (empty())
+		   return 0;
+	   int counter = 0;
+	   WAVLNode current = root;
+	   while (current != extLeaf)
+	   {
+		   if (current.getKey() < k)
+		   {
+			   counter += current.getLeft().getSubtreeSize() + 1;
+			   current = current.getRight();
+		   }
+		   else
+			   current = current.getLeft();
+	   }
+	   return counter;
+   }
+
+   //returns the node with the smallest key >= k, or null
+   private WAVLNode ceilingNode(int k)
+   {
+	   if (empty())
+		   return null;
+	   WAVLNode result = null;
+	   WAVLNode current = root;
+	   while (current != extLeaf)
+	   {
+		   if (current.getKey() >= k)
+		   {
+			   result = current;
+			   current = current.getLeft();
+		   }
+		   else
+			   current = current.getRight();
+	   }
+	   return result;
+   }
+
+   //returns the node with the largest key < k, or null
+   private WAVLNode lowerNode(int k)
+   {
+	   if (empty())
+		   return null;
+	   WAVLNode result = null;
+	   WAVLNode current = root;
+	   while (current != extLeaf)
+	   {
+		   if (current.getKey() < k)
+		   {
+			   result = current;
+			   current = current.getRight();
+		   }
+		   else
+			   current = current.getLeft();
+	   }
+	   return result;
+   }
+
+  /**
+   * public Cursor cursor()
+   *
+   * Returns a new cursor over this tree. It is positioned with forward(lo, hi) or backward(lo, hi),
+   * and can be positioned again any number of times, so a scan loop allocates nothing:
+   *
+   *   Cursor c = tree.cursor();
+   *   for (c.forward(lo, hi); c.next(); )
+   *       use(c.key(), c.value());
+   *
+   * The tree must not be modified while a scan is in progress.
+   */
+   public Cursor cursor()
+   {
+	   return new Cursor();
+   }
+
+   //walks the keys of [lo, hi) in either direction along the successor/predecessor links:
+   //O(log n) to position, then amortized O(1) per key, no recursion
+   public final class Cursor
+   {
+	   private WAVLNode current = null; //the node next() returned last
+	   private WAVLNode pending = null; //the node next() returns next, null at the end
+	   private boolean forward;
+	   private int lo;
+	   private int hi;
+
+	   private Cursor()
+	   {
+	   }
+
+	   //positions the cursor before the smallest key >= lo - next() goes up to the largest key < hi
+	   public Cursor forward(int lo, int hi)
+	   {
+		   return position(true, lo, hi, lo < hi ? ceilingNode(lo) : null);
+	   }
+
+	   //positions the cursor after the largest key < hi - next() goes down to the smallest key >= lo
+	   public Cursor backward(int lo, int hi)
+	   {
+		   return position(false, lo, hi, lo < hi ? lowerNode(hi) : null);
+	   }
+
+	   private Cursor position(boolean forward, int lo, int hi, WAVLNode first)
+	   {
+		   this.forward = forward;
+		   this.lo = lo;
+		   this.hi = hi;
+		   current = null;
+		   pending = inRange(first) ? first : null;
+		   return this;
+	   }
+
+	   private boolean inRange(WAVLNode node)
+	   {
+		   return node != null && node.getKey() >= lo && node.getKey() < hi;
+	   }
+
+	   //moves to the next key of the range. returns false (and stays put) when there is none left
+	   public boolean next()
+	   {
+		   if (pending == null)
+			   return false;
+		   current = pending;
+		   WAVLNode following = forward ? nextNode(current) : prevNode(current);
+		   pending = inRange(following) ? following : null;
+		   return true;
+	   }
+
+	   //the key of the current item (the one next() moved to)
+	   public int key()
+	   {
+		   return current.getKey();
+	   }
+
+	   //the info of the current item (the one next() moved to)
+	   public String value()
+	   {
+		   return current.getValue();
+	   }
+   }
+
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+
+   //==================================================================
+   //=========================Aggregate functions======================
+   //==================================================================
+   //an Aggregate folds the items of every subtree into one long, kept in the node next to its
+   //subtree size. every change that fixes the sizes (insert, delete, the rotations, join and split)
+   //fixes the aggregates on the same path, so a range is answered from O(log n) subtrees.
+
+  /**
+   * public void setAggregate(Aggregate aggregate)
+   *
+   * makes the tree maintain the given aggregate from now on (null to stop), and computes it for
+   * the existing items in O(n).
+   * the first aggregate a tree gets replaces its nodes with nodes that have room for it (same shape),
+   * so node handles taken before (getRoot, findNodeFromKey, ...) must not be used afterwards.
+   */
+   public void setAggregate(Aggregate aggregate)
+   {
+	   if (aggregate != null && this.aggregate == null && !empty())
+	   {
+		   root = withAggregateRoom(root, sentinel);
+		   refreshEnds();
+		   finger = null;
+	   }
+	   this.aggregate = aggregate;
+	   if (aggregate != null && !empty())
+		   updateAll(root);
+   }
+
+   //returns the aggregate the tree maintains, or null
+   public Aggregate getAggregate()
+   {
+	   return aggregate;
+   }
+
+  /**
+   * public long aggregate()
+   *
+   * Returns the aggregate of all the items in O(1) (the identity if the tree is empty).
+   * throws IllegalStateException if the tree has no aggregate.
+   */
+   public long aggregate()
+   {
+	   requireAggregate();
+	   return empty() ? aggregate.identity() : ((AggregateNode) root).subTreeAggregate;
+   }
+
+  /**
+   * public long aggregate(int lo, int hi)
+   *
+   * Returns the aggregate of the items with lo <= key < hi, in key order, in O(log n)
+   * (the identity if there are none).
+   * throws IllegalStateException if the tree has no aggregate.
+   */
+   //walks down to the first node inside the range, and from there down both of its boundaries:
+   //on the left one, every node >= lo comes with its right subtree, on the right one every node < hi
+   //comes with its left subtree
+   public long aggregate(int lo, int hi)
+   {
+	   requireAggregate();
+	   long result = aggregate.identity();
+	   if (lo >= hi || empty())
+		   return result;
+	   WAVLNode split = root;
+	   while (split != extLeaf && (split.getKey() < lo || split.getKey() >= hi))
+		   split = split.getKey() < lo ? split.getRight() : split.getLeft();
+	   if (split == extLeaf)
+		   return result;
+	   //the left boundary is walked from the largest keys to the smallest, so its parts are prepended
+	   for (WAVLNode current = split.getLeft(); current != extLeaf; )
+	   {
+		   if (current.getKey() >= lo)
+		   {
+			   long part = aggregate.combine(aggregate.of(current.key, current.info), aggregateOf(current.getRight()));
+			   result = aggregate.combine(part, result);
+			   current = current.getLeft();
+		   }
+		   else
+			   current = current.getRight();
+	   }
+	   result = aggregate.combine(result, aggregate.of(split.key, split.info));
+	   for (WAVLNode current = split.getRight(); current != extLeaf; )
+	   {
+		   if (current.getKey() < hi)
+		   {
+			   long part = aggregate.combine(aggregateOf(current.getLeft()), aggregate.of(current.key, current.info));
+			   result = aggregate.combine(result, part);
+			   current = current.getRight();
+		   }
+		   else
+			   current = current.getLeft();
+	   }
+	   return result;
+   }
+
+   private void requireAggregate()
+   {
+	   if (aggregate == null)
+		   throw new IllegalStateException("the tree has no aggregate - see setAggregate");
+   }
+
+   //copies a subtree into AggregateNodes of the same shape and ranks, and returns its root
+   private static WAVLNode withAggregateRoom(WAVLNode node, WAVLNode parent)
+   {
+	   if (node == extLeaf)
+		   return extLeaf;
+	   WAVLNode copy = new AggregateNode(node.key, node.info);
+	   copy.rank = node.rank;
+	   copy.subTreeSize = node.subTreeSize;
+	   copy.parent = parent;
+	   copy.leftChild = withAggregateRoom(node.getLeft(), copy);
+	   copy.rightChild = withAggregateRoom(node.getRight(), copy);
+	   return copy;
+   }
+
+   //computes the aggregates of a subtree bottom up
+   private void updateAll(WAVLNode node)
+   {
+	   if (node == extLeaf)
+		   return;
+	   updateAll(node.getLeft());
+	   updateAll(node.getRight());
+	   update(node);
+   }
+
+   //the aggregates of two trees that are joined must agree - the result keeps the aggregate
+   //only if both of them had the same one
+   private static Aggregate commonAggregate(WAVLTree a, WAVLTree b)
+   {
+	   return a.aggregate == b.aggregate ? a.aggregate : null;
+   }
+
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+
+   //==================================================================
+   //=========================Navigation functions=====================
+   //==================================================================
+   //nearest key lookups - a single walk down from the root each.
+   //like selectKey, the key forms return -1 when there is no such key; the forms with
+   //a notFound argument return notFound instead, for trees where -1 is a real key.
+
+  /**
+   * public int floorKey(int k)
+   *
+   * Returns the largest key <= k, or -1 if there is none
+   */
+   public int floorKey(int k)
+   {
+	   return floorKey(k, -1);
+   }
+
+   public int floorKey(int k, int notFound)
+   {
+	   return keyOf(floorNode(k), notFound);
+   }
+
+  /**
+   * public int ceilingKey(int k)
+   *
+   * Returns the smallest key >= k, or -1 if there is none
+   */
+   public int ceilingKey(int k)
+   {
+	   return ceilingKey(k, -1);
+   }
+
+   public int ceilingKey(int k, int notFound)
+   {
+	   return keyOf(ceilingNode(k), notFound);
+   }
+
+  /**
+   * public int lowerKey(int k)
+   *
+   * Returns the largest key < k, or -1 if there is none
+   */
+   public int lowerKey(int k)
+   {
+	   return lowerKey(k, -1);
+   }
+
+   public int lowerKey(int k, int notFound)
+   {
+	   return keyOf(lowerNode(k), notFound);
+   }
+
+  /**
+   * public int higherKey(int k)
+   *
+   * Returns the smallest key > k, or -1 if there is none
+   */
+   public int higherKey(int k)
+   {
+	   return higherKey(k, -1);
+   }
+
+   public int higherKey(int k, int notFound)
+   {
+	   return keyOf(higherNode(k), notFound);
+   }
+
+  /**
+   * public String floorValue(int k)
+   *
+   * Returns the info of the largest key <= k, or null if there is none.
+   * The same goes for ceilingValue (>= k), lowerValue (< k) and higherValue (> k).
+   */
+   public String floorValue(int k)
+   {
+	   return valueOf(floorNode(k));
+   }
+
+   public String ceilingValue(int k)
+   {
+	   return valueOf(ceilingNode(k));
+   }
+
+   public String lowerValue(int k)
+   {
+	   return valueOf(lowerNode(k));
+   }
+
+   public String higherValue(int k)
+   {
+	   return valueOf(higherNode(k));
+   }
+
+  /**
+   * public WAVLNode successor(WAVLNode node)
+   *
+   * Returns the node with the next key, or null if node holds the maximal key (or is not a real node).
+   * Uses the parent links: amortized O(1) when walking the whole tree.
+   */
+   public WAVLNode successor(WAVLNode node)
+   {
+	   if (node == null || !node.isRealNode() || empty())
+		   return null;
+	   return nextNode(node);
+   }
+
+  /**
+   * public WAVLNode predecessor(WAVLNode node)
+   *
+   * Returns the node with the previous key, or null if node holds the minimal key (or is not a real node).
+   */
+   public WAVLNode predecessor(WAVLNode node)
+   {
+	   if (node == null || !node.isRealNode() || empty())
+		   return null;
+	   return prevNode(node);
+   }
+
+  /**
+   * public int peekFirstKey()
+   *
+   * Returns the smallest key in O(1), or -1 (or notFound) if the tree is empty
+   */
+   public int peekFirstKey()
+   {
+	   return peekFirstKey(-1);
+   }
+
+   public int peekFirstKey(int notFound)
+   {
+	   return keyOf(minNode, notFound);
+   }
+
+  /**
+   * public int peekLastKey()
+   *
+   * Returns the largest key in O(1), or -1 (or notFound) if the tree is empty
+   */
+   public int peekLastKey()
+   {
+	   return peekLastKey(-1);
+   }
+
+   public int peekLastKey(int notFound)
+   {
+	   return keyOf(maxNode, notFound);
+   }
+
+  /**
+   * public String pollFirst()
+   *
+   * Deletes the item with the smallest key and returns its info, or null if the tree is empty.
+   * The node is taken from the cache, there is no search.
+   */
+   public String pollFirst()
+   {
+	   return poll(minNode);
+   }
+
+  /**
+   * public String pollLast()
+   *
+   * Deletes the item with the largest key and returns its info, or null if the tree is empty
+   */
+   public String pollLast()
+   {
+	   return poll(maxNode);
+   }
+
+   private String poll(WAVLNode node)
+   {
+	   if (node == null)
+		   return null;
+	   String info = node.getValue();
+	   deleteNode(node);
+	   return info;
+   }
+
+   private static int keyOf(WAVLNode node, int notFound)
+   {
+	   return node == null ? notFound : node.getKey();
+   }
+
+   private static String valueOf(WAVLNode node)
+   {
+	   return node == null ? null : node.getValue();
+   }
+
+   //returns the node with the largest key <= k, or null
+   private WAVLNode floorNode(int k)
+   {
+	   if (empty())
+		   return null;
+	   WAVLNode result = null;
+	   WAVLNode current = root;
+	   while (current != extLeaf)
+	   {
+		   if (current.getKey() <= k)
+		   {
+			   result = current;
+			   current = current.getRight();
+		   }
+		   else
+			   current = current.getLeft();
+	   }
+	   return result;
+   }
+
+   //returns the node with the smallest key > k, or null
+   private WAVLNode higherNode(int k)
+   {
+	   if (empty())
+		   return null;
+	   WAVLNode result = null;
+	   WAVLNode current = root;
+	   while (current != extLeaf)
+	   {
+		   if (current.getKey() > k)
+		   {
+			   result = current;
+			   current = current.getLeft();
+		   }
+		   else
+			   current = current.getRight();
+	   }
+	   return result;
+   }
+
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+
+   //==================================================================
+   //=========================Finger functions=========================
+   //==================================================================
+   //a walk that starts from a node near key k (the finger) climbs the parent links only as far as
+   //needed, then goes down - O(log d) for a key d positions away from the finger, instead of O(log n).
+   //keys beyond the minimal or maximal key go straight under it, so ascending (or descending)
+   //inserts cost amortized O(1) plus the rebalancing.
+   //a finger node has to be a node of this tree: a delete may unlink a different node than the one
+   //holding the deleted key (the successor's item moves in), so nodes kept across a delete are not fingers.
+
+  /**
+   * public void setFingerMode(boolean on)
+   *
+   * When on, insert, search, delete and the upserts start from the node the previous one
+   * inserted or reached, instead of from the root. Good for keys that come almost in order.
+   */
+   public void setFingerMode(boolean on)
+   {
+	   fingerMode = on;
+	   finger = null;
+   }
+
+   //true iff the tree is in finger mode
+   public boolean isFingerMode()
+   {
+	   return fingerMode;
+   }
+
+  /**
+   * public int insertNear(WAVLNode hint, int k, String i)
+   *
+   * insert(k, i), starting the search for the place of k from hint - a node of this tree
+   * (for example the result of searchFrom), or null for the root.
+   * returns the number of rebalancing operations, or -1 if an item with key k already exists.
+   */
+   public int insertNear(WAVLNode hint, int k, String i)
+   {
+	   if (empty())
+	   {
+		   InsertEmptyTree(k, i);
+		   return 0;
+	   }
+	   WAVLNode place = descendFrom(hint == null || !hint.isRealNode() ? root : climb(hint, k), k);
+	   if (place.getKey() == k)
+		   return -1;
+	   return insertUnder(place, newNode(k, i));
+   }
+
+  /**
+   * public WAVLNode searchFrom(WAVLNode finger, int k)
+   *
+   * findNodeFromKey(k), starting from finger - a node of this tree, or null for the root.
+   * returns the node with key k, or null if there is none.
+   */
+   public WAVLNode searchFrom(WAVLNode finger, int k)
+   {
+	   if (empty())
+		   return null;
+	   WAVLNode node = descendFrom(finger == null || !finger.isRealNode() ? root : climb(finger, k), k);
+	   if (node.getKey() == k)
+		   return node;
+	   return null;
+   }
+
+   //climbs from a node of the (non empty) tree to the lowest ancestor whose subtree holds the place of key k.
+   //going up from a left child, the parent's key bounds the subtree from above (and from a right child, from below) -
+   //the climb stops at the first bound on the far side of k.
+   private WAVLNode climb(WAVLNode from, int k)
+   {
+	   if (k > maxNode.getKey())
+		   return maxNode;
+	   if (k < minNode.getKey())
+		   return minNode;
+	   WAVLNode current = from;
+	   if (k > current.getKey())
+	   {
+		   while (current != root && current.getKey() != k)
+		   {
+			   WAVLNode parent = current.getParent();
+			   if (current == parent.getLeft() && parent.getKey() > k)
+				   break;
+			   current = parent;
+		   }
+	   }
+	   else
+	   {
+		   while (current != root && current.getKey() != k)
+		   {
+			   WAVLNode parent = current.getParent();
+			   if (current == parent.getRight() && parent.getKey() < k)
+				   break;
+			   current = parent;
+		   }
+	   }
+	   return current;
+   }
+
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+
+   //==================================================================
+   //=========================Metrics functions========================
+   //==================================================================
+
+  /**
+   * public void setRebalanceListener(RebalanceListener listener)
+   *
+   * from now on, tells listener about every rebalancing step (rank changes, rotations and the
+   * iterations of delete's rebalancing loop), the number of steps of every insert and delete, and the
+   * depth every walk down ends at (see RebalanceListener for what is reported). null (the default) turns it off - then the cost is a null check per step.
+   * WAVLMetrics is a listener that counts all of these.
+   */
+   public void setRebalanceListener(RebalanceListener listener)
+   {
+	   this.listener = listener;
+   }
+
+   //returns the listener of the tree, or null
+   public RebalanceListener getRebalanceListener()
+   {
+	   return listener;
+   }
+
+   //the number of edges from the root down to node
+   private int depth(WAVLNode node)
+   {
+	   int depth = 0;
+	   for (; node != root; node = node.getParent())
+		   depth++;
+	   return depth;
+   }
+
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+
+  //==================================================================
+  //=========================Insert Functions=========================
+  //==================================================================
+  
+  /**
+   * public int insert(int k, String i)
+   *
+   * inserts an item with key k and info i to the WAVL tree.
+   * the tree must remain valid (keep its invariants).
+   * returns the number of rebalancing operations, or 0 if no rebalancing operations were necessary.
+   * returns -1 if an item with key k already exists in the tree.
+   */
+  //this is the general insert function. the general priciple is simple:
+  //insert the new node to the tree
+  //if the tree after insertion is not valid - make some rebalance opertions in order to make it valid
+  //the returned value is the number of rebalance operations
+   public int insert(int k, String i) 
+   {
+	   //if the tree is empty - the inserted node is going to be the tree's root
+	   if (empty())
+	   {
+		   InsertEmptyTree(k, i);
+		   return 0;
+	   }
+	   //a single walk down finds both an existing node with key k, and the place of a new one
+	   WAVLNode place = descend(k);
+	   //if there is a node with the same key - insert operation won't be performed
+	   if (place.getKey() == k)
+		   return -1;
+	   return insertUnder(place, newNode(k,i));
+   }
+   
+   //in case that the tree is empty and a new node is inserted
+   private void InsertEmptyTree(int k, String i)
+   {
+ 		  root = newNode(k, i);
+ 		  //make sure that all the "special links" are well linked
+ 		  root.parent = sentinel;
+ 		  root.leftChild = extLeaf;
+ 		  root.rightChild = extLeaf;
+ 		  update(root);
+ 		  if (listener != null)
+ 			  listener.rebalanced(0);
+ 		  minNode = root;
+ 		  maxNode = root;
+   }
+   
+   //links a new internal leaf as a child of parent (like a normal binary tree insert),
+   //then makes the tree valid again. parent is the node descend() found for the new key.
+   //the returned value is the number of rebalance operations
+   private int insertUnder(WAVLNode parent, WAVLNode newNode)
+   {
+	   int steps = linkUnder(parent, newNode);
+	   if (listener != null)
+		   listener.rebalanced(steps);
+	   return steps;
+   }
+
+   //links newNode as a child of parent and rebalances - the returned value is the number of rebalance operations
+   private int linkUnder(WAVLNode parent, WAVLNode newNode)
+   {
+	   if (parent.getKey() > newNode.getKey())
+		   parent.setLeft(newNode);
+	   else
+		   parent.setRight(newNode);
+	   newNode.setParent(parent);
+	   updateSizes(newNode); //update the relevant node's sizes
+	   if (fingerMode)
+		   finger = newNode;
+	   //the rotations below only relink nodes, so the cached ends just have to be compared with the new one
+	   if (newNode.getKey() < minNode.getKey())
+		   minNode = newNode;
+	   if (newNode.getKey() > maxNode.getKey())
+		   maxNode = newNode;
+	   //we will promote the root is we insert a child directly
+	   if (parent == root)
+	   {
+		   promote(root);
+		   return 1; //rebalance operation
+	   }
+	   if (parent.getRank()!=0)
+		   return 0; //no rebalance operation
+	   return rebalanceInsert(newNode); //the new tree is not valid, make some rebalance operations
+   }
+
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+
+   //==================================================================
+   //=========================Upsert Functions=========================
+   //==================================================================
+   //all of these walk down from the root once. a structural change (a new node, or a
+   //node that has to go) then continues from the node the walk found.
+
+  /**
+   * public String put(int k, String i)
+   *
+   * sets the info of key k to i, inserting an item if k is not in the tree.
+   * returns the previous info of k, or null if k was not in the tree.
+   */
+   public String put(int k, String i)
+   {
+	   if (empty())
+	   {
+		   InsertEmptyTree(k, i);
+		   return null;
+	   }
+	   WAVLNode place = descend(k);
+	   if (place.getKey() == k)
+	   {
+		   String old = place.info;
+		   place.info = i;
+		   if (aggregate != null)
+			   updateSizes(place); //the aggregates on the way up include the info
+		   return old;
+	   }
+	   insertUnder(place, newNode(k, i));
+	   return null;
+   }
+
+  /**
+   * public String putIfAbsent(int k, String i)
+   *
+   * inserts an item with key k and info i if k is not in the tree.
+   * returns the existing info of k (the tree is not changed), or null if the item was inserted.
+   */
+   public String putIfAbsent(int k, String i)
+   {
+	   if (empty())
+	   {
+		   InsertEmptyTree(k, i);
+		   return null;
+	   }
+	   WAVLNode place = descend(k);
+	   if (place.getKey() == k)
+		   return place.info;
+	   insertUnder(place, newNode(k, i));
+	   return null;
+   }
+
+  /**
+   * public String computeIfAbsent(int k, IntFunction<String> function)
+   *
+   * if k is not in the tree, inserts it with the info function.apply(k) - unless that is null.
+   * returns the info of k after the call (null if nothing was inserted).
+   */
+   public String computeIfAbsent(int k, IntFunction<String> function)
+   {
+	   WAVLNode place = empty() ? null : descend(k);
+	   if (place != null && place.getKey() == k)
+		   return place.info;
+	   String i = function.apply(k);
+	   if (i == null)
+		   return null;
+	   if (place == null)
+		   InsertEmptyTree(k, i);
+	   else
+		   insertUnder(place, newNode(k, i));
+	   return i;
+   }
+
+  /**
+   * public String compute(int k, IntObjFunction function)
+   *
+   * sets the info of key k to function.apply(k, info) - where info is the current info of k,
+   * or null if k is not in the tree. if the function returns null, k is deleted (or not inserted).
+   * returns the new info of k, or null if k is not in the tree after the call.
+   */
+   public String compute(int k, IntObjFunction function)
+   {
+	   WAVLNode place = empty() ? null : descend(k);
+	   boolean found = place != null && place.getKey() == k;
+	   String i = function.apply(k, found ? place.info : null);
+	   return store(k, i, place, found);
+   }
+
+  /**
+   * public String merge(int k, String i, BinaryOperator<String> function)
+   *
+   * inserts an item with key k and info i if k is not in the tree,
+   * otherwise sets the info of k to function.apply(info, i). if the function returns null, k is deleted.
+   * returns the new info of k, or null if k was deleted.
+   */
+   public String merge(int k, String i, BinaryOperator<String> function)
+   {
+	   WAVLNode place = empty() ? null : descend(k);
+	   boolean found = place != null && place.getKey() == k;
+	   if (found)
+		   i = function.apply(place.info, i);
+	   return store(k, i, place, found);
+   }
+
+   //the structural part of compute and merge: place is the node descend(k) returned (null for an
+   //empty tree), found tells if it holds k. a null info removes k.
+   private String store(int k, String i, WAVLNode place, boolean found)
+   {
+	   if (found)
+	   {
+		   if (i == null)
+			   deleteNode(place);
+		   else
+		   {
+			   place.info = i;
+			   if (aggregate != null)
+				   updateSizes(place); //the aggregates on the way up include the info
+		   }
+	   }
+	   else if (i != null)
+	   {
+		   if (place == null)
+			   InsertEmptyTree(k, i);
+		   else
+			   insertUnder(place, newNode(k, i));
+	   }
+	   return i;
+   }
+
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+   
+   //==================================================================
+   //==========================Delete functions========================
+   //==================================================================
+  /**
+   * public int delete(int k)
+   *
+   * deletes an item with key k from the binary tree, if it is there;
+   * the tree must remain valid (keep its invariants).
+   * returns the number of rebalancing operations, or 0 if no rebalancing operations were needed.
+   * returns -1 if an item with key k was not found in the tree.
+   */
+   //this is the general delete function. the general priciple is simple:
+   //we treat directly only unary node deletion and leaf node deletion
+   //if the node is none of these two -->replace with successor and then delete
+   //if the new tree is not valid - make some rebalance operations
+   //the returned value is the number of rebalance operations
+   public int delete(int k)
+   {
+	   //in case that the key does not exist or the tree is empty
+	  WAVLNode current = findNodeFromKey(k);
+	  if (current==null)
+		  return -1;
+	  return deleteNode(current);
+   }
+
+   //deletes a node of the tree, that was already found
+   //the returned value is the number of rebalance operations
+   private int deleteNode(WAVLNode current)
+   {
+	  int steps = unlinkNode(current);
+	  if (listener != null)
+		  listener.rebalanced(steps);
+	  return steps;
+   }
+
+   //unlinks a node of the tree and rebalances - the returned value is the number of rebalance operations
+   private int unlinkNode(WAVLNode current)
+   {
+	  //the minimal and maximal nodes are never binary - they are unlinked themselves, so their
+	  //neighbours become the new ends (null when the tree becomes empty)
+	  if (current == minNode)
+		  minNode = nextNode(current);
+	  if (current == maxNode)
+		  maxNode = prevNode(current);
+	  if (current==root) 
+	  {
+		//check for a "leaf" root and "unary" root
+		  if (root.getLeft()==extLeaf && root.getRight()==extLeaf)
+		  {
+				//the tree becomes empty - it has no root
+				makeEmpty();
+				return 0;
+		  }
+		  
+		//if tree size = 2 and we want to delete the right child
+		  if (root.getRight()!=extLeaf && root.getLeft()==extLeaf) 
+		  {
+			  root = current.getRight();
+			  
+			  root.parent = sentinel;
+			  if (finger == current)
+				  finger = root;
+			  
+			  return 0;
+		  }
+		//if tree size = 2 and we want to delete the left child
+		  if (root.getRight()==extLeaf && root.getLeft()!=extLeaf)
+		  {
+			  root = current.getLeft();
+			  
+			  root.parent = sentinel;
+			  if (finger == current)
+				  finger = root;
+			  
+			  return 0;
+		  } 
+	  }
+	  //if the node is note unary of leaf -->replace it with its successor
+	  if (current.getRight()!=extLeaf && current.getLeft()!= extLeaf)
+		  current = replaceWithSuccessor(current);
+	  
+	  WAVLNode parent = current.getParent();
+	  //the finger moves off the node that is unlinked
+	  if (finger == current)
+		  finger = parent;
+	  //if the node is an internal leaf
+	  if (current.getRight()==extLeaf && current.getLeft()== extLeaf)
+		  deleteLeaf(current);
+	  //if the node is an unary node
+	  if (current.getRight()==extLeaf || current.getLeft()== extLeaf)
+		  deleteUnary(current);
+	  
+	  int counter = 0; // counts number of rebalance steps
+	  counter = rebalanceDelete(parent); //make rebalance operations if needed
+	  return counter;
+   }
+   
+   //if the node is a lead - just delete it and make no rebalance operations
+   private void deleteLeaf(WAVLNode current)  
+   {											
+	   //we have to make sure that the children of the new leaf (after deletion) are external leaves.
+ 	  if (current.getParent().getLeft() == current)
+ 		  current.getParent().setLeft(extLeaf);
+ 	  if (current.getParent().getRight() == current)
+ 		 current.getParent().setRight(extLeaf);
+ 	  
+ 	  updateSizes(current.getParent());
+   }
+   
+   //unary node is treated separately
+   private void deleteUnary(WAVLNode current)
+   {
+	  //we have two different sub-cases:
+	  //1. our unary node is a left child of its parent
+ 	  if (current.getParent().getLeft() == current)
+ 	  {
+ 		  if (current.getLeft() != extLeaf)
+ 		  {
+ 			  current.getParent().setLeft(current.getLeft());
+ 			  current.getLeft().setParent(current.getParent());
+ 		  }
+ 		  if (current.getRight() != extLeaf)
+ 		  {
+ 			  current.getParent().setLeft(current.getRight());
+ 			  current.getRight().setParent(current.getParent());
+ 		  }
+ 	  }
+	  //2. our unary node is a right child of its parent
+ 	  if (current.getParent().getRight() == current)
+ 	  {
+ 		  if (current.getLeft() != extLeaf)
+ 		  {
+ 			  current.getParent().setRight(current.getLeft());
+ 			  current.getLeft().setParent(current.getParent());
+ 		  }
+ 		  if (current.getRight() != extLeaf)
+ 		  {
+ 			  current.getParent().setRight(current.getRight());
+ 			  current.getRight().setParent(current.getParent());
+ 		  }
+ 	  }
+ 	  //some node's sizes has changed, hence a size update is needed.
+ 	 updateSizes(current.getParent());
+   }
+
+   //if node is not a leaf or unary node - we will have to swap it with its successor
+   //then, delete it a leaf
+   private WAVLNode replaceWithSuccessor(WAVLNode current)
+   { 
+ 	  WAVLNode origin = current;
+ 	  if ((current.getRight().getRank() != -1) && (current.getLeft().getRank() != -1)){
+ 		  current = current.getRight();
+ 		  //finding successor
+ 		  while (current.getLeft().getRank() != -1)
+ 			  current = current.getLeft();	  
+ 	  }
+ 	  //swap with successor
+ 	 swapNodes(origin, current);   
+ 	 //the maximal item moved into origin
+ 	 if (current == maxNode)
+ 		 maxNode = origin;
+ 	 
+
+ 	  return current;
+   }
+   //swap info and key for two given nodes - assisting function for replaceWithSuccessor 
+   private void swapNodes(WAVLNode a, WAVLNode b){
+ 	  String s = a.getValue();
+ 	  int k = a.getKey();
+ 	  a.info = b.info;
+ 	  a.key = b.key;
+ 	  b.info = s;
+ 	  b.key = k;
+   }
+   
+   
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+   
+   //==================================================================
+   //=========================Rebalance functions======================
+   //==================================================================
+   
+   //after delete and insert operations, we have to go from a specific node up to the leaf, 
+   //and update the size of all the node on that route.
+   private void updateSizes(WAVLNode node)
+   {
+	 //we stop when a sentinel is encountered
+	 //it means that we have already updated to root's size.
+	   while (node != sentinel) 
+		   
+	   {
+		   update(node);
+		   node = node.getParent();
+	   }
+   }
+   
+   //recomputes the subtree size of a node from its children - and its aggregate, if the tree has one
+   private void update(WAVLNode node)
+   {
+	   node.updateSubtreeSize();
+	   if (aggregate != null && node.rank != -1)
+		   ((AggregateNode) node).subTreeAggregate = aggregate.combine(aggregate.combine(aggregateOf(node.getLeft()),
+				   aggregate.of(node.key, node.info)), aggregateOf(node.getRight()));
+   }
+
+   //the aggregate of a subtree - the identity for an external leaf (which is shared by all the trees)
+   private long aggregateOf(WAVLNode node)
+   {
+	   return node == extLeaf ? aggregate.identity() : ((AggregateNode) node).subTreeAggregate;
+   }
+
+   //a new node for this tree - with room for the aggregate only if the tree has one
+   private WAVLNode newNode(int k, String i)
+   {
+	   return aggregate == null ? new WAVLNode(k, i) : new AggregateNode(k, i);
+   }
+
+   //increase the node's rank by 1 (and tell the listener - every rank change of the rebalancing goes through here)
+   private void promote(WAVLNode node)
+   {
+	   node.setRank(node.getRank()+1);
+	   if (listener != null)
+		   listener.promoted();
+   }
+   
+   //decrease the node's rank by 1 (and tell the listener)
+   private void demote(WAVLNode node)
+   {
+	   node.setRank(node.getRank()-1);
+	   if (listener != null)
+		   listener.demoted();
+   }
+   //analyzing the type of a single node, according to rank differences between the node an its children
+   //the left difference is the high hex digit and the right difference is the low one,
+   //so the type reads like the pair of differences - for example 0x21 means
+   //(node.rank - leftchild.rank) = 2 , (node.rank - rightchild.rank) = 1
+   //(rank differences on the rebalance paths are always between 0 and 3)
+   private int difType(WAVLNode node)
+   {
+	   //differences calculation
+	   int rightDifRank = node.getRank()-node.getRight().getRank();
+	   int leftDifRank = node.getRank()-node.getLeft().getRank();
+	   
+	   return (leftDifRank << 4) | rightDifRank;
+	   
+   }
+   //for a specific node, we go over all the valid cases - regarding the ranks differences between the parent
+   //and its children. only 12,21,11,22 node are allowed at WAVL.
+   private boolean isValidWAVLNode(WAVLNode node)
+   {
+	   int difType = difType(node);
+	   
+	   if (difType == 0x12 || difType == 0x21 || difType == 0x11 || difType == 0x22)
+		   return true;
+	   
+	   return false; //if none of the valid case is detected, it is not a valid WAVLTree node.
+   }
+   //when a subtree is given (after insertion) - make some rebalance operations and count them
+   //the returned value is the number of rebalancing steps
+   private int rebalanceInsert(WAVLNode node)
+   {
+	   WAVLNode point=node;
+		int counter=0;
+		//in this case - make promote operation, then roll the problem up
+		while (point!=root)
+		{
+			int parentType = difType(point.getParent());
+			if (parentType != 0x01 && parentType != 0x10)
+				break;
+			promote(point.getParent());
+			point=point.getParent();
+			counter++;
+		}//if problem is rolled up and now it is solved - it is a terminal case
+		if((point==root)||(isValidWAVLNode((point.getParent()))))
+		{
+			return counter;
+		}
+		else	
+		{
+			while(point!=root)
+			{
+				int parentType = difType(point.getParent());
+				int pointType = difType(point);
+				//when parent is 02 node and the child is 12 node - rotation is terminal case
+				if(parentType == 0x02 && pointType == 0x12)
+				{
+					point= rotateRight(point.getParent());
+					if (listener != null)
+						listener.rotated(false);
+					counter+=1;
+					return counter;
+				}
+				// symmetic case
+				else if(parentType == 0x20 && pointType == 0x12) 
+				{
+					point= rotateRightLeft(point.getParent());	
+					if (listener != null)
+						listener.rotated(true);
+					counter+=2;
+					return counter;
+				}
+				//when parent is 02 node and the child is 21 node - double rotation is terminal case
+				else if(parentType == 0x02 && pointType == 0x21)
+				{
+					point = rotateLeftRight(point.getParent());
+					if (listener != null)
+						listener.rotated(true);
+					counter+=2;   //2 rotates, without- 2 demotes, 1 promote
+					return counter;
+				}
+				// symmetric case
+				else if(parentType == 0x20 && pointType == 0x21) 
+				{
+					point= rotateLeft(point.getParent());		
+					if (listener != null)
+						listener.rotated(false);
+					counter+=1;  //1 rotate, without- 1 demote
+					return counter;
+				}
+			}
+			return counter;
+		}
+   }
+   //when a subtree is given (after deletion) - make some rebalance operations and count them
+   //the returned value is the number of rebalancing steps
+   private int rebalanceDelete(WAVLNode current)
+   {
+	   int counter = 0;
+	   //keep running on tree nodes until reaching a terminal case
+	   while (true)
+	   {
+		    if (listener != null)
+		    	listener.deleteStep();
+		    int type = difType(current);
+		    //current node is a "22" leaf
+		    if((type == 0x22) && (current.getRight()==extLeaf) && (current.getLeft()==extLeaf))
+			{
+				demote(current);
+				if(current==root)
+					return counter + 1;
+				else
+				{
+					current = current.getParent();
+					counter++;
+					continue;
+				}
+				
+			}
+		    	// if the current node is valid - there is nothing else to do
+			 if(type == 0x12 || type == 0x21 || type == 0x11 || type == 0x22) 
+				 return counter;
+			  //in case of "23" or "32" node - demote current node and the problem might be rolled up
+			  if((type == 0x32)||(type == 0x23))
+			  {
+				  demote(current);
+				  if(current==root)
+						return counter + 1;
+					else
+					{
+						current = current.getParent();
+						counter++;
+						continue;
+					}
+			  }
+			  //in case of "31" node and a "22" right child - perform double demote the problem might be rolled up
+			  if((type == 0x31)&&(difType(current.getRight()) == 0x22))
+			  {
+				  demote(current);
+				  demote(current.getRight());
+				  if(current==root)
+						return counter+2;
+					else
+					{
+						current = current.getParent();
+						counter+=2;
+						continue;
+					}
+			  }
+			//symmetric case
+			  if((type == 0x13)&&(difType(current.getLeft()) == 0x22))
+			  {
+				  demote(current);
+				  demote(current.getLeft());
+				  if(current==root)
+						return counter+2;
+					else
+					{
+						current = current.getParent();
+						counter+=2;
+						continue;
+					}
+			  }
+			//in case of "31" node and a "21" right child - make a rotation to the left and it is a terminal case
+			  if((type == 0x31)&&((difType(current.getRight()) == 0x21)||(difType(current.getRight()) == 0x11)))	// if 3-1&&R$-1 RL ret
+			  {
+				  current = rotateLeft(current);
+				  promote(current);
+				  if (listener != null)
+					  listener.rotated(false);
+				  WAVLNode temp=current.getLeft();
+				  if((difType(temp) == 0x22) && (temp.getRight()==extLeaf) && (temp.getLeft()==extLeaf))
+					  demote(temp);
+				  
+					  
+				  counter++;   
+				  return counter;
+			  }  
+			//symmetric case
+			  if((type == 0x13)&&((difType(current.getLeft()) == 0x12)||(difType(current.getLeft()) == 0x11)))	  // if 1-3&&L1-$ RR ret symetric
+			  {
+				  current = rotateRight(current);
+				  promote(current);
+				  if (listener != null)
+					  listener.rotated(false);
+				  WAVLNode temp=current.getRight();
+				  if((difType(temp) == 0x22) && (temp.getRight()==extLeaf) && (temp.getLeft()==extLeaf))
+					  demote(temp);
+				  
+				  counter++;  
+				  return counter;
+			  } 
+			//in case of "31" node and a "12" right child - make a double rotation, and it is a terminal case
+			  if((type == 0x31)&&(difType(current.getRight()) == 0x12)) 
+			  {
+				  demote(current);
+				  current= rotateRightLeft(current);
+				  promote(current);
+				  if (listener != null)
+					  listener.rotated(true);			  
+				  counter+=2;   
+				  return counter;
+			  }  
+			//symmetric case
+			  if((type == 0x13)&&(difType(current.getLeft()) == 0x21))
+			  {
+				  demote(current);
+				  current= rotateLeftRight(current);
+				  promote(current);
+				  if (listener != null)
+					  listener.rotated(true);		
+				  counter+=2;  
+				  return counter;
+			  }  
+	   }
+   }
+   //rotating a subtree to the right
+   private WAVLNode rotateRight(WAVLNode node)
+   { 
+	   boolean isRoot = false;
+	   WAVLNode subTreeParent = null;
+	   //indicates if we are dealing with root. in case of root,
+	   //the node that going to represent the new subtree root will be the the tree's root.
+	   if (node == root)
+		   isRoot = true;
+	   else
+		   subTreeParent = node.getParent();
+	   
+	   WAVLNode y = node;
+	   WAVLNode x = y.getLeft();
+	   WAVLNode b = x.getRight();
+	   
+	   y.setLeft(b);
+	   x.setRight(y);
+	   demote(y);
+	   
+	   if(y.getLeft() != extLeaf)
+		   y.getLeft().setParent(y);
+	   //make sure that parent hirarchy after rotation is correct
+	   subTreeParent = y.getParent();
+	   x.setParent(subTreeParent);
+	   y.setParent(x);
+	   //"is root case' - make sure the root of the tree is the current subtree, and the sentinel is the parent
+	   if(isRoot)
+	   {
+		   root = x;
+		   root.setParent(sentinel);
+	   }
+	   else
+	   {
+			 if (subTreeParent.getLeft() == y)
+				 subTreeParent.setLeft(x);
+			 if (subTreeParent.getRight() == y)
+				 subTreeParent.setRight(x);
+	   }
+	   
+	   update(y);
+	   update(x);
+	   return x;
+
+   }
+   //symmetric to rotateRight
+   private WAVLNode rotateLeft(WAVLNode node)
+   {
+	   boolean isRoot = false;
+	   WAVLNode subTreeParent = null;
+	   
+	   if (node == root)
+		   isRoot = true;
+	   else
+		   subTreeParent = node.getParent();
+	   
+	   WAVLNode y = node;
+	   WAVLNode x = y.getRight();
+	   WAVLNode b = x.getLeft();
+	   
+	   y.setRight(b);
+	   x.setLeft(y);
+	   demote(y);
+	   
+	   if(y.getRight() != extLeaf)
+		   y.getRight().setParent(y);
+	   
+	   subTreeParent = y.getParent();
+	   x.setParent(subTreeParent);
+	   y.setParent(x);
+	   
+	   if(isRoot)
+	   {
+		   root = x;
+		   root.setParent(sentinel);
+	   }
+	   else
+	   {
+			 if (subTreeParent.getRight() == y)
+				 subTreeParent.setRight(x);
+			 if (subTreeParent.getLeft() == y)
+				 subTreeParent.setLeft(x);
+	   }
+
+	   update(y);
+	   update(x);
+	   return x;
+	   
+   
+   }
+   
+   //double rotation - the minor rotation is a left rotation, and the major one is a right rotation
+   private WAVLNode rotateLeftRight(WAVLNode node)
+   {
+	   boolean isRoot = false; 
+	   if (node == root)
+	   {
+		 //indicates if we are dealing with root. in case of root,
+		 //the node that going to represent the new subtree root will be the the tree's root
+		   isRoot = true; 
+		   
+	   }
+	   //we have to remember the original parent of the subtree before we rotate.
+	   WAVLNode originalParent = node.getParent();
+	   //minor rotation to the left
+	   node.setLeft(rotateLeft(node.getLeft()));
+	   //major rotation to the right
+	   WAVLNode newNode = (rotateRight(node));
+	   //place the new subtree to be the correct child of the original parent
+	   if (originalParent.getLeft() == node)
+		   originalParent.setLeft(newNode);
+	   if (originalParent.getRight() == node)
+		   originalParent.setRight(newNode);
+	   
+	   newNode.setParent(originalParent);
+	   promote(newNode);
+	   //dealing with the "is root case"
+	   if (isRoot)
+		   root = newNode;
+	   
+	   return newNode;
+   }
+   
+   //symmetric to rotateLeftRight
+   private WAVLNode rotateRightLeft(WAVLNode node)
+   {
+	   boolean isRoot = false;
+	   
+	   if (node == root)
+	   {
+		   isRoot = true;
+	   }
+	   
+	   WAVLNode originalParent = node.getParent();
+	   node.setRight(rotateRight(node.getRight()));
+	   WAVLNode newNode = (rotateLeft(node));
+	   
+	   if (originalParent.getLeft() == node)
+		   originalParent.setLeft(newNode);
+	   if (originalParent.getRight() == node)
+		   originalParent.setRight(newNode);
+	   
+	   newNode.setParent(originalParent);
+	   promote(newNode);
+	   if (isRoot)
+		   root = newNode;
+	   return newNode;
+   }
+
+
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+   
+   //==================================================================
+   //=========================Bulk build functions=====================
+   //==================================================================
+
+  /**
+   * public static WAVLTree fromSorted(int[] keys, String[] values)
+   *
+   * builds a tree holding the items (keys[i], values[i]) in O(n), with no search and no rotation.
+   * the tree is perfectly balanced - every node's rank is its height.
+   * throws IllegalArgumentException if keys is not strictly ascending or the lengths differ.
+   */
+   public static WAVLTree fromSorted(int[] keys, String[] values)
+   {
+	   if (keys.length != values.length)
+		   throw new IllegalArgumentException(keys.length + " keys but " + values.length + " values");
+	   WAVLTree tree = new WAVLTree();
+	   WAVLNode[] nodes = new WAVLNode[keys.length];
+	   for (int i = 0; i < keys.length; i++)
+	   {
+		   if (i > 0 && keys[i] <= keys[i-1])
+			   throw new IllegalArgumentException("keys are not strictly ascending at index " + i);
+		   nodes[i] = new WAVLNode(keys[i], values[i]);
+	   }
+	   tree.linkBalanced(nodes, nodes.length);
+	   return tree;
+   }
+
+  /**
+   * public static WAVLTree fromSorted(PrimitiveIterator.OfInt keys, Iterator<String> values)
+   *
+   * streaming version of fromSorted(int[], String[]) - pairs up the keys and values of two iterators, in O(n).
+   * throws IllegalArgumentException if the keys are not strictly ascending, or one of the iterators
+   * has elements left after the other ran out.
+   */
+   public static WAVLTree fromSorted(PrimitiveIterator.OfInt keys, Iterator<String> values)
+   {
+	   WAVLTree tree = new WAVLTree();
+	   WAVLNode[] nodes = new WAVLNode[16];
+	   int n = 0;
+	   while (keys.hasNext() && values.hasNext())
+	   {
+		   int k = keys.nextInt();
+		   if (n > 0 && k <= nodes[n-1].key)
+			   throw new IllegalArgumentException("keys are not strictly ascending at index " + n);
+		   if (n == nodes.length)
+			   nodes = Arrays.copyOf(nodes, n + (n >> 1));
+		   nodes[n++] = new WAVLNode(k, values.next());
+	   }
+	   if (keys.hasNext() || values.hasNext())
+		   throw new IllegalArgumentException("more " + (keys.hasNext() ? "keys" : "values") + " than "
+				   + (keys.hasNext() ? "values" : "keys") + " after " + n + " items");
+	   tree.linkBalanced(nodes, n);
+	   return tree;
+   }
+
+  /**
+   * public void rebuild()
+   *
+   * rebalances the tree in O(n) - the same nodes are relinked into a perfectly balanced tree
+   * (as built by fromSorted). keys, info and size do not change.
+   */
+   public void rebuild()
+   {
+	   int n = size();
+	   if (n == 0)
+		   return;
+	   WAVLNode[] nodes = new WAVLNode[n];
+	   int i = 0;
+	   for (WAVLNode current = firstNode(); current != null; current = nextNode(current))
+		   nodes[i++] = current;
+	   linkBalanced(nodes, n);
+   }
+
+  /**
+   * public int deleteAll(int[] sortedKeys)
+   *
+   * deletes the items with the given keys (ascending, repeats allowed; keys that are not in the tree are skipped)
+   * in one sweep from the smallest key to the largest: every search starts from where the previous delete
+   * ended (as in finger mode), so it only climbs as far as the gap to the next key.
+   * when the keys are a large part of the tree (a quarter or more), the remaining nodes are relinked
+   * instead, in O(n), like rebuild().
+   * returns the number of deleted items.
+   * throws IllegalArgumentException if the keys are not ascending (and then deletes nothing).
+   */
+   public int deleteAll(int[] sortedKeys)
+   {
+	   for (int i = 1; i < sortedKeys.length; i++)
+		   if (sortedKeys[i] < sortedKeys[i-1])
+			   throw new IllegalArgumentException("keys are not ascending at index " + i);
+	   if (sortedKeys.length == 0 || empty())
+		   return 0;
+	   int before = size();
+	   if ((long) sortedKeys.length * 4 >= before)
+		   return before - relinkWithout(sortedKeys);
+	   boolean mode = fingerMode;
+	   fingerMode = true;
+	   int removed = 0;
+	   //the mode is given back even if the sweep throws (a listener might)
+	   try
+	   {
+		   for (int i = 0; i < sortedKeys.length && !empty(); i++)
+		   {
+			   if (i > 0 && sortedKeys[i] == sortedKeys[i-1])
+				   continue;
+			   WAVLNode node = findNodeFromKey(sortedKeys[i]);
+			   if (node == null)
+				   continue;
+			   deleteNode(node);
+			   removed++;
+		   }
+	   }
+	   finally
+	   {
+		   fingerMode = mode;
+		   if (!mode)
+			   finger = null;
+	   }
+	   return removed;
+   }
+
+   //makes the nodes whose keys are not in sortedKeys the whole tree, perfectly balanced. returns their number
+   private int relinkWithout(int[] sortedKeys)
+   {
+	   WAVLNode[] nodes = new WAVLNode[size()];
+	   int n = 0;
+	   int j = 0;
+	   for (WAVLNode current = firstNode(); current != null; current = nextNode(current))
+	   {
+		   while (j < sortedKeys.length && sortedKeys[j] < current.getKey())
+			   j++;
+		   if (j < sortedKeys.length && sortedKeys[j] == current.getKey())
+			   continue;
+		   nodes[n++] = current;
+	   }
+	   if (n == 0)
+		   makeEmpty();
+	   else
+		   linkBalanced(nodes, n);
+	   return n;
+   }
+
+   //makes the first n nodes (sorted by key) the whole tree, linked as a perfectly balanced tree
+   private void linkBalanced(WAVLNode[] nodes, int n)
+   {
+	   if (n == 0)
+		   return;
+	   root = linkBalanced(nodes, 0, n-1);
+	   root.setParent(sentinel);
+	   minNode = nodes[0];
+	   maxNode = nodes[n-1];
+	   finger = null;
+   }
+
+   //links nodes[from..to] into a balanced subtree, and returns its root (extLeaf if from > to)
+   //the sizes of the two halves differ by at most 1, so their heights differ by at most 1 -
+   //using the height as the rank gives only 1 and 2 rank differences.
+   private WAVLNode linkBalanced(WAVLNode[] nodes, int from, int to)
+   {
+	   if (from > to)
+		   return extLeaf;
+	   int mid = (from + to) >>> 1;
+	   WAVLNode node = nodes[mid];
+	   WAVLNode left = linkBalanced(nodes, from, mid-1);
+	   WAVLNode right = linkBalanced(nodes, mid+1, to);
+	   node.setLeft(left);
+	   node.setRight(right);
+	   if (left != extLeaf)
+		   left.setParent(node);
+	   if (right != extLeaf)
+		   right.setParent(node);
+	   node.setRank(Math.max(left.getRank(), right.getRank()) + 1);
+	   update(node);
+	   return node;
+   }
+
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+
+   //==================================================================
+   //=========================Snapshot functions=======================
+   //==================================================================
+   //the snapshot file (little endian):
+   //  header: magic "WAVL", format version, item count n, flags (0),
+   //          length of the value block (long), CRC32C of the key and value blocks (long)
+   //  key block: the n keys (int), ascending
+   //  value block: for every key in order, the length of its UTF-8 encoded info (int, -1 for null)
+   //               followed by the bytes
+   //the header is written last, so a file whose writing was cut short fails the checksum.
+
+   private static final int SNAPSHOT_MAGIC = 0x5741564C; //"WAVL"
+   private static final int SNAPSHOT_VERSION = 1;
+   private static final int SNAPSHOT_HEADER = 32;
+   private static final int SNAPSHOT_BUFFER = 1 << 16;
+
+  /**
+   * public void writeSnapshot(Path path)
+   *
+   * writes the items of the tree to a snapshot file, in key order, in O(n) - see loadSnapshot.
+   * the file is written next to path and then moved over it, so an existing snapshot
+   * is replaced only by a complete one.
+   */
+   public void writeSnapshot(Path path) throws IOException
+   {
+	   Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+	   CRC32C checksum = new CRC32C();
+	   ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+	   try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+			   StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+	   {
+		   channel.position(SNAPSHOT_HEADER);
+		   for (WAVLNode current = firstNode(); current != null; current = nextNode(current))
+		   {
+			   if (buffer.remaining() < 4)
+				   flushSnapshot(channel, buffer, checksum);
+			   buffer.putInt(current.key);
+		   }
+		   long valueBytes = 0;
+		   for (WAVLNode current = firstNode(); current != null; current = nextNode(current))
+		   {
+			   byte[] bytes = current.info == null ? null : current.info.getBytes(StandardCharsets.UTF_8);
+			   int length = bytes == null ? -1 : bytes.length;
+			   if (buffer.remaining() < 4)
+				   flushSnapshot(channel, buffer, checksum);
+			   buffer.putInt(length);
+			   valueBytes += 4 + Math.max(length, 0);
+			   for (int offset = 0; offset < length; )
+			   {
+				   if (!buffer.hasRemaining())
+					   flushSnapshot(channel, buffer, checksum);
+				   int chunk = Math.min(buffer.remaining(), length - offset);
+				   buffer.put(bytes, offset, chunk);
+				   offset += chunk;
+			   }
+		   }
+		   flushSnapshot(channel, buffer, checksum);
+		   buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putInt(size()).putInt(0);
+		   buffer.putLong(valueBytes).putLong(checksum.getValue());
+		   buffer.flip();
+		   channel.position(0);
+		   while (buffer.hasRemaining())
+			   channel.write(buffer);
+		   channel.force(false);
+	   }
+	   Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+   }
+
+   //writes out the buffered bytes, and adds them to the checksum
+   private static void flushSnapshot(FileChannel channel, ByteBuffer buffer, CRC32C checksum) throws IOException
+   {
+	   buffer.flip();
+	   checksum.update(buffer.array(), 0, buffer.limit());
+	   while (buffer.hasRemaining())
+		   channel.write(buffer);
+	   buffer.clear();
+   }
+
+  /**
+   * public static WAVLTree loadSnapshot(Path path)
+   *
+   * builds a tree from a file written by writeSnapshot. the file is memory-mapped and read once,
+   * and the nodes are linked as by fromSorted - O(n), with no search and no rotation.
+   * throws IOException if the file is not a snapshot, is truncated or corrupt (checksum mismatch),
+   * or is larger than 2GB (a single mapping).
+   */
+   public static WAVLTree loadSnapshot(Path path) throws IOException
+   {
+	   try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+	   {
+		   long fileSize = channel.size();
+		   if (fileSize < SNAPSHOT_HEADER)
+			   throw new IOException(path + " is not a WAVLTree snapshot (" + fileSize + " bytes)");
+		   if (fileSize > Integer.MAX_VALUE)
+			   throw new IOException(path + " is too large to map (" + fileSize + " bytes)");
+		   MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+		   file.order(ByteOrder.LITTLE_ENDIAN);
+		   if (file.getInt(0) != SNAPSHOT_MAGIC || file.getInt(4) != SNAPSHOT_VERSION)
+			   throw new IOException(path + " is not a WAVLTree snapshot of version " + SNAPSHOT_VERSION);
+		   int n = file.getInt(8);
+		   long valueBytes = file.getLong(16);
+		   if (n < 0 || valueBytes < 0 || fileSize != SNAPSHOT_HEADER + 4L * n + valueBytes)
+			   throw new IOException(path + " is truncated: " + fileSize + " bytes for " + n + " items");
+		   CRC32C checksum = new CRC32C();
+		   checksum.update(file.slice(SNAPSHOT_HEADER, (int) fileSize - SNAPSHOT_HEADER));
+		   if (checksum.getValue() != file.getLong(24))
+			   throw new IOException(path + " is corrupt: checksum mismatch");
+		   WAVLNode[] nodes = new WAVLNode[n];
+		   int keys = SNAPSHOT_HEADER;
+		   int values = SNAPSHOT_HEADER + 4 * n;
+		   byte[] bytes = new byte[64];
+		   for (int i = 0; i < n; i++)
+		   {
+			   int k = file.getInt(keys + 4 * i);
+			   if (i > 0 && k <= nodes[i-1].key)
+				   throw new IOException(path + " is corrupt: keys are not strictly ascending at index " + i);
+			   int length = file.getInt(values);
+			   values += 4;
+			   String info = null;
+			   if (length >= 0)
+			   {
+				   if (length > bytes.length)
+					   bytes = new byte[Math.max(length, 2 * bytes.length)];
+				   file.get(values, bytes, 0, length);
+				   info = new String(bytes, 0, length, StandardCharsets.UTF_8);
+				   values += length;
+			   }
+			   nodes[i] = new WAVLNode(k, info);
+		   }
+		   WAVLTree tree = new WAVLTree();
+		   tree.linkBalanced(nodes, n);
+		   return tree;
+	   }
+   }
+
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+
+   //==================================================================
+   //=========================Join and split functions=================
+   //==================================================================
+
+  /**
+   * public static WAVLTree join(WAVLTree left, int key, String value, WAVLTree right)
+   *
+   * returns a tree with all the items of left, the item (key, value) and all the items of right,
+   * in O(|rank(left) - rank(right)| + 1) - the nodes are relinked, not copied.
+   * left and right are emptied.
+   * precondition: every key of left < key < every key of right (otherwise IllegalArgumentException)
+   */
+   public static WAVLTree join(WAVLTree left, int key, String value, WAVLTree right)
+   {
+	   if (!left.empty() && left.lastNode().getKey() >= key)
+		   throw new IllegalArgumentException("the left tree has a key >= " + key);
+	   if (!right.empty() && right.firstNode().getKey() <= key)
+		   throw new IllegalArgumentException("the right tree has a key <= " + key);
+	   WAVLTree tree = new WAVLTree();
+	   tree.aggregate = commonAggregate(left, right);
+	   WAVLNode a = left.detachAll();
+	   WAVLNode b = right.detachAll();
+	   tree.adoptRoot(tree.joinNodes(a, tree.newNode(key, value), b));
+	   return tree;
+   }
+
+  /**
+   * public static WAVLTree concat(WAVLTree left, WAVLTree right)
+   *
+   * returns a tree with all the items of left and right, in O(log n). left and right are emptied.
+   * precondition: every key of left < every key of right (otherwise IllegalArgumentException)
+   */
+   //the minimal item of right is taken out, and used as the middle item of a join
+   public static WAVLTree concat(WAVLTree left, WAVLTree right)
+   {
+	   if (right.empty())
+	   {
+		   WAVLTree tree = new WAVLTree();
+		   tree.aggregate = commonAggregate(left, right);
+		   tree.adoptRoot(left.detachAll());
+		   return tree;
+	   }
+	   WAVLNode middle = right.firstNode();
+	   if (!left.empty() && left.lastNode().getKey() >= middle.getKey())
+		   throw new IllegalArgumentException("the left tree has a key >= " + middle.getKey());
+	   int key = middle.getKey();
+	   String value = middle.getValue();
+	   right.deleteNode(middle);
+	   return join(left, key, value, right);
+   }
+
+  /**
+   * public WAVLTree[] split(int k)
+   *
+   * splits the tree in O(log n) - returns two trees, the first holds the items with keys smaller than k,
+   * and the second holds the items with keys greater than or equal to k.
+   * the nodes are relinked, not copied - this tree is emptied.
+   */
+   public WAVLTree[] split(int k)
+   {
+	   WAVLTree less = new WAVLTree();
+	   WAVLTree greater = new WAVLTree();
+	   less.aggregate = aggregate;
+	   greater.aggregate = aggregate;
+	   WAVLNode[] parts = new WAVLNode[3];
+	   splitNodes(detachAll(), k, parts);
+	   if (parts[2] != null) //k goes to the greater part, as its minimum
+		   parts[1] = joinNodes(extLeaf, parts[2], parts[1]);
+	   makeEmpty(); //the joins used this tree as their workspace
+	   less.adoptRoot(parts[0]);
+	   greater.adoptRoot(parts[1]);
+	   return new WAVLTree[] {less, greater};
+   }
+
+  /**
+   * public int deleteRange(int lo, int hi)
+   *
+   * deletes all the items with lo <= key < hi in O(log n): the tree is split at lo and at hi,
+   * and the outer parts are joined back. the removed nodes are just dropped.
+   * returns the number of deleted items.
+   */
+   public int deleteRange(int lo, int hi)
+   {
+	   int removed = countRange(lo, hi);
+	   if (removed == 0)
+		   return 0;
+	   if (removed == size())
+	   {
+		   makeEmpty();
+		   return removed;
+	   }
+	   WAVLNode[] parts = new WAVLNode[3];
+	   splitNodes(detachAll(), lo, parts);
+	   WAVLNode less = parts[0]; //parts[2], the node with key lo, is deleted
+	   splitNodes(parts[1], hi, parts);
+	   WAVLNode greater = parts[1]; //parts[0] is deleted, but the node with key hi stays
+	   if (parts[2] != null)
+		   greater = joinNodes(extLeaf, parts[2], greater);
+	   adoptRoot(joinNodes(less, greater));
+	   return removed;
+   }
+
+   //splits the subtree of node into the nodes with keys < k (parts[0]), the nodes with keys > k (parts[1])
+   //and the node with key k (parts[2], null if there is none).
+   //every level joins the node and its other subtree onto the matching part. the joins
+   //cost their rank differences, which add up to O(rank(node)).
+   private void splitNodes(WAVLNode node, int k, WAVLNode[] parts)
+   {
+	   if (node == extLeaf)
+	   {
+		   parts[0] = extLeaf;
+		   parts[1] = extLeaf;
+		   parts[2] = null;
+		   return;
+	   }
+	   WAVLNode left = node.getLeft();
+	   WAVLNode right = node.getRight();
+	   if (k == node.getKey())
+	   {
+		   parts[0] = left;
+		   parts[1] = right;
+		   parts[2] = node;
+	   }
+	   else if (k < node.getKey())
+	   {
+		   splitNodes(left, k, parts);
+		   parts[1] = joinNodes(parts[1], node, right);
+	   }
+	   else
+	   {
+		   splitNodes(right, k, parts);
+		   parts[0] = joinNodes(left, node, parts[0]);
+	   }
+   }
+
+   //joins two detached subtrees a and b (every key of a < middle's key < every key of b)
+   //with middle as the node in between. returns the root of the joined subtree.
+   //this tree's root and sentinel are used as the workspace of the rebalancing.
+   private WAVLNode joinNodes(WAVLNode a, WAVLNode middle, WAVLNode b)
+   {
+	   int rankA = a.getRank();
+	   int rankB = b.getRank();
+	   //ranks close enough - middle goes on top, with a rank difference of 1 or 2 to both sides
+	   if (Math.abs(rankA - rankB) <= 1)
+	   {
+		   linkChildren(middle, a, b);
+		   middle.setRank(Math.max(rankA, rankB) + 1);
+		   update(middle);
+		   return middle;
+	   }
+	   if (rankA > rankB)
+	   {
+		   //walk down the right spine of a to the first node c with rank <= rank(b),
+		   //and put middle in its place, with c and b as its children
+		   root = a;
+		   a.setParent(sentinel);
+		   WAVLNode parent = a;
+		   WAVLNode c = a.getRight();
+		   while (c.getRank() > rankB)
+		   {
+			   parent = c;
+			   c = c.getRight();
+		   }
+		   linkChildren(middle, c, b);
+		   parent.setRight(middle);
+		   middle.setParent(parent);
+	   }
+	   else
+	   {
+		   //symmetric - the left spine of b
+		   root = b;
+		   b.setParent(sentinel);
+		   WAVLNode parent = b;
+		   WAVLNode c = b.getLeft();
+		   while (c.getRank() > rankA)
+		   {
+			   parent = c;
+			   c = c.getLeft();
+		   }
+		   linkChildren(middle, a, c);
+		   parent.setLeft(middle);
+		   middle.setParent(parent);
+	   }
+	   middle.setRank(Math.min(rankA, rankB) + 1);
+	   updateSizes(middle);
+	   rebalanceJoin(middle);
+	   return root;
+   }
+
+   private void linkChildren(WAVLNode node, WAVLNode left, WAVLNode right)
+   {
+	   node.setLeft(left);
+	   node.setRight(right);
+	   if (left != extLeaf)
+		   left.setParent(node);
+	   if (right != extLeaf)
+		   right.setParent(node);
+   }
+
+   //after joinNodes put middle on a spine, its parent might have the same rank (a "0" child) -
+   //the same problem insert has, except that middle might be a "11" node, which needs
+   //a rotation that is not terminal.
+   private void rebalanceJoin(WAVLNode point)
+   {
+	   while (point != root && point.getParent().getRank() == point.getRank())
+	   {
+		   WAVLNode parent = point.getParent();
+		   int parentType = difType(parent);
+		   //the other child of parent has rank difference 1 - promote and roll the problem up
+		   if (parentType == 0x01 || parentType == 0x10)
+		   {
+			   promote(parent);
+			   point = parent;
+			   continue;
+		   }
+		   if (difType(point) == 0x11)
+		   {
+			   //rotate point above parent: parent keeps its rank (the rotation demoted it, which is
+			   //undone without telling the listener - it is no rank change), point is promoted -
+			   //it may now be a "0" child itself
+			   if (parentType == 0x20)
+				   rotateLeft(parent);
+			   else
+				   rotateRight(parent);
+			   parent.setRank(parent.getRank() + 1);
+			   promote(point);
+			   if (listener != null)
+				   listener.rotated(false);
+			   continue;
+		   }
+		   //"12" or "21" point under a "02" or "20" parent - the rotations of insert
+		   rebalanceInsert(point);
+		   return;
+	   }
+   }
+
+   //joins two detached subtrees a and b (every key of a < every key of b), with no node in between:
+   //the maximal node of a is cut out and used as the middle node
+   private WAVLNode joinNodes(WAVLNode a, WAVLNode b)
+   {
+	   if (a == extLeaf)
+		   return b;
+	   WAVLNode[] parts = new WAVLNode[2];
+	   splitLast(a, parts);
+	   return joinNodes(parts[0], parts[1], b);
+   }
+
+   //cuts the maximal node out of the subtree of node: parts[0] is the rest, parts[1] the maximal node
+   private void splitLast(WAVLNode node, WAVLNode[] parts)
+   {
+	   WAVLNode left = node.getLeft();
+	   if (node.getRight() == extLeaf)
+	   {
+		   parts[0] = left;
+		   parts[1] = node;
+		   return;
+	   }
+	   splitLast(node.getRight(), parts);
+	   parts[0] = joinNodes(left, node, parts[0]);
+   }
+
+   //takes all the nodes out of the tree (which is left empty) and returns the root, or extLeaf
+   private WAVLNode detachAll()
+   {
+	   if (empty())
+		   return extLeaf;
+	   WAVLNode top = root;
+	   makeEmpty();
+	   return top;
+   }
+
+   //makes a detached subtree (or extLeaf, for none) the whole tree
+   private void adoptRoot(WAVLNode top)
+   {
+	   if (top == extLeaf)
+	   {
+		   makeEmpty();
+		   return;
+	   }
+	   root = top;
+	   root.setParent(sentinel);
+	   refreshEnds();
+	   finger = null;
+   }
+
+   //returns the node with the maximal key, or null if the tree is empty
+   private WAVLNode lastNode()
+   {
+	   return maxNode;
+   }
+
+   //finds the minimal and maximal nodes again, after the whole tree was replaced - O(log n)
+   private void refreshEnds()
+   {
+	   if (empty())
+	   {
+		   minNode = null;
+		   maxNode = null;
+		   return;
+	   }
+	   minNode = root;
+	   while (minNode.getLeft() != extLeaf)
+		   minNode = minNode.getLeft();
+	   maxNode = root;
+	   while (maxNode.getRight() != extLeaf)
+		   maxNode = maxNode.getRight();
+   }
+
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+
+   //==================================================================
+   //=========================Set functions============================
+   //==================================================================
+   //union, intersection and difference divide and conquer with split and join:
+   //the second tree is split by the key of the first tree's root, the two halves
+   //are solved recursively - in parallel, on a ForkJoinPool - and joined back.
+   //this is O(m log(n/m + 1)) work for trees of sizes m <= n, and O(log^2 n) span.
+   //like join and split, the nodes are relinked, and both input trees are emptied.
+
+   //subproblems with fewer items than this (in both trees together) are not forked
+   public static final int DEFAULT_SEQUENTIAL_CUTOFF = 1 << 12;
+
+   private enum SetOperation { UNION, INTERSECTION, DIFFERENCE }
+
+  /**
+   * public static WAVLTree union(WAVLTree a, WAVLTree b)
+   *
+   * returns a tree with the items of both trees (for a key in both, the info of a is kept).
+   * runs on the common ForkJoinPool. a and b are emptied.
+   */
+   public static WAVLTree union(WAVLTree a, WAVLTree b)
+   {
+	   return union(a, b, ForkJoinPool.commonPool(), DEFAULT_SEQUENTIAL_CUTOFF);
+   }
+
+  /**
+   * public static WAVLTree union(WAVLTree a, WAVLTree b, ForkJoinPool pool, int sequentialCutoff)
+   *
+   * union on the given pool - subproblems smaller than sequentialCutoff items run on a single thread.
+   */
+   public static WAVLTree union(WAVLTree a, WAVLTree b, ForkJoinPool pool, int sequentialCutoff)
+   {
+	   return setOperation(SetOperation.UNION, a, b, pool, sequentialCutoff);
+   }
+
+  /**
+   * public static WAVLTree intersection(WAVLTree a, WAVLTree b)
+   *
+   * returns a tree with the items of a whose keys are also in b (with the info of a).
+   * runs on the common ForkJoinPool. a and b are emptied.
+   */
+   public static WAVLTree intersection(WAVLTree a, WAVLTree b)
+   {
+	   return intersection(a, b, ForkJoinPool.commonPool(), DEFAULT_SEQUENTIAL_CUTOFF);
+   }
+
+  /**
+   * public static WAVLTree intersection(WAVLTree a, WAVLTree b, ForkJoinPool pool, int sequentialCutoff)
+   *
+   * intersection on the given pool - subproblems smaller than sequentialCutoff items run on a single thread.
+   */
+   public static WAVLTree intersection(WAVLTree a, WAVLTree b, ForkJoinPool pool, int sequentialCutoff)
+   {
+	   return setOperation(SetOperation.INTERSECTION, a, b, pool, sequentialCutoff);
+   }
+
+  /**
+   * public static WAVLTree difference(WAVLTree a, WAVLTree b)
+   *
+   * returns a tree with the items of a whose keys are not in b.
+   * runs on the common ForkJoinPool. a and b are emptied.
+   */
+   public static WAVLTree difference(WAVLTree a, WAVLTree b)
+   {
+	   return difference(a, b, ForkJoinPool.commonPool(), DEFAULT_SEQUENTIAL_CUTOFF);
+   }
+
+  /**
+   * public static WAVLTree difference(WAVLTree a, WAVLTree b, ForkJoinPool pool, int sequentialCutoff)
+   *
+   * difference on the given pool - subproblems smaller than sequentialCutoff items run on a single thread.
+   */
+   public static WAVLTree difference(WAVLTree a, WAVLTree b, ForkJoinPool pool, int sequentialCutoff)
+   {
+	   return setOperation(SetOperation.DIFFERENCE, a, b, pool, sequentialCutoff);
+   }
+
+  /**
+   * public int insertAll(int[] keys, String[] values)
+   *
+   * inserts the items (keys[i], values[i]) of an unsorted batch. a key that is already in the tree,
+   * or that appears earlier in the batch, is rejected - the same result as calling insert for each item in order.
+   * returns the number of inserted items (so keys.length minus the returned value were rejected).
+   * the batch is sorted with Arrays.parallelSort, built into a tree in O(m), and merged with
+   * the tree by a parallel union on the common ForkJoinPool.
+   * throws IllegalArgumentException if the lengths differ.
+   */
+   public int insertAll(int[] keys, String[] values)
+   {
+	   return insertAll(keys, values, ForkJoinPool.commonPool(), DEFAULT_SEQUENTIAL_CUTOFF);
+   }
+
+  /**
+   * public int insertAll(int[] keys, String[] values, ForkJoinPool pool, int sequentialCutoff)
+   *
+   * insertAll, with the merge running on the given pool (see union)
+   */
+   public int insertAll(int[] keys, String[] values, ForkJoinPool pool, int sequentialCutoff)
+   {
+	   if (keys.length != values.length)
+		   throw new IllegalArgumentException(keys.length + " keys but " + values.length + " values");
+	   //sort (key, index) pairs - for equal keys the earlier index comes first, and wins
+	   long[] order = new long[keys.length];
+	   for (int i = 0; i < keys.length; i++)
+		   order[i] = ((long) keys[i] << 32) | i;
+	   Arrays.parallelSort(order);
+	   WAVLNode[] nodes = new WAVLNode[keys.length];
+	   int n = 0;
+	   for (int i = 0; i < order.length; i++)
+	   {
+		   int k = (int) (order[i] >> 32);
+		   if (n > 0 && nodes[n-1].key == k)
+			   continue;
+		   nodes[n++] = newNode(k, values[(int) order[i]]);
+	   }
+	   WAVLTree batch = new WAVLTree();
+	   batch.aggregate = aggregate;
+	   batch.linkBalanced(nodes, n);
+	   int before = size();
+	   //the union keeps the info of the first tree for keys in both - existing items win
+	   adoptRoot(pool.invoke(new SetTask(SetOperation.UNION, detachAll(), batch.detachAll(), sequentialCutoff, aggregate)));
+	   return size() - before;
+   }
+
+   private static WAVLTree setOperation(SetOperation operation, WAVLTree a, WAVLTree b, ForkJoinPool pool, int sequentialCutoff)
+   {
+	   if (a == b)
+		   throw new IllegalArgumentException("a set operation needs two different trees");
+	   WAVLNode nodesA = a.detachAll();
+	   WAVLNode nodesB = b.detachAll();
+	   WAVLTree tree = new WAVLTree();
+	   tree.aggregate = commonAggregate(a, b);
+	   tree.adoptRoot(pool.invoke(new SetTask(operation, nodesA, nodesB, sequentialCutoff, tree.aggregate)));
+	   return tree;
+   }
+
+   //the result of a set operation when one of the subtrees is empty
+   private static WAVLNode trivialSetNodes(SetOperation operation, WAVLNode a, WAVLNode b)
+   {
+	   if (a == extLeaf)
+		   return operation == SetOperation.UNION ? b : extLeaf;
+	   return operation == SetOperation.INTERSECTION ? extLeaf : a;
+   }
+
+   //single threaded set operation on two detached subtrees, using workspace for the joins
+   private static WAVLNode setNodes(SetOperation operation, WAVLNode a, WAVLNode b, WAVLTree workspace)
+   {
+	   if (a == extLeaf || b == extLeaf)
+		   return trivialSetNodes(operation, a, b);
+	   WAVLNode[] parts = new WAVLNode[3];
+	   WAVLNode leftA = a.getLeft();
+	   WAVLNode rightA = a.getRight();
+	   workspace.splitNodes(b, a.getKey(), parts);
+	   boolean inB = parts[2] != null;
+	   WAVLNode right = parts[1];
+	   WAVLNode left = setNodes(operation, leftA, parts[0], workspace);
+	   right = setNodes(operation, rightA, right, workspace);
+	   return workspace.combineSetNodes(operation, left, a, inB, right);
+   }
+
+   //joins the solved halves, with or without the split node a in between
+   private WAVLNode combineSetNodes(SetOperation operation, WAVLNode left, WAVLNode a, boolean inB, WAVLNode right)
+   {
+	   boolean keep = operation == SetOperation.UNION || (operation == SetOperation.INTERSECTION) == inB;
+	   if (keep)
+		   return joinNodes(left, a, right);
+	   return joinNodes(left, right);
+   }
+
+   //the parallel version of setNodes - the halves of big subproblems are forked
+   private static final class SetTask extends RecursiveTask<WAVLNode>
+   {
+	   private static final long serialVersionUID = 1L;
+
+	   private final SetOperation operation;
+	   private final WAVLNode a;
+	   private final WAVLNode b;
+	   private final int sequentialCutoff;
+	   private final Aggregate aggregate; //the workspaces maintain the aggregate of the result
+
+	   SetTask(SetOperation operation, WAVLNode a, WAVLNode b, int sequentialCutoff, Aggregate aggregate)
+	   {
+		   this.operation = operation;
+		   this.a = a;
+		   this.b = b;
+		   this.sequentialCutoff = sequentialCutoff;
+		   this.aggregate = aggregate;
+	   }
+
+	   @Override
+	   protected WAVLNode compute()
+	   {
+		   if (a == extLeaf || b == extLeaf)
+			   return trivialSetNodes(operation, a, b);
+		   //every task joins in its own workspace tree, so tasks never share one
+		   WAVLTree workspace = new WAVLTree();
+		   workspace.aggregate = aggregate;
+		   if (a.getSubtreeSize() + b.getSubtreeSize() < sequentialCutoff)
+			   return setNodes(operation, a, b, workspace);
+		   WAVLNode[] parts = new WAVLNode[3];
+		   WAVLNode leftA = a.getLeft();
+		   WAVLNode rightA = a.getRight();
+		   workspace.splitNodes(b, a.getKey(), parts);
+		   SetTask leftTask = new SetTask(operation, leftA, parts[0], sequentialCutoff, aggregate);
+		   leftTask.fork();
+		   WAVLNode right = new SetTask(operation, rightA, parts[1], sequentialCutoff, aggregate).compute();
+		   WAVLNode left = leftTask.join();
+		   return workspace.combineSetNodes(operation, left, a, parts[2] != null, right);
+	   }
+   }
+
+   //==================================================================
+   //==============================END=================================
+   //==================================================================
+
+   //==================================================================
+   //==================Node Interface and Implementation===============
+   //==================================================================
+	/**
+	   * public interface IWAVLNode
+	   * ! Do not delete or modify this - otherwise all tests will fail !
+	   */
+	public interface IWAVLNode{	
+		public int getKey(); //returns node's key (for virtuval node return -1)
+		public String getValue(); //returns node's value [info] (for virtuval node return null)
+		public IWAVLNode getLeft(); //returns left child (if there is no left child return null)
+		public IWAVLNode getRight(); //returns right child (if there is no right child return null)
+		public boolean isRealNode(); // Returns True if this is a non-virtual WAVL node (i.e not a virtual leaf or a sentinal)
+		public int getSubtreeSize(); // Returns the number of real nodes in this node's subtree (Should be implemented in O(1))
+	}
+
+	/**
+	   * public interface IntObjConsumer
+	   * receives the (key, info) pairs of forEach, without boxing the key
+	   */
+	@FunctionalInterface
+	public interface IntObjConsumer{
+		public void accept(int key, String info);
+	}
+
+	/**
+	   * public interface IntObjFunction
+	   * computes a new info from a key and its current info (see compute)
+	   */
+	@FunctionalInterface
+	public interface IntObjFunction{
+		public String apply(int key, String info);
+	}
+
+	/**
+	   * public interface RebalanceListener
+	   * receives the steps of a tree's rebalancing as they happen (see setRebalanceListener).
+	   * the calls come from the thread that changes the tree. every method does nothing by default.
+	   *
+	   * promoted() and demoted() are called once for every change of a node's rank by one - the ones
+	   * a rotation makes included, so a rotation is reported as rotated() and the rank changes it made.
+	   * for example, a double rotation of insert is two demotions, a promotion and rotated(true).
+	   * rebalanced(steps) gets the value insert or delete returns.
+	   */
+	public interface RebalanceListener{
+		public default void promoted() {} //a node's rank went up by one (insert, join, the rotations of delete)
+		public default void demoted() {} //a node's rank went down by one (delete, every rotation)
+		public default void rotated(boolean twice) {} //a single rotation, or a double one (twice)
+		public default void deleteStep() {} //an iteration of delete's rebalancing loop
+		public default void rebalanced(int steps) {} //an insert or delete is done, after steps rebalance operations
+		public default void searched(int depth) {} //a walk down ended at the given depth (the root is 0)
+	}
+
+	/**
+	   * public interface IntObjToLongFunction
+	   * maps an item (key, info) to a primitive long - the value the sum, min and max aggregates fold
+	   */
+	@FunctionalInterface
+	public interface IntObjToLongFunction{
+		public long applyAsLong(int key, String info);
+	}
+
+	/**
+	   * public interface Aggregate
+	   * an associative fold of the items of a subtree, in key order (see setAggregate):
+	   * combine(identity(), x) == combine(x, identity()) == x, and combine must be associative.
+	   * the values are primitive longs, so maintaining and querying an aggregate never boxes.
+	   */
+	public interface Aggregate{
+		public long identity(); //the aggregate of no items
+		public long of(int key, String info); //the aggregate of a single item
+		public long combine(long left, long right); //the aggregate of two adjacent runs of items
+
+		//the sum of value(key, info) over the items
+		public static Aggregate sum(IntObjToLongFunction value)
+		{
+			return new Sum(value);
+		}
+
+		//the minimal value(key, info) of the items - Long.MAX_VALUE for none
+		public static Aggregate min(IntObjToLongFunction value)
+		{
+			return new Min(value);
+		}
+
+		//the maximal value(key, info) of the items - Long.MIN_VALUE for none
+		public static Aggregate max(IntObjToLongFunction value)
+		{
+			return new Max(value);
+		}
+	}
+
+	private static final class Sum implements Aggregate{
+		private final IntObjToLongFunction value;
+
+		Sum(IntObjToLongFunction value)
+		{
+			this.value = value;
+		}
+
+		public long identity() { return 0; }
+		public long of(int key, String info) { return value.applyAsLong(key, info); }
+		public long combine(long left, long right) { return left + right; }
+	}
+
+	private static final class Min implements Aggregate{
+		private final IntObjToLongFunction value;
+
+		Min(IntObjToLongFunction value)
+		{
+			this.value = value;
+		}
+
+		public long identity() { return Long.MAX_VALUE; }
+		public long of(int key, String info) { return value.applyAsLong(key, info); }
+		public long combine(long left, long right) { return Math.min(left, right); }
+	}
+
+	private static final class Max implements Aggregate{
+		private final IntObjToLongFunction value;
+
+		Max(IntObjToLongFunction value)
+		{
+			this.value = value;
+		}
+
+		public long identity() { return Long.MIN_VALUE; }
+		public long of(int key, String info) { return value.applyAsLong(key, info); }
+		public long combine(long left, long right) { return Math.max(left, right); }
+	}
+
+   /**
+   * public class WAVLNode
+   *
+   * If you wish to implement classes other than WAVLTree
+   * (for example WAVLNode), do it in this file, not in 
+   * another file.
+   * This class can and must be modified.
+   * (It must implement IWAVLNode)
+   */
+  public static class WAVLNode implements IWAVLNode{
+	    //WAVLNode's properties
+	  	private int key;
+	  	private String info;
+	  	private byte rank; //at most 2log(n) < 64 - a byte keeps the node at 40 bytes (compressed oops)
+	  	private WAVLNode leftChild = null;
+	  	private WAVLNode rightChild = null;
+	  	private WAVLNode parent = null;
+	  	private int subTreeSize; //subtree size of the current node (including the root)
+	  	
+	  	public WAVLNode ()
+	  	{
+
+	  	}
+	  	//constructor of WAVLNode
+	  	public WAVLNode(int key, String info)
+	  	{
+	  		//insertion of key, info and rank (rank is 0 because it is going to be an internal leaf)
+	  		this.key = key;
+	  		this.info = info;
+	  		this.rank=0;
+	  		//intern leaf will always have two external leaves as children.
+	  		this.leftChild = extLeaf;
+	  		this.rightChild = extLeaf;
+	  	}
+	  //get the node's key
+		public int getKey()
+		{
+			if (rank!=-1)
+				return key;
+			
+			return -1;
+		}
+		//get the node's info
+		public String getValue()
+		{
+			if (rank!=-1)
+				return info;
+			
+			return null;
+			
+		}
+		//get the left child of this node
+		public WAVLNode getLeft()
+		{
+			return leftChild;
+		}
+		//get the right child of this node
+		public WAVLNode getRight()
+		{
+			return rightChild;
+		}
+		//get the parent of this node
+		public WAVLNode getParent()
+		{
+			return parent;
+		}
+		//get the rank of this node
+		public int getRank()
+		{
+			return rank;
+		}
+		//link new left child for this node
+		public void setLeft(WAVLNode leftChild)
+		{
+			this.leftChild = leftChild;
+		}
+		//link new right child for this node
+		public void setRight(WAVLNode rightChild)
+		{
+			this.rightChild = rightChild;
+		}
+		//link a new parent for this node
+		public void setParent(WAVLNode parent)
+		{
+			this.parent = parent;
+		}
+		//set a rank of this node
+		public void setRank(int rank)
+		{
+			this.rank = (byte) rank;
+		}
+		
+		// Returns True if this is a non-virtual WAVL node (i.e not a virtual leaf or a sentinel)
+		public boolean isRealNode()
+		{
+			return (rank>-1);
+		}
+		//return the subtree size of this node
+		public int getSubtreeSize()
+		{
+			return subTreeSize;
+		}
+		//return the aggregate of the items of this node's subtree (0 if the tree has no Aggregate)
+		public long getSubtreeAggregate()
+		{
+			return 0;
+		}
+		//set subtree size of this node
+		public void setSubtreeSize(int size)
+		{
+			this.subTreeSize = size;
+		}
+		
+		//right subtree size + left subtree size + 1
+		public void updateSubtreeSize()
+		{
+			if (this.rank!=-1) 
+				this.subTreeSize = this.getLeft().subTreeSize+this.getRight().subTreeSize + 1;   
+		}
+  }
+
+  //the nodes of a tree with an Aggregate - the aggregate is kept out of WAVLNode, so the trees
+  //without one do not pay for it
+  private static final class AggregateNode extends WAVLNode{
+	  	private long subTreeAggregate; //the tree's Aggregate of the items of this subtree
+
+	  	AggregateNode(int key, String info)
+	  	{
+	  		super(key, info);
+	  	}
+
+		@Override
+		public long getSubtreeAggregate()
+		{
+			return subTreeAggregate;
+		}
+  }
+}
+
@@ -0,0 +1,204 @@
+package wavl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ *
+ * WorkloadTrace
+ *
+ * A recorded sequence of tree operations (see TraceRecorder), loaded into memory for replaying:
+ * the i'th operation is op(i) with the argument arg(i) (the key, or the index of select),
+ * started nanos(i) nanoseconds after the first one.
+ *
+ * The trace file: magic "WTRC", format version (int), then one record per operation -
+ * the op (byte), the argument (zigzag varint) and the time since the previous operation
+ * started (varint, in nanoseconds). A typical record takes 5-8 bytes.
+ * The info of inserts is not recorded.
+ *
+ */
+public final class WorkloadTrace {
+
+	public static final byte INSERT = 1;
+	public static final byte DELETE = 2;
+	public static final byte SEARCH = 3;
+	public static final byte SELECT = 4;
+
+	private static final int MAGIC = 0x57545243; //"WTRC"
+	private static final int VERSION = 1;
+
+	private final byte[] ops;
+	private final int[] args;
+	private final long[] nanos;
+	private final int size;
+
+	private WorkloadTrace(byte[] ops, int[] args, long[] nanos, int size)
+	{
+		this.ops = ops;
+		this.args = args;
+		this.nanos = nanos;
+		this.size = size;
+	}
+
+	/**
+	 * public static WorkloadTrace read(Path path)
+	 *
+	 * loads a trace file. a record that was cut short (the recording was not closed) ends the trace.
+	 * throws IOException if the file is not a trace.
+	 */
+	public static WorkloadTrace read(Path path) throws IOException
+	{
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16)))
+		{
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException(path + " is not a workload trace of version " + VERSION);
+			byte[] ops = new byte[1024];
+			int[] args = new int[1024];
+			long[] nanos = new long[1024];
+			int n = 0;
+			long time = 0;
+			while (true)
+			{
+				int op = in.read();
+				if (op == -1)
+					break;
+				if (op < INSERT || op > SELECT)
+					throw new IOException(path + " has an unknown operation " + op + " at record " + n);
+				int arg;
+				try
+				{
+					long zigzag = readVarLong(in);
+					arg = (int) ((zigzag >>> 1) ^ -(zigzag & 1));
+					time += readVarLong(in);
+				}
+				catch (EOFException e)
+				{
+					break; //torn last record
+				}
+				if (n == ops.length)
+				{
+					ops = Arrays.copyOf(ops, 2 * n);
+					args = Arrays.copyOf(args, 2 * n);
+					nanos = Arrays.copyOf(nanos, 2 * n);
+				}
+				ops[n] = (byte) op;
+				args[n] = arg;
+				nanos[n] = time;
+				n++;
+			}
+			return new WorkloadTrace(ops, args, nanos, n);
+		}
+	}
+
+	//the number of operations
+	public int size()
+	{
+		return size;
+	}
+
+	//the i'th operation - INSERT, DELETE, SEARCH or SELECT
+	public byte op(int i)
+	{
+		return ops[i];
+	}
+
+	//the key of the i'th operation, or the index it selected
+	public int arg(int i)
+	{
+		return args[i];
+	}
+
+	//when the i'th operation started, in nanoseconds after the first one
+	public long nanos(int i)
+	{
+		return nanos[i];
+	}
+
+	//the number of operations of the given type
+	public int count(byte op)
+	{
+		int count = 0;
+		for (int i = 0; i < size; i++)
+			if (ops[i] == op)
+				count++;
+		return count;
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException
+	{
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7)
+		{
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("malformed varint");
+	}
+
+	/**
+	 *
+	 * Writer
+	 *
+	 * appends records to a new trace file. not thread-safe - TraceRecorder serializes the calls.
+	 *
+	 */
+	public static final class Writer implements Closeable {
+
+		private final DataOutputStream out;
+		private boolean first = true; // no record written yet
+		private long last; // System.nanoTime() of the latest record start - nanoTime can be negative
+
+		public Writer(Path path) throws IOException
+		{
+			out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+		}
+
+		//appends an operation that started at the given System.nanoTime()
+		public void write(byte op, int arg, long startNanos) throws IOException
+		{
+			//times are only compared by their difference, which stays correct when nanoTime wraps
+			long delta = 0;
+			if (first)
+			{
+				first = false;
+				last = startNanos;
+			}
+			else if (startNanos - last > 0)
+			{
+				delta = startNanos - last;
+				last = startNanos;
+			}
+			out.write(op);
+			writeVarLong(((long) arg << 1) ^ (arg >> 31));
+			writeVarLong(delta);
+		}
+
+		private void writeVarLong(long value) throws IOException
+		{
+			while ((value & ~0x7FL) != 0)
+			{
+				out.write((int) (value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			out.write((int) value);
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,493 @@
+package wavl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ *
+ * WriteAheadLog
+ *
+ * The log of DurableWAVLTree. Every record gets the next sequence number, and is appended
+ * to an in-memory buffer. A flusher thread writes the buffer out and forces it to disk, so all
+ * the records appended while the previous force was running go to disk with one fsync
+ * (group commit). The flusher can also wait, up to the flush interval, until batchSize records
+ * are pending - fewer fsyncs for more latency.
+ *
+ * The log is a directory of segment files, wal-<sequence number of the first record>.log,
+ * and a new segment is started once the current one reaches segmentSize bytes.
+ *
+ */
+final class WriteAheadLog implements AutoCloseable {
+
+	static final byte INSERT = 1;
+	static final byte DELETE = 2;
+
+	//segment file (little endian): magic "WLOG", format version, then the records.
+	//record: op (byte), key (int), length of the UTF-8 encoded info (int, -1 for null), the info bytes,
+	//        CRC32C of all of the above (int) - a torn record at the end of a segment fails it.
+	private static final int SEGMENT_MAGIC = 0x574C4F47; //"WLOG"
+	private static final int SEGMENT_VERSION = 1;
+	private static final int SEGMENT_HEADER = 8;
+	private static final int RECORD_OVERHEAD = 1 + 4 + 4 + 4;
+	private static final String SEGMENT_PREFIX = "wal-";
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	//receives the records of a replay, in log order
+	interface Replay {
+		void apply(byte op, int key, String info);
+	}
+
+	private final Path directory;
+	private final long flushIntervalNanos;
+	private final int batchSize;
+	private final long segmentSize;
+
+	//the appenders and the flusher meet on this monitor. it guards the fields up to the flusher's
+	private final Object lock = new Object();
+	private final CRC32C checksum = new CRC32C();
+	private ByteBuffer pending = newBuffer(1 << 16); // the records appended since the flusher took the last batch
+	private ByteBuffer spare = newBuffer(1 << 16); // the batch the flusher is writing out
+	private int pendingRecords = 0;
+	private long firstPendingNanos; // when the first pending record was appended
+	private long appended; // sequence number of the last appended record
+	private long durable; // sequence number of the last record on disk
+	private IOException failure = null; // once a write failed, the log takes no more records
+	private boolean closed = false;
+
+	//the flusher's - rotate() and close() take io to exclude it
+	private final Object io = new Object();
+	private FileChannel segment;
+	private long segmentFirst; // sequence number of the first record of the segment
+	private long segmentBytes;
+	private final Thread flusher;
+
+	//constructor - starts a new segment with the record nextSequence
+	WriteAheadLog(Path directory, long nextSequence, long flushIntervalNanos, int batchSize, long segmentSize) throws IOException
+	{
+		if (batchSize < 1 || flushIntervalNanos < 0 || segmentSize < 1)
+			throw new IllegalArgumentException("batchSize and segmentSize must be positive, the flush interval non negative");
+		this.directory = directory;
+		this.flushIntervalNanos = flushIntervalNanos;
+		this.batchSize = batchSize;
+		this.segmentSize = segmentSize;
+		appended = nextSequence - 1;
+		durable = nextSequence - 1;
+		startSegment(nextSequence);
+		flusher = new Thread(this::flushLoop, "wavl-wal-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	//==================================================================
+	//=========================Appending================================
+	//==================================================================
+
+	/**
+	 * long append(byte op, int key, String info)
+	 *
+	 * appends a record, and returns its sequence number - the record is not durable
+	 * before awaitDurable(sequence number) returns.
+	 * throws UncheckedIOException if a previous write failed, IllegalStateException if the log is closed.
+	 */
+	long append(byte op, int key, String info)
+	{
+		byte[] bytes = info == null ? null : info.getBytes(StandardCharsets.UTF_8);
+		int length = bytes == null ? -1 : bytes.length;
+		synchronized (lock)
+		{
+			if (closed)
+				throw new IllegalStateException("the log is closed");
+			if (failure != null)
+				throw new UncheckedIOException("the log failed", failure);
+			int needed = RECORD_OVERHEAD + Math.max(length, 0);
+			if (pending.remaining() < needed)
+				pending = grow(pending, needed);
+			int start = pending.position();
+			pending.put(op).putInt(key).putInt(length);
+			if (bytes != null)
+				pending.put(bytes);
+			checksum.reset();
+			checksum.update(pending.array(), start, pending.position() - start);
+			pending.putInt((int) checksum.getValue());
+			if (pendingRecords++ == 0)
+			{
+				firstPendingNanos = System.nanoTime();
+				lock.notifyAll();
+			}
+			else if (pendingRecords == batchSize)
+				lock.notifyAll();
+			return ++appended;
+		}
+	}
+
+	/**
+	 * void awaitDurable(long sequence)
+	 *
+	 * waits until the record with the given sequence number (and all the records before it) is on disk.
+	 * throws UncheckedIOException if writing it failed.
+	 */
+	void awaitDurable(long sequence)
+	{
+		boolean interrupted = false;
+		synchronized (lock)
+		{
+			while (durable < sequence && failure == null)
+			{
+				try
+				{
+					lock.wait();
+				}
+				catch (InterruptedException e)
+				{
+					//the record is already in the log - it is acknowledged only when it is durable
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+			if (durable < sequence)
+				throw new UncheckedIOException("the log failed", failure);
+		}
+	}
+
+	//the sequence number of the last record that is on disk
+	long durableSequence()
+	{
+		synchronized (lock)
+		{
+			return durable;
+		}
+	}
+
+	/**
+	 * long rotate()
+	 *
+	 * waits until all the appended records are on disk, and starts a new segment for the next ones.
+	 * returns the sequence number of the first record of the new segment - every record before it
+	 * is in the older segments. the caller must keep records from being appended meanwhile.
+	 */
+	long rotate() throws IOException
+	{
+		long last;
+		synchronized (lock)
+		{
+			last = appended;
+		}
+		awaitDurable(last);
+		synchronized (io)
+		{
+			if (segmentFirst != last + 1)
+				startSegment(last + 1);
+		}
+		return last + 1;
+	}
+
+	//deletes the segments whose records all come before the given sequence number
+	void deleteSegmentsBefore(long sequence) throws IOException
+	{
+		List<Path> segments = segments(directory);
+		for (int i = 0; i + 1 < segments.size(); i++)
+			if (firstSequence(segments.get(i + 1)) <= sequence)
+				Files.delete(segments.get(i));
+	}
+
+	/**
+	 * public void close()
+	 *
+	 * writes out the pending records and closes the segment. closing twice does nothing.
+	 * throws IOException if a write failed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		synchronized (lock)
+		{
+			if (closed)
+				return;
+			closed = true;
+			lock.notifyAll();
+		}
+		boolean interrupted = false;
+		while (flusher.isAlive())
+		{
+			try
+			{
+				flusher.join();
+			}
+			catch (InterruptedException e)
+			{
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		synchronized (io)
+		{
+			segment.close();
+		}
+		synchronized (lock)
+		{
+			if (failure != null)
+				throw failure;
+		}
+	}
+
+	//==================================================================
+	//==============================END=================================
+	//==================================================================
+
+	//==================================================================
+	//=========================Flushing=================================
+	//==================================================================
+
+	//takes the pending records as one batch, writes and forces it, and wakes up the appenders that wait for it
+	private void flushLoop()
+	{
+		while (true)
+		{
+			ByteBuffer batch;
+			long last;
+			synchronized (lock)
+			{
+				while (pendingRecords == 0 && !closed)
+					waitQuietly(0);
+				if (pendingRecords == 0)
+					return; //closed, and everything is written
+				//give more appenders the chance to join the batch
+				while (!closed && pendingRecords < batchSize)
+				{
+					long left = firstPendingNanos + flushIntervalNanos - System.nanoTime();
+					if (left <= 0)
+						break;
+					waitQuietly(left);
+				}
+				batch = pending;
+				pending = spare;
+				spare = batch;
+				pendingRecords = 0;
+				last = appended;
+			}
+			IOException error = null;
+			synchronized (io)
+			{
+				try
+				{
+					batch.flip();
+					segmentBytes += batch.remaining();
+					while (batch.hasRemaining())
+						segment.write(batch);
+					segment.force(false);
+					if (segmentBytes >= segmentSize)
+						startSegment(last + 1);
+				}
+				catch (IOException e)
+				{
+					error = e;
+				}
+				batch.clear();
+			}
+			synchronized (lock)
+			{
+				if (error != null)
+					failure = error;
+				else
+					durable = last;
+				lock.notifyAll();
+				if (error != null)
+					return;
+			}
+		}
+	}
+
+	//waits on lock for up to nanos (0 - until notified). the flusher stops only through close()
+	private void waitQuietly(long nanos)
+	{
+		try
+		{
+			if (nanos == 0)
+				lock.wait();
+			else
+				TimeUnit.NANOSECONDS.timedWait(lock, nanos);
+		}
+		catch (InterruptedException e)
+		{
+			//ignored
+		}
+	}
+
+	//closes the current segment (if any), and starts a new one with the record first
+	private void startSegment(long first) throws IOException
+	{
+		if (segment != null)
+			segment.close();
+		segment = FileChannel.open(segmentPath(directory, first), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		ByteBuffer header = newBuffer(SEGMENT_HEADER);
+		header.putInt(SEGMENT_MAGIC).putInt(SEGMENT_VERSION).flip();
+		while (header.hasRemaining())
+			segment.write(header);
+		segment.force(false);
+		syncDirectory(directory);
+		segmentFirst = first;
+		segmentBytes = SEGMENT_HEADER;
+	}
+
+	private static ByteBuffer newBuffer(int capacity)
+	{
+		return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static ByteBuffer grow(ByteBuffer buffer, int needed)
+	{
+		ByteBuffer bigger = newBuffer(Math.max(2 * buffer.capacity(), buffer.position() + needed));
+		buffer.flip();
+		bigger.put(buffer);
+		return bigger;
+	}
+
+	//==================================================================
+	//==============================END=================================
+	//==================================================================
+
+	//==================================================================
+	//=========================Recovery=================================
+	//==================================================================
+
+	/**
+	 * static long replay(Path directory, long from, Replay replay)
+	 *
+	 * passes the records with sequence numbers >= from to replay, in order, and returns the
+	 * sequence number of the next record. a torn record ends its segment - the segment is
+	 * truncated before it (it was never acknowledged), and segments left without records are deleted.
+	 * throws IOException if records between from and the first segment are missing.
+	 */
+	static long replay(Path directory, long from, Replay replay) throws IOException
+	{
+		List<Path> segments = segments(directory);
+		long next = from;
+		for (int i = 0; i < segments.size(); i++)
+		{
+			Path file = segments.get(i);
+			long sequence = firstSequence(file);
+			//all the records of this segment come before the next one's, which is not after from
+			if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= from)
+				continue;
+			if (sequence > next)
+				throw new IOException("the log is missing the records " + next + " to " + (sequence - 1));
+			long end = replaySegment(file, sequence, from, replay);
+			if (end == sequence)
+				Files.delete(file);
+			next = Math.max(next, end);
+		}
+		return next;
+	}
+
+	//replays one segment, whose first record is sequence. returns the sequence number after its last record
+	private static long replaySegment(Path file, long sequence, long from, Replay replay) throws IOException
+	{
+		long valid;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+		{
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException(file + " is too large to map (" + size + " bytes)");
+			MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			records.order(ByteOrder.LITTLE_ENDIAN);
+			if (size < SEGMENT_HEADER)
+				valid = 0; //torn while it was created
+			else if (records.getInt(0) != SEGMENT_MAGIC || records.getInt(4) != SEGMENT_VERSION)
+				throw new IOException(file + " is not a log segment of version " + SEGMENT_VERSION);
+			else
+			{
+				CRC32C checksum = new CRC32C();
+				int position = SEGMENT_HEADER;
+				while (size - position >= RECORD_OVERHEAD)
+				{
+					int length = records.getInt(position + 5);
+					int bytes = Math.max(length, 0);
+					if (length < -1 || size - position - RECORD_OVERHEAD < bytes)
+						break;
+					int body = 1 + 4 + 4 + bytes;
+					checksum.reset();
+					checksum.update(records.slice(position, body));
+					if ((int) checksum.getValue() != records.getInt(position + body))
+						break;
+					if (sequence >= from)
+					{
+						String info = null;
+						if (length >= 0)
+						{
+							byte[] buffer = new byte[length];
+							records.get(position + 9, buffer);
+							info = new String(buffer, StandardCharsets.UTF_8);
+						}
+						replay.apply(records.get(position), records.getInt(position + 1), info);
+					}
+					sequence++;
+					position += body + 4;
+				}
+				valid = position;
+			}
+			if (valid < size)
+			{
+				channel.truncate(valid);
+				channel.force(false);
+			}
+		}
+		return sequence;
+	}
+
+	//the segment files of the log, in sequence order
+	private static List<Path> segments(Path directory) throws IOException
+	{
+		List<Path> segments = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX))
+		{
+			for (Path file : files)
+				segments.add(file);
+		}
+		Collections.sort(segments); //the sequence numbers are zero padded
+		return segments;
+	}
+
+	private static Path segmentPath(Path directory, long first)
+	{
+		return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, first, SEGMENT_SUFFIX));
+	}
+
+	private static long firstSequence(Path segment)
+	{
+		String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	//makes the creation of a file durable. not every platform can open a directory - there it is skipped
+	static void syncDirectory(Path directory)
+	{
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ))
+		{
+			channel.force(true);
+		}
+		catch (IOException e)
+		{
+			//best effort
+		}
+	}
+
+	//==================================================================
+	//==============================END=================================
+	//==================================================================
+}
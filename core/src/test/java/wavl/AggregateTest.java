@@ -0,0 +1,158 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * AggregateTest
+ *
+ * aggregate() and aggregate(lo, hi) against a fold over the TreeMap sub-map, after every kind of
+ * change: inserts, deletes, upserts, polls, deleteRange, split and join, insertAll, union and rebuild.
+ * FIRST is not commutative, so an aggregate combined out of key order shows up.
+ */
+class AggregateTest {
+
+	private static final WAVLTree.Aggregate SUM = WAVLTree.Aggregate.sum((key, info) -> (long) key * info.length());
+
+	//the smallest key of the items, -1 for none (the keys of the test are not negative)
+	private static final WAVLTree.Aggregate FIRST = new WAVLTree.Aggregate() {
+		public long identity() { return -1; }
+		public long of(int key, String info) { return key; }
+		public long combine(long left, long right) { return left != -1 ? left : right; }
+	};
+
+	private static long fold(WAVLTree.Aggregate aggregate, Map<Integer, String> items)
+	{
+		long result = aggregate.identity();
+		for (Map.Entry<Integer, String> entry : items.entrySet())
+			result = aggregate.combine(result, aggregate.of(entry.getKey(), entry.getValue()));
+		return result;
+	}
+
+	private static void check(WAVLTree tree, TreeMap<Integer, String> expected, Random random)
+	{
+		WAVLTree.Aggregate aggregate = tree.getAggregate();
+		assertEquals(fold(aggregate, expected), tree.aggregate(), "aggregate()");
+		for (int q = 0; q < 30; q++)
+		{
+			int lo = random.nextInt(10100) - 50;
+			int hi = random.nextInt(10100) - 50;
+			assertEquals(lo < hi ? fold(aggregate, expected.subMap(lo, hi)) : aggregate.identity(), tree.aggregate(lo, hi),
+					"aggregate(" + lo + ", " + hi + ")");
+		}
+	}
+
+	private static void run(WAVLTree.Aggregate aggregate, long seed)
+	{
+		Random random = new Random(seed);
+		WAVLTree tree = new WAVLTree();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int i = 0; i < 1000; i++) //the first setAggregate on a non-empty tree copies its nodes
+		{
+			int k = random.nextInt(10000);
+			tree.insert(k, "v" + k);
+			expected.putIfAbsent(k, "v" + k);
+		}
+		tree.setAggregate(aggregate);
+		check(tree, expected, random);
+		for (int round = 0; round < 300; round++)
+		{
+			int k = random.nextInt(10000);
+			switch (random.nextInt(10))
+			{
+				case 0:
+					tree.put(k, "put" + round);
+					expected.put(k, "put" + round);
+					break;
+				case 1:
+					tree.pollFirst();
+					expected.pollFirstEntry();
+					break;
+				case 2:
+					tree.deleteRange(k, k + 200);
+					expected.subMap(k, k + 200).clear();
+					break;
+				case 3:
+				{
+					WAVLTree[] parts = tree.split(k);
+					tree = WAVLTree.concat(parts[0], parts[1]);
+					break;
+				}
+				case 4:
+				{
+					int[] keys = new int[50];
+					String[] values = new String[50];
+					for (int i = 0; i < keys.length; i++)
+					{
+						keys[i] = random.nextInt(10000);
+						values[i] = "all" + round;
+						expected.putIfAbsent(keys[i], values[i]);
+					}
+					tree.insertAll(keys, values);
+					break;
+				}
+				case 5:
+				{
+					WAVLTree other = new WAVLTree();
+					other.setAggregate(aggregate);
+					for (int i = 0; i < 30; i++)
+					{
+						int key = random.nextInt(10000);
+						other.insert(key, "u" + round);
+						expected.putIfAbsent(key, "u" + round);
+					}
+					tree = WAVLTree.union(tree, other);
+					break;
+				}
+				case 6:
+					tree.rebuild();
+					break;
+				case 7:
+					tree.delete(k);
+					expected.remove(k);
+					break;
+				default:
+					tree.insert(k, "v" + k);
+					expected.putIfAbsent(k, "v" + k);
+					break;
+			}
+			assertEquals(aggregate, tree.getAggregate(), "the aggregate is carried over");
+			check(tree, expected, random);
+			if (round % 30 == 0)
+				WAVLInvariants.check(tree, expected);
+		}
+	}
+
+	@Test
+	void sumMatchesFold()
+	{
+		run(SUM, 30);
+	}
+
+	@Test
+	void orderedAggregateMatchesFold()
+	{
+		run(FIRST, 31);
+	}
+
+	@Test
+	void withoutAggregate()
+	{
+		WAVLTree tree = new WAVLTree();
+		assertThrows(IllegalStateException.class, tree::aggregate);
+		tree.setAggregate(SUM);
+		assertEquals(0, tree.aggregate());
+		tree.insert(3, "ab");
+		assertEquals(6, tree.aggregate(0, 10));
+		tree.setAggregate(null);
+		assertNull(tree.getAggregate());
+		assertThrows(IllegalStateException.class, () -> tree.aggregate(0, 10));
+	}
+}
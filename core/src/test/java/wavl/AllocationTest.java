@@ -0,0 +1,96 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * AllocationTest
+ *
+ * Steady-state insert and delete allocate nothing but the new WAVLNode: the rebalancing works on
+ * primitive rank differences. Measured with the thread allocation counter of HotSpot's ThreadMXBean.
+ */
+class AllocationTest {
+
+	private static final int SIZE = 1 << 16;
+	private static final int ROUNDS = 20000;
+	//the counter is exact, but a safepoint or a JIT deoptimization may allocate a few bytes on the way
+	private static final long SLACK = 4096;
+
+	private static com.sun.management.ThreadMXBean threads;
+
+	@BeforeAll
+	static void counter()
+	{
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+				"no thread allocation counter on this JVM");
+		threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	private static long allocated()
+	{
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	//a tree of the even keys below 2*SIZE - the odd keys are inserted and deleted again
+	private static WAVLTree evenTree()
+	{
+		WAVLTree tree = new WAVLTree();
+		for (int i = 0; i < SIZE; i++)
+			tree.insert(2 * i, "v");
+		return tree;
+	}
+
+	@Test
+	void deleteAllocatesNothing()
+	{
+		WAVLTree tree = evenTree();
+		int steps = 0;
+		for (int round = 0; round < 3; round++) //warm up, so the measured run is compiled
+		{
+			for (int i = 0; i < ROUNDS; i++)
+				tree.insert(2 * ((i * 7919) % SIZE) + 1, "v");
+			long before = allocated();
+			for (int i = 0; i < ROUNDS; i++)
+				steps += tree.delete(2 * ((i * 7919) % SIZE) + 1);
+			long bytes = allocated() - before;
+			if (round == 2)
+				assertTrue(bytes <= SLACK, "delete allocated " + bytes + " bytes for " + ROUNDS + " deletes");
+		}
+		assertTrue(steps >= 0);
+		WAVLInvariants.check(tree);
+	}
+
+	@Test
+	void insertAllocatesOnlyTheNode()
+	{
+		WAVLTree tree = evenTree();
+		//the size of one node, measured the same way
+		WAVLTree.WAVLNode[] nodes = new WAVLTree.WAVLNode[ROUNDS];
+		long before = allocated();
+		for (int i = 0; i < ROUNDS; i++)
+			nodes[i] = new WAVLTree.WAVLNode(i, "v");
+		long nodeBytes = allocated() - before;
+		for (int round = 0; round < 3; round++)
+		{
+			before = allocated();
+			for (int i = 0; i < ROUNDS; i++)
+				tree.insert(2 * ((i * 7919) % SIZE) + 1, "v");
+			long bytes = allocated() - before;
+			for (int i = 0; i < ROUNDS; i++)
+				tree.delete(2 * ((i * 7919) % SIZE) + 1);
+			if (round == 2)
+				assertTrue(bytes <= nodeBytes + SLACK,
+						"insert allocated " + bytes + " bytes, " + ROUNDS + " nodes take " + nodeBytes);
+		}
+		assertEquals(SIZE, tree.size());
+		WAVLInvariants.check(tree);
+	}
+}
@@ -0,0 +1,209 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ConcurrentWAVLTreeTest
+ *
+ * Lock-free readers against a writer. The even keys stay in the tree the whole time, while the writer
+ * inserts and deletes the odd keys around them: deletes move items between nodes and rotate, so an
+ * optimistic read that kept a key or info from a torn walk would see a wrong info, or miss an even key.
+ * The locked delegates of the later WAVLTree operations return what WAVLTree returns, and concurrent
+ * polls and range deletes take every item exactly once.
+ */
+class ConcurrentWAVLTreeTest {
+
+	private static final int KEYS = 4000; //even keys 0..KEYS-2 stay, odd keys come and go
+
+	@Test
+	void optimisticReadsDuringWrites() throws InterruptedException
+	{
+		ConcurrentWAVLTree tree = new ConcurrentWAVLTree();
+		for (int k = 0; k < KEYS; k += 2)
+			tree.insert(k, "v" + k);
+		AtomicBoolean stop = new AtomicBoolean();
+		AtomicLong reads = new AtomicLong();
+		ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+		Thread writer = new Thread(() -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			while (!stop.get())
+			{
+				int k = 2 * random.nextInt(KEYS / 2) + 1;
+				if (random.nextBoolean())
+					tree.insert(k, "v" + k);
+				else
+					tree.delete(k);
+			}
+		});
+		List<Thread> readers = new ArrayList<>();
+		for (int r = 0; r < 3; r++)
+			readers.add(new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				while (!stop.get() && errors.size() < 10)
+				{
+					int k = random.nextInt(KEYS);
+					String info = tree.search(k);
+					if (k % 2 == 0 ? !("v" + k).equals(info) : info != null && !info.equals("v" + k))
+						errors.add("search(" + k + ") = " + info);
+					if (k % 2 == 0 && !tree.containsKey(k))
+						errors.add("containsKey(" + k + ") = false");
+					//the even keys below k are all there, the odd ones at most
+					int rank = tree.rank(k);
+					if (rank < k / 2 + 1 || rank > k + 1)
+						errors.add("rank(" + k + ") = " + rank);
+					int size = tree.size();
+					if (size < KEYS / 2 || size > KEYS)
+						errors.add("size() = " + size);
+					int i = 1 + random.nextInt(KEYS / 2);
+					int key = tree.selectKey(i);
+					if (key < i - 1 || key > 2 * (i - 1))
+						errors.add("selectKey(" + i + ") = " + key);
+					String selected = tree.select(i);
+					if (selected == null || !selected.startsWith("v"))
+						errors.add("select(" + i + ") = " + selected);
+					String min = tree.min();
+					String max = tree.max();
+					if (!"v0".equals(min) || !("v" + (KEYS - 1)).equals(max) && !("v" + (KEYS - 2)).equals(max))
+						errors.add("min() = " + min + ", max() = " + max);
+					reads.incrementAndGet();
+				}
+			}));
+		for (Thread reader : readers)
+			reader.start();
+		writer.start();
+		Thread.sleep(1500);
+		stop.set(true);
+		writer.join();
+		for (Thread reader : readers)
+			reader.join();
+		assertTrue(errors.isEmpty(), errors + " in " + reads.get() + " reads");
+		assertTrue(reads.get() > 0);
+		for (int k = 0; k < KEYS; k += 2)
+			assertEquals("v" + k, tree.search(k));
+	}
+
+	@Test
+	void delegatesMatchWAVLTree()
+	{
+		Random random = new Random(39);
+		WAVLTree reference = new WAVLTree();
+		WAVLTree inner = new WAVLTree();
+		WAVLTree.Aggregate sum = WAVLTree.Aggregate.sum((key, info) -> key);
+		reference.setAggregate(sum);
+		ConcurrentWAVLTree tree = new ConcurrentWAVLTree(inner);
+		tree.setAggregate(sum);
+		for (int op = 0; op < 20000; op++)
+		{
+			int k = random.nextInt(5000);
+			switch (random.nextInt(12))
+			{
+				case 0:
+					assertEquals(reference.pollFirst(), tree.pollFirst());
+					break;
+				case 1:
+					assertEquals(reference.pollLast(), tree.pollLast());
+					break;
+				case 2:
+					assertEquals(reference.deleteRange(k, k + 20), tree.deleteRange(k, k + 20));
+					break;
+				case 3:
+				{
+					int[] keys = {k, k + 1, k + 7, k + 100};
+					assertEquals(reference.deleteAll(keys), tree.deleteAll(keys));
+					break;
+				}
+				default:
+					assertEquals(reference.insert(k, "v" + k), tree.insert(k, "v" + k));
+					break;
+			}
+			int q = random.nextInt(5200) - 100;
+			assertEquals(reference.countRange(q, q + 300), tree.countRange(q, q + 300));
+			assertEquals(reference.aggregate(), tree.aggregate());
+			assertEquals(reference.floorKey(q), tree.floorKey(q));
+			assertEquals(reference.ceilingKey(q, Integer.MIN_VALUE), tree.ceilingKey(q, Integer.MIN_VALUE));
+			assertEquals(reference.lowerKey(q), tree.lowerKey(q));
+			assertEquals(reference.higherKey(q, Integer.MIN_VALUE), tree.higherKey(q, Integer.MIN_VALUE));
+			assertEquals(reference.floorValue(q), tree.floorValue(q));
+			assertEquals(reference.ceilingValue(q), tree.ceilingValue(q));
+			assertEquals(reference.lowerValue(q), tree.lowerValue(q));
+			assertEquals(reference.higherValue(q), tree.higherValue(q));
+			assertEquals(reference.peekFirstKey(), tree.peekFirstKey());
+			assertEquals(reference.peekLastKey(Integer.MIN_VALUE), tree.peekLastKey(Integer.MIN_VALUE));
+		}
+		WAVLInvariants.check(inner);
+	}
+
+	//threads that poll from both ends and delete ranges share the items out: none is taken twice or lost
+	@Test
+	void pollsTakeEveryItemOnce() throws InterruptedException
+	{
+		ConcurrentWAVLTree tree = new ConcurrentWAVLTree();
+		int n = 40000;
+		for (int k = 0; k < n; k++)
+			tree.insert(k, "v" + k);
+		List<List<String>> taken = new ArrayList<>();
+		int[] rangeDeleted = new int[4];
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++)
+		{
+			List<String> mine = new ArrayList<>();
+			taken.add(mine);
+			int id = t;
+			threads.add(new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				while (!tree.empty())
+				{
+					String info = null;
+					switch (random.nextInt(5))
+					{
+						case 0:
+						{
+							int lo = random.nextInt(n);
+							rangeDeleted[id] += tree.deleteRange(lo, lo + 10);
+							break;
+						}
+						case 1:
+						case 2:
+							info = tree.pollFirst();
+							break;
+						default:
+							info = tree.pollLast();
+							break;
+					}
+					if (info != null)
+						mine.add(info);
+				}
+			}));
+		}
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+		Set<String> polled = new HashSet<>();
+		int polls = 0;
+		int ranged = 0;
+		for (int t = 0; t < 4; t++)
+		{
+			polled.addAll(taken.get(t));
+			polls += taken.get(t).size();
+			ranged += rangeDeleted[t];
+		}
+		assertEquals(polls, polled.size(), "no item is polled twice");
+		assertEquals(n, polls + ranged, "every item is taken");
+		assertEquals(0, tree.size());
+		assertEquals(-1, tree.peekFirstKey());
+	}
+}
@@ -0,0 +1,123 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * DeleteRangeTest
+ *
+ * deleteRange and deleteAll against TreeMap, for small and large parts of the tree (deleteAll relinks
+ * the survivors once the batch is a quarter of the tree or more).
+ */
+class DeleteRangeTest {
+
+	private static TreeMap<Integer, String> fill(WAVLTree tree, Random random, int n, int range)
+	{
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int i = 0; i < n; i++)
+		{
+			int k = random.nextInt(range);
+			tree.insert(k, "v" + k);
+			expected.putIfAbsent(k, "v" + k);
+		}
+		return expected;
+	}
+
+	@Test
+	void deleteRangeMatchesTreeMap()
+	{
+		Random random = new Random(28);
+		WAVLTree tree = new WAVLTree();
+		TreeMap<Integer, String> expected = fill(tree, random, 5000, 20000);
+		for (int round = 0; round < 400; round++)
+		{
+			int lo = random.nextInt(20200) - 100;
+			int hi = lo + random.nextInt(round % 10 == 0 ? 5000 : 100) - 10;
+			int removed = lo < hi ? expected.subMap(lo, hi).size() : 0;
+			if (lo < hi)
+				expected.subMap(lo, hi).clear();
+			assertEquals(removed, tree.deleteRange(lo, hi), "deleteRange " + lo + ", " + hi);
+			//refill a little, so the tree does not just shrink
+			for (int i = 0; i < 20; i++)
+			{
+				int k = random.nextInt(20000);
+				tree.insert(k, "r" + round);
+				expected.putIfAbsent(k, "r" + round);
+			}
+			if (round % 20 == 0)
+				WAVLInvariants.check(tree, expected);
+		}
+		WAVLInvariants.check(tree, expected);
+	}
+
+	@Test
+	void deleteAllMatchesTreeMap()
+	{
+		Random random = new Random(29);
+		for (int round = 0; round < 40; round++)
+		{
+			WAVLTree tree = new WAVLTree();
+			int range = 10 + random.nextInt(10000);
+			TreeMap<Integer, String> expected = fill(tree, random, random.nextInt(5000), range);
+			//from a few keys to more than the tree holds, with repeats and keys that are not in the tree
+			int[] keys = new int[random.nextInt(round % 2 == 0 ? 50 : 2 * range)];
+			for (int i = 0; i < keys.length; i++)
+				keys[i] = random.nextInt(range + 10) - 5;
+			Arrays.sort(keys);
+			int removed = 0;
+			for (int k : keys)
+				if (expected.remove(k) != null)
+					removed++;
+			assertEquals(removed, tree.deleteAll(keys), "deleteAll of " + keys.length + " keys");
+			WAVLInvariants.check(tree, expected);
+		}
+	}
+
+	//a listener that throws in the middle of the sweep leaves the tree out of finger mode, and usable
+	@Test
+	void deleteAllGivesTheModeBack()
+	{
+		WAVLTree tree = new WAVLTree();
+		TreeMap<Integer, String> expected = fill(tree, new Random(38), 2000, 10000);
+		int[] keys = expected.keySet().stream().mapToInt(Integer::intValue).limit(100).toArray();
+		int[] deletes = {0};
+		tree.setRebalanceListener(new WAVLTree.RebalanceListener() {
+			public void rebalanced(int steps)
+			{
+				if (++deletes[0] == 10)
+					throw new IllegalStateException("listener");
+			}
+		});
+		assertThrows(IllegalStateException.class, () -> tree.deleteAll(keys));
+		assertFalse(tree.isFingerMode());
+		tree.setRebalanceListener(null);
+		for (int i = 0; i < 10; i++)
+			expected.remove(keys[i]);
+		WAVLInvariants.check(tree, expected);
+		assertEquals(90, tree.deleteAll(keys));
+		tree.setFingerMode(true);
+		assertEquals(0, tree.deleteAll(keys));
+		assertTrue(tree.isFingerMode());
+	}
+
+	@Test
+	void unsortedKeysAndEmptyRanges()
+	{
+		WAVLTree tree = new WAVLTree();
+		tree.insert(1, "a");
+		tree.insert(2, "b");
+		assertThrows(IllegalArgumentException.class, () -> tree.deleteAll(new int[] {2, 1}));
+		assertEquals(2, tree.size());
+		assertEquals(0, tree.deleteRange(3, 1));
+		assertEquals(2, tree.deleteRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+		WAVLInvariants.check(tree);
+	}
+}
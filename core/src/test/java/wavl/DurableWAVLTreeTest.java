@@ -0,0 +1,249 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * DurableWAVLTreeTest
+ *
+ * The durable tree against a TreeMap across checkpoints and reopens, with a torn record at the end of
+ * the log, with concurrent writers, and killed (kill -9) while it writes: every acknowledged write
+ * must be there after the restart.
+ */
+class DurableWAVLTreeTest {
+
+	@TempDir
+	Path directory;
+
+	private static void check(DurableWAVLTree tree, TreeMap<Integer, String> expected, String where)
+	{
+		assertEquals(expected.size(), tree.size(), where + ": size");
+		assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), tree.keysToArray(), where + ": keys");
+		assertArrayEquals(expected.values().toArray(new String[0]), tree.infoToArray(), where + ": infos");
+	}
+
+	//small segments and batches, so the log rotates often
+	private DurableWAVLTree open() throws IOException
+	{
+		return DurableWAVLTree.open(directory, 50, 16, 4096);
+	}
+
+	@Test
+	void matchesTreeMapAcrossCheckpointsAndReopens() throws IOException
+	{
+		Random random = new Random(17);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		DurableWAVLTree tree = open();
+		for (int round = 0; round < 30; round++)
+		{
+			for (int op = 0; op < 200; op++)
+			{
+				int k = random.nextInt(2000);
+				if (random.nextInt(3) > 0)
+				{
+					String info = random.nextInt(10) == 0 ? null : "v" + k + "é".repeat(random.nextInt(4));
+					int steps = tree.insert(k, info);
+					assertEquals(expected.containsKey(k), steps == -1, "insert " + k);
+					if (steps != -1) //not putIfAbsent, which replaces a null info
+						expected.put(k, info);
+				}
+				else
+				{
+					int steps = tree.delete(k);
+					assertEquals(!expected.containsKey(k), steps == -1, "delete " + k);
+					expected.remove(k);
+				}
+			}
+			if (random.nextInt(3) == 0)
+				tree.checkpoint();
+			check(tree, expected, "round " + round);
+			if (random.nextBoolean())
+			{
+				tree.close();
+				tree = open();
+				check(tree, expected, "reopened after round " + round);
+			}
+		}
+		tree.close();
+	}
+
+	@Test
+	void tornRecordIsDropped() throws IOException
+	{
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		try (DurableWAVLTree tree = open())
+		{
+			for (int k = 0; k < 500; k++)
+			{
+				tree.insert(k, "v" + k);
+				expected.put(k, "v" + k);
+			}
+		}
+		//the start of a record that never made it to the disk whole
+		Path last = null;
+		try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "wal-*.log"))
+		{
+			for (Path segment : segments)
+				if (last == null || segment.compareTo(last) > 0)
+					last = segment;
+		}
+		assertNotNull(last, "no log segment");
+		Files.write(last, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17}, StandardOpenOption.APPEND);
+		try (DurableWAVLTree tree = open())
+		{
+			check(tree, expected, "torn");
+			tree.insert(99999, "after");
+			expected.put(99999, "after");
+		}
+		try (DurableWAVLTree tree = open())
+		{
+			check(tree, expected, "written after the torn record");
+		}
+	}
+
+	@Test
+	void concurrentWriters() throws Exception
+	{
+		AtomicLong net = new AtomicLong();
+		int[] keys;
+		try (DurableWAVLTree tree = DurableWAVLTree.open(directory))
+		{
+			Thread[] writers = new Thread[6];
+			for (int w = 0; w < writers.length; w++)
+			{
+				writers[w] = new Thread(() -> {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					for (int i = 0; i < 1500; i++)
+					{
+						int k = random.nextInt(50);
+						if (random.nextBoolean())
+						{
+							if (tree.insert(k, "v" + k) != -1)
+								net.incrementAndGet();
+						}
+						else if (tree.delete(k) != -1)
+							net.decrementAndGet();
+						if (i == 700)
+							try
+							{
+								tree.checkpoint();
+							}
+							catch (IOException e)
+							{
+								throw new UncheckedIOException(e);
+							}
+					}
+				});
+				writers[w].start();
+			}
+			for (Thread writer : writers)
+				writer.join();
+			//every successful insert and delete was applied exactly once
+			assertEquals(net.get(), tree.size());
+			keys = tree.keysToArray();
+		}
+		try (DurableWAVLTree tree = DurableWAVLTree.open(directory))
+		{
+			assertArrayEquals(keys, tree.keysToArray());
+		}
+	}
+
+	//a child JVM inserts from four threads and prints every key whose insert returned, until it is killed.
+	//three runs on the same directory, so the recovery also starts from a killed run's checkpoints and log
+	@Test
+	@Timeout(120)
+	void killedWriterKeepsAcknowledgedWrites() throws Exception
+	{
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		List<Integer> acknowledged = new ArrayList<>(); //by all the runs so far
+		for (int run = 0; run < 3; run++)
+		{
+			Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+					KilledWriter.class.getName(), directory.toString(), Integer.toString(run)).redirectErrorStream(true).start();
+			int before = acknowledged.size();
+			List<String> other = new ArrayList<>();
+			try (BufferedReader output = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8)))
+			{
+				long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1000 + 500 * run);
+				String line;
+				while (System.nanoTime() < end && (line = output.readLine()) != null)
+					if (line.startsWith("A"))
+						acknowledged.add(Integer.parseInt(line.substring(1)));
+					else
+						other.add(line);
+				child.destroyForcibly().waitFor();
+			}
+			assertTrue(other.isEmpty(), "child output: " + other);
+			assertTrue(acknowledged.size() > before, "the child acknowledged nothing");
+			try (DurableWAVLTree tree = DurableWAVLTree.open(directory))
+			{
+				for (int k : acknowledged)
+					assertEquals("v" + k, tree.search(k), "acknowledged key " + k + " lost in run " + run);
+				assertTrue(tree.size() >= acknowledged.size());
+			}
+		}
+	}
+
+	//the writer process of killedWriterKeepsAcknowledgedWrites. args: directory, run
+	static final class KilledWriter {
+
+		public static void main(String[] args) throws Exception
+		{
+			DurableWAVLTree tree = DurableWAVLTree.open(Paths.get(args[0]), 0, 1024, 1 << 16);
+			int base = Integer.parseInt(args[1]) << 24; //every run writes its own keys
+			Thread[] writers = new Thread[4];
+			for (int w = 0; w < writers.length; w++)
+			{
+				int id = w;
+				writers[w] = new Thread(() -> {
+					for (int i = 0; ; i++)
+					{
+						int k = base + 4 * i + id;
+						if (tree.insert(k, "v" + k) != -1)
+							synchronized (System.out)
+							{
+								System.out.println("A" + k);
+								System.out.flush();
+							}
+						if (i % 5000 == 4999)
+							try
+							{
+								tree.checkpoint();
+							}
+							catch (IOException e)
+							{
+								throw new UncheckedIOException(e);
+							}
+					}
+				});
+				writers[w].start();
+			}
+			for (Thread writer : writers)
+				writer.join();
+		}
+	}
+}
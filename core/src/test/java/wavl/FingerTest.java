@@ -0,0 +1,90 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * FingerTest
+ *
+ * Finger mode and the explicit fingers (insertNear, searchFrom) against TreeMap: starting a walk from
+ * any node of the tree finds the same place as starting it from the root.
+ */
+class FingerTest {
+
+	@Test
+	void fingerModeMatchesTreeMap()
+	{
+		Random random = new Random(26);
+		for (int jitter : new int[] {0, 3, 64, 100000})
+		{
+			WAVLTree tree = new WAVLTree();
+			tree.setFingerMode(true);
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			for (int op = 0; op < 20000; op++)
+			{
+				//nearly sorted keys, with some deletes and upserts behind the front
+				int k = op * 4 + (jitter == 0 ? 0 : random.nextInt(2 * jitter + 1) - jitter);
+				switch (random.nextInt(8))
+				{
+					case 0:
+						assertEquals(expected.remove(k - 8) != null, tree.delete(k - 8) != -1, "delete " + (k - 8));
+						break;
+					case 1:
+						assertEquals(expected.put(k, "p" + op), tree.put(k, "p" + op), "put " + k);
+						break;
+					default:
+						assertEquals(expected.containsKey(k), tree.insert(k, "v" + op) == -1, "insert " + k);
+						expected.putIfAbsent(k, "v" + op);
+						break;
+				}
+				assertEquals(expected.get(k - 4), tree.search(k - 4), "search " + (k - 4));
+				if (op % 1000 == 0)
+					WAVLInvariants.check(tree, expected);
+			}
+			WAVLInvariants.check(tree, expected);
+		}
+	}
+
+	@Test
+	void explicitFingers()
+	{
+		Random random = new Random(27);
+		WAVLTree tree = new WAVLTree();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		assertEquals(0, tree.insertNear(null, 500, "v500"));
+		expected.put(500, "v500");
+		for (int op = 0; op < 20000; op++)
+		{
+			//a node of the tree as the finger, taken after the last change
+			int[] keys = tree.keysToArray();
+			WAVLTree.WAVLNode finger = keys.length == 0 ? null : tree.findNodeFromKey(keys[random.nextInt(keys.length)]);
+			int k = random.nextInt(5000) - 1000;
+			if (random.nextInt(4) > 0)
+			{
+				assertEquals(expected.containsKey(k), tree.insertNear(finger, k, "v" + k) == -1, "insertNear " + k);
+				expected.putIfAbsent(k, "v" + k);
+			}
+			else
+			{
+				tree.delete(k);
+				expected.remove(k);
+			}
+			int target = random.nextInt(5000) - 1000;
+			keys = tree.keysToArray();
+			finger = keys.length == 0 ? null : tree.findNodeFromKey(keys[random.nextInt(keys.length)]);
+			WAVLTree.WAVLNode found = tree.searchFrom(finger, target);
+			if (expected.containsKey(target))
+				assertEquals(target, found.getKey(), "searchFrom " + target);
+			else
+				assertNull(found, "searchFrom " + target);
+			if (op % 1000 == 0)
+				WAVLInvariants.check(tree, expected);
+		}
+		WAVLInvariants.check(tree, expected);
+	}
+}
@@ -0,0 +1,105 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * FromSortedTest
+ *
+ * fromSorted and rebuild link perfectly balanced trees - every rank is the height of its node - that
+ * keep working as WAVL trees under later inserts and deletes.
+ */
+class FromSortedTest {
+
+	private static int height(WAVLTree.WAVLNode node)
+	{
+		return node == null || !node.isRealNode() ? -1 : 1 + Math.max(height(node.getLeft()), height(node.getRight()));
+	}
+
+	//every node's rank is its height
+	private static void checkPerfect(WAVLTree.WAVLNode node)
+	{
+		if (node == null || !node.isRealNode())
+			return;
+		assertEquals(height(node), node.getRank(), "rank of " + node.getKey());
+		checkPerfect(node.getLeft());
+		checkPerfect(node.getRight());
+	}
+
+	@Test
+	void arraysAndIterators()
+	{
+		for (int n = 0; n < 300; n++)
+		{
+			int[] keys = IntStream.range(0, n).map(i -> 3 * i - 100).toArray();
+			String[] values = Arrays.stream(keys).mapToObj(k -> "v" + k).toArray(String[]::new);
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			for (int i = 0; i < n; i++)
+				expected.put(keys[i], values[i]);
+			WAVLTree tree = WAVLTree.fromSorted(keys, values);
+			WAVLInvariants.check(tree, expected);
+			checkPerfect(tree.getRoot());
+			WAVLTree streamed = WAVLTree.fromSorted(Arrays.stream(keys).iterator(), List.of(values).iterator());
+			WAVLInvariants.check(streamed, expected);
+			checkPerfect(streamed.getRoot());
+		}
+	}
+
+	@Test
+	void builtTreesKeepWorking()
+	{
+		Random random = new Random(22);
+		int[] keys = IntStream.range(0, 5000).map(i -> 2 * i).toArray();
+		WAVLTree tree = WAVLTree.fromSorted(keys, Arrays.stream(keys).mapToObj(k -> "v" + k).toArray(String[]::new));
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int k : keys)
+			expected.put(k, "v" + k);
+		for (int op = 0; op < 20000; op++)
+		{
+			int k = random.nextInt(10000);
+			if (random.nextBoolean())
+			{
+				tree.insert(k, "v" + k);
+				expected.putIfAbsent(k, "v" + k);
+			}
+			else
+			{
+				tree.delete(k);
+				expected.remove(k);
+			}
+			if (op % 5000 == 0)
+			{
+				tree.rebuild();
+				checkPerfect(tree.getRoot());
+			}
+			if (op % 500 == 0)
+				WAVLInvariants.check(tree, expected);
+		}
+		WAVLInvariants.check(tree, expected);
+	}
+
+	@Test
+	void rejectsBadInput()
+	{
+		assertThrows(IllegalArgumentException.class, () -> WAVLTree.fromSorted(new int[] {1, 2}, new String[] {"a"}));
+		assertThrows(IllegalArgumentException.class, () -> WAVLTree.fromSorted(new int[] {1, 1}, new String[] {"a", "b"}));
+		assertThrows(IllegalArgumentException.class, () -> WAVLTree.fromSorted(new int[] {2, 1}, new String[] {"a", "b"}));
+		assertThrows(IllegalArgumentException.class,
+				() -> WAVLTree.fromSorted(IntStream.of(1, 2, 3).iterator(), List.of("a", "b").iterator()));
+		assertThrows(IllegalArgumentException.class,
+				() -> WAVLTree.fromSorted(IntStream.of(1, 2).iterator(), List.of("a", "b", "c").iterator()));
+		WAVLTree empty = WAVLTree.fromSorted(new int[0], new String[0]);
+		assertNull(empty.getRoot());
+		empty.rebuild();
+		WAVLInvariants.check(empty);
+	}
+}
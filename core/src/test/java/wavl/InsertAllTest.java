@@ -0,0 +1,93 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * InsertAllTest
+ *
+ * insertAll of an unsorted batch, with repeated keys and keys already in the tree, gives the tree and
+ * the count of an insert loop over the batch, whatever the cutoff of the parallel merge.
+ */
+class InsertAllTest {
+
+	@Test
+	void matchesInsertLoop()
+	{
+		Random random = new Random(20);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try
+		{
+			for (int round = 0; round < 300; round++)
+			{
+				int n = random.nextInt(round < 200 ? 50 : 20000);
+				int m = random.nextInt(round < 200 ? 50 : 20000);
+				int range = 1 + random.nextInt(2 * (n + m) + 1);
+				WAVLTree tree = new WAVLTree();
+				TreeMap<Integer, String> expected = new TreeMap<>();
+				for (int i = 0; i < n; i++)
+				{
+					int k = random.nextInt(range) - range / 3;
+					tree.insert(k, "old" + k);
+					expected.putIfAbsent(k, "old" + k);
+				}
+				int[] keys = new int[m];
+				String[] values = new String[m];
+				int inserted = 0;
+				for (int i = 0; i < m; i++)
+				{
+					keys[i] = random.nextInt(range) - range / 3;
+					values[i] = "new" + i;
+					if (expected.putIfAbsent(keys[i], values[i]) == null)
+						inserted++;
+				}
+				assertEquals(inserted, tree.insertAll(keys, values, pool, 1 + random.nextInt(64)), "inserted");
+				WAVLInvariants.check(tree, expected);
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void concurrentTreeMatchesInsertLoop()
+	{
+		Random random = new Random(21);
+		ConcurrentWAVLTree tree = new ConcurrentWAVLTree();
+		WAVLTree reference = new WAVLTree();
+		for (int round = 0; round < 20; round++)
+		{
+			int[] keys = new int[1 + random.nextInt(5000)];
+			String[] values = new String[keys.length];
+			int inserted = 0;
+			for (int i = 0; i < keys.length; i++)
+			{
+				keys[i] = random.nextInt(50000);
+				values[i] = "r" + round;
+				if (reference.insert(keys[i], values[i]) != -1)
+					inserted++;
+			}
+			assertEquals(inserted, tree.insertAll(keys, values));
+		}
+		assertArrayEquals(reference.keysToArray(), tree.keysToArray());
+		assertArrayEquals(reference.infoToArray(), tree.infoToArray());
+	}
+
+	@Test
+	void lengthsMustMatch()
+	{
+		WAVLTree tree = new WAVLTree();
+		assertThrows(IllegalArgumentException.class, () -> tree.insertAll(new int[2], new String[1]));
+		assertEquals(0, tree.insertAll(new int[0], new String[0]));
+		WAVLInvariants.check(tree);
+	}
+}
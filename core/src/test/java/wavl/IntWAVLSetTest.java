@@ -0,0 +1,133 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * IntWAVLSetTest
+ *
+ * The set against a TreeSet, running the insert/delete steps of WAVLTree (the same rebalance counts and
+ * ranks), and its cursor against the TreeSet's sub-sets in both directions.
+ */
+class IntWAVLSetTest {
+
+	private static void checkSame(TreeSet<Integer> expected, IntWAVLSet set, int range, Random random)
+	{
+		assertEquals(expected.size(), set.size());
+		assertEquals(expected.isEmpty(), set.empty());
+		assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+		assertEquals(expected.isEmpty() ? -1 : expected.first(), set.min());
+		assertEquals(expected.isEmpty() ? -1 : expected.last(), set.max());
+		int i = 1;
+		for (int k : expected)
+		{
+			assertEquals(k, set.select(i));
+			assertEquals(i, set.rank(k));
+			i++;
+		}
+		assertEquals(-1, set.select(0));
+		assertEquals(-1, set.select(expected.size() + 1));
+		for (int q = 0; q < 50; q++)
+		{
+			int k = random.nextInt(range + 2) - 1;
+			assertEquals(expected.contains(k), set.contains(k), "contains " + k);
+			assertEquals(expected.headSet(k, true).size(), set.rank(k), "rank " + k);
+			int lo = random.nextInt(range + 2) - 1;
+			int hi = random.nextInt(range + 2) - 1;
+			assertEquals(lo < hi ? expected.subSet(lo, hi).size() : 0, set.countRange(lo, hi), "countRange " + lo + ", " + hi);
+		}
+	}
+
+	@Test
+	void sameStepsAsWAVLTree()
+	{
+		Random random = new Random(18);
+		for (int round = 0; round < 40; round++)
+		{
+			int range = 1 + random.nextInt(round < 20 ? 100 : 5000);
+			TreeSet<Integer> expected = new TreeSet<>();
+			WAVLTree reference = new WAVLTree();
+			IntWAVLSet set = new IntWAVLSet(random.nextInt(4));
+			for (int op = 0; op < 3000; op++)
+			{
+				int k = random.nextInt(range);
+				if (random.nextInt(3) > 0)
+				{
+					assertEquals(reference.insert(k, null), set.add(k), "add " + k);
+					expected.add(k);
+				}
+				else
+				{
+					assertEquals(reference.delete(k), set.remove(k), "remove " + k);
+					expected.remove(k);
+				}
+				if (op % 200 == 0)
+				{
+					WAVLInvariants.check(set, reference);
+					checkSame(expected, set, range, random);
+				}
+			}
+			WAVLInvariants.check(set, reference);
+			checkSame(expected, set, range, random);
+		}
+	}
+
+	private static List<Integer> scan(IntWAVLSet.Cursor cursor)
+	{
+		List<Integer> keys = new ArrayList<>();
+		while (cursor.next())
+			keys.add(cursor.key());
+		assertFalse(cursor.next(), "a finished cursor stays finished");
+		return keys;
+	}
+
+	@Test
+	void cursorMatchesSubSets()
+	{
+		Random random = new Random(19);
+		TreeSet<Integer> expected = new TreeSet<>();
+		IntWAVLSet set = new IntWAVLSet();
+		for (int i = 0; i < 3000; i++)
+		{
+			int k = random.nextInt(10000);
+			set.add(k);
+			expected.add(k);
+		}
+		IntWAVLSet.Cursor cursor = set.cursor(); //reused for every scan
+		for (int q = 0; q < 500; q++)
+		{
+			int lo = random.nextInt(10200) - 100;
+			int hi = random.nextInt(10200) - 100;
+			NavigableSet<Integer> range = lo < hi ? expected.subSet(lo, true, hi, false) : new TreeSet<>();
+			assertEquals(new ArrayList<>(range), scan(cursor.forward(lo, hi)), "forward " + lo + ", " + hi);
+			assertEquals(new ArrayList<>(range.descendingSet()), scan(cursor.backward(lo, hi)), "backward " + lo + ", " + hi);
+		}
+		assertEquals(new ArrayList<>(expected), scan(cursor.forward(Integer.MIN_VALUE, Integer.MAX_VALUE)));
+		assertEquals(expected.size(), set.countRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+	}
+
+	@Test
+	void extremeKeys()
+	{
+		IntWAVLSet set = new IntWAVLSet();
+		int[] keys = {Integer.MIN_VALUE, -5, 0, 7, Integer.MAX_VALUE};
+		for (int k : keys)
+			set.add(k);
+		assertArrayEquals(keys, set.toArray());
+		assertEquals(1, set.countRange(Integer.MIN_VALUE, -5));
+		assertEquals(4, set.countRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+		assertEquals(5, set.rank(Integer.MAX_VALUE));
+		assertEquals(-1, set.add(0));
+		assertEquals(-1, set.remove(1));
+		WAVLInvariants.check(set, null);
+	}
+}
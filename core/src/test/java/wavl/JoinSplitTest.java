@@ -0,0 +1,135 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * JoinSplitTest
+ *
+ * join, concat and split against TreeMap headMap/tailMap, on trees of very different ranks, with the
+ * invariants checked on every result.
+ */
+class JoinSplitTest {
+
+	private static WAVLTree tree(TreeMap<Integer, String> items)
+	{
+		WAVLTree tree = new WAVLTree();
+		for (int k : items.keySet())
+			tree.insert(k, items.get(k));
+		return tree;
+	}
+
+	private static TreeMap<Integer, String> randomItems(Random random, int n, int lo, int hi)
+	{
+		TreeMap<Integer, String> items = new TreeMap<>();
+		while (items.size() < n && items.size() < hi - lo)
+		{
+			int k = lo + random.nextInt(hi - lo);
+			items.put(k, "v" + k);
+		}
+		return items;
+	}
+
+	@Test
+	void joinMatchesTreeMap()
+	{
+		Random random = new Random(4);
+		int[] sizes = {0, 1, 2, 5, 30, 500, 3000};
+		for (int leftSize : sizes)
+			for (int rightSize : sizes)
+			{
+				TreeMap<Integer, String> left = randomItems(random, leftSize, 0, 100000);
+				TreeMap<Integer, String> right = randomItems(random, rightSize, 100001, 200000);
+				TreeMap<Integer, String> expected = new TreeMap<>(left);
+				expected.put(100000, "middle");
+				expected.putAll(right);
+				WAVLTree a = tree(left);
+				WAVLTree b = tree(right);
+				WAVLTree joined = WAVLTree.join(a, 100000, "middle", b);
+				WAVLInvariants.check(joined, expected);
+				assertTrue(a.empty() && b.empty(), "join empties its arguments");
+				//the joined tree keeps working
+				joined.insert(-1, "v-1");
+				joined.delete(100000);
+				expected.put(-1, "v-1");
+				expected.remove(100000);
+				WAVLInvariants.check(joined, expected);
+			}
+	}
+
+	@Test
+	void concatMatchesTreeMap()
+	{
+		Random random = new Random(5);
+		int[] sizes = {0, 1, 7, 400, 2500};
+		for (int leftSize : sizes)
+			for (int rightSize : sizes)
+			{
+				TreeMap<Integer, String> left = randomItems(random, leftSize, 0, 50000);
+				TreeMap<Integer, String> right = randomItems(random, rightSize, 50000, 100000);
+				TreeMap<Integer, String> expected = new TreeMap<>(left);
+				expected.putAll(right);
+				WAVLTree joined = WAVLTree.concat(tree(left), tree(right));
+				WAVLInvariants.check(joined, expected);
+			}
+	}
+
+	@Test
+	void splitMatchesTreeMap()
+	{
+		Random random = new Random(6);
+		for (int round = 0; round < 200; round++)
+		{
+			TreeMap<Integer, String> items = randomItems(random, random.nextInt(2000), 0, 5000);
+			int k = random.nextInt(5200) - 100;
+			WAVLTree tree = tree(items);
+			WAVLTree[] parts = tree.split(k);
+			WAVLInvariants.check(parts[0], new TreeMap<>(items.headMap(k, false)));
+			WAVLInvariants.check(parts[1], new TreeMap<>(items.tailMap(k, true)));
+			assertTrue(tree.empty(), "split empties the tree");
+			//and back together
+			WAVLInvariants.check(WAVLTree.concat(parts[0], parts[1]), items);
+		}
+	}
+
+	@Test
+	void repeatedSplitsAndJoins()
+	{
+		Random random = new Random(7);
+		TreeMap<Integer, String> expected = randomItems(random, 4000, 0, 20000);
+		WAVLTree tree = tree(expected);
+		for (int round = 0; round < 300; round++)
+		{
+			int k = random.nextInt(20000);
+			WAVLTree[] parts = tree.split(k);
+			if (expected.containsKey(k))
+				assertEquals(1, parts[1].rank(k), "k is the minimum of the greater part");
+			parts[1].delete(k);
+			tree = WAVLTree.join(parts[0], k, "m" + round, parts[1]);
+			expected.put(k, "m" + round);
+			if (round % 10 == 0)
+				WAVLInvariants.check(tree, expected);
+		}
+		WAVLInvariants.check(tree, expected);
+	}
+
+	@Test
+	void joinRejectsOverlappingKeys()
+	{
+		WAVLTree left = new WAVLTree();
+		left.insert(5, "a");
+		WAVLTree right = new WAVLTree();
+		right.insert(9, "b");
+		assertThrows(IllegalArgumentException.class, () -> WAVLTree.join(left, 5, "x", right));
+		assertThrows(IllegalArgumentException.class, () -> WAVLTree.join(left, 9, "x", right));
+		assertThrows(IllegalArgumentException.class, () -> WAVLTree.concat(right, left));
+		assertEquals(1, left.size());
+		assertEquals(1, right.size());
+	}
+}
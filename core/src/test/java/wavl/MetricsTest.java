@@ -0,0 +1,207 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * MetricsTest
+ *
+ * The rebalance listener sees every rank change, the ones of the rotations included (promotions minus
+ * demotions is the change of the sum of the ranks), and WAVLMetrics adds up what
+ * the trees report: one cascade length per insert or delete (the returned count) and one depth
+ * per walk down, published over JMX.
+ */
+class MetricsTest {
+
+	//the calls a tree makes, as a list of names
+	private static final class Events implements WAVLTree.RebalanceListener {
+
+		final List<String> calls = new ArrayList<>();
+
+		public void promoted() { calls.add("promoted"); }
+		public void demoted() { calls.add("demoted"); }
+		public void rotated(boolean twice) { calls.add(twice ? "rotated twice" : "rotated"); }
+		public void deleteStep() { calls.add("deleteStep"); }
+		public void rebalanced(int steps) { calls.add("rebalanced " + steps); }
+	}
+
+	//the calls of the delete of k, from a tree built by inserting keys in order (sign -1 mirrors the tree)
+	private static List<String> deleteCalls(int sign, int k, int... keys)
+	{
+		WAVLTree tree = new WAVLTree();
+		for (int key : keys)
+			tree.insert(sign * key, "v");
+		Events events = new Events();
+		tree.setRebalanceListener(events);
+		tree.delete(sign * k);
+		WAVLInvariants.check(tree);
+		return events.calls;
+	}
+
+	//the calls of the last insert of keys
+	private static List<String> insertCalls(int sign, int... keys)
+	{
+		WAVLTree tree = new WAVLTree();
+		for (int i = 0; i < keys.length - 1; i++)
+			tree.insert(sign * keys[i], "v");
+		Events events = new Events();
+		tree.setRebalanceListener(events);
+		tree.insert(sign * keys[keys.length - 1], "v");
+		WAVLInvariants.check(tree);
+		return events.calls;
+	}
+
+	//a double rotation of insert demotes both rotated nodes and promotes the new subtree root
+	@Test
+	void insertRotationsReportTheirRankChanges()
+	{
+		for (int sign : new int[] {1, -1})
+		{
+			assertEquals(List.of("promoted", "demoted", "demoted", "promoted", "rotated twice", "rebalanced 3"),
+					insertCalls(sign, 1, 3, 2));
+			assertEquals(List.of("promoted", "demoted", "rotated", "rebalanced 2"), insertCalls(sign, 1, 2, 3));
+		}
+	}
+
+	//a single rotation demotes the old root, promotes the new one, and the old root - left a 2,2 leaf - is demoted again
+	@Test
+	void singleRotationDemotesTheLeaf()
+	{
+		for (int sign : new int[] {1, -1})
+			assertEquals(List.of("deleteStep", "demoted", "promoted", "rotated", "demoted", "rebalanced 1"),
+					deleteCalls(sign, 1, 1, 3, 2, 4));
+	}
+
+	//a double rotation of delete: the 3,1 node loses two ranks, its child one, and the new subtree root gains two
+	@Test
+	void doubleRotationDemotes()
+	{
+		for (int sign : new int[] {1, -1})
+			assertEquals(List.of("deleteStep", "demoted", "demoted", "demoted", "promoted", "promoted", "rotated twice", "rebalanced 2"),
+					deleteCalls(sign, 1, 4, 1, 2, 3));
+	}
+
+	//the demotion of the root is a step too
+	@Test
+	void rootDemotionIsCounted()
+	{
+		for (int sign : new int[] {1, -1})
+			assertEquals(List.of("deleteStep", "demoted", "rebalanced 1"), deleteCalls(sign, 2, 1, 2));
+		WAVLTree tree = new WAVLTree();
+		tree.insert(1, "a");
+		tree.insert(2, "b");
+		assertEquals(1, tree.delete(2));
+	}
+
+	private static long rankSum(WAVLTree.WAVLNode node)
+	{
+		return node == null || !node.isRealNode() ? 0 : node.getRank() + rankSum(node.getLeft()) + rankSum(node.getRight());
+	}
+
+	//promotions - demotions is the change of the sum of the ranks, apart from the node a change adds
+	//(a leaf, rank 0) or unlinks (the node of k, or its successor if it is binary: rank 0 for a leaf, 1 for a unary node)
+	@Test
+	void rankChangesAddUp()
+	{
+		Random random = new Random(35);
+		WAVLTree tree = new WAVLTree();
+		WAVLMetrics metrics = new WAVLMetrics();
+		tree.setRebalanceListener(metrics);
+		long ranks = 0;
+		for (int op = 0; op < 20000; op++)
+		{
+			int k = random.nextInt(300);
+			long unlinked = 0;
+			if (random.nextInt(5) < 2)
+			{
+				WAVLTree.WAVLNode node = tree.findNodeFromKey(k);
+				if (node != null)
+				{
+					if (node.getLeft().isRealNode() && node.getRight().isRealNode())
+						node = tree.successor(node);
+					unlinked = node.getLeft().isRealNode() || node.getRight().isRealNode() ? 1 : 0;
+				}
+				tree.delete(k);
+			}
+			else
+				tree.insert(k, "v");
+			long after = rankSum(tree.getRoot());
+			assertEquals(after - ranks + unlinked, metrics.getPromotions() - metrics.getDemotions(), "op " + op);
+			metrics.reset();
+			ranks = after;
+		}
+	}
+
+	@Test
+	void metricsAddUp() throws JMException
+	{
+		Random random = new Random(34);
+		WAVLTree tree = new WAVLTree();
+		WAVLMetrics metrics = new WAVLMetrics();
+		tree.setRebalanceListener(metrics);
+		long steps = 0;
+		int changes = 0;
+		int searches = 0;
+		for (int op = 0; op < 50000; op++)
+		{
+			int k = random.nextInt(20000);
+			int result;
+			switch (random.nextInt(4))
+			{
+				case 0:
+					result = tree.delete(k);
+					break;
+				case 1:
+					tree.search(k);
+					searches++;
+					result = -1;
+					break;
+				default:
+					result = tree.insert(k, "v");
+					break;
+			}
+			if (result != -1)
+			{
+				steps += result;
+				changes++;
+			}
+		}
+		assertEquals(changes, metrics.getOperations());
+		long[] cascades = metrics.getCascadeLengths();
+		long cascadeSteps = 0;
+		for (int i = 0; i < cascades.length; i++)
+			cascadeSteps += i * cascades[i];
+		assertEquals(steps, cascadeSteps, "the cascade histogram adds up to the returned counts");
+		assertTrue(metrics.getSearches() >= searches);
+		long[] depths = metrics.getSearchDepths();
+		for (int depth = 2 * 15 + 1; depth < depths.length; depth++) //the height of a WAVL tree is at most 2log(n)
+			assertEquals(0, depths[depth], "walks of depth " + depth);
+		assertTrue(metrics.getPromotions() > 0 && metrics.getDemotions() > 0 && metrics.getSingleRotations() > 0
+				&& metrics.getDoubleRotations() > 0 && metrics.getDeleteSteps() > 0);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = metrics.register("MetricsTest");
+		try
+		{
+			assertEquals(metrics.getPromotions(), server.getAttribute(name, "Promotions"));
+			metrics.reset();
+			assertEquals(0L, server.getAttribute(name, "Demotions"));
+			assertEquals(0L, metrics.getOperations());
+		}
+		finally
+		{
+			server.unregisterMBean(name);
+		}
+	}
+}
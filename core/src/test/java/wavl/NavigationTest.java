@@ -0,0 +1,95 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * NavigationTest
+ *
+ * floor, ceiling, lower and higher (key and info forms) and successor/predecessor against TreeMap.
+ */
+class NavigationTest {
+
+	private static final int NOT_FOUND = Integer.MIN_VALUE;
+
+	private static int key(Map.Entry<Integer, String> entry)
+	{
+		return entry == null ? NOT_FOUND : entry.getKey();
+	}
+
+	private static String value(Map.Entry<Integer, String> entry)
+	{
+		return entry == null ? null : entry.getValue();
+	}
+
+	@Test
+	void matchesTreeMap()
+	{
+		Random random = new Random(24);
+		for (int round = 0; round < 20; round++)
+		{
+			WAVLTree tree = new WAVLTree();
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			int range = 1 + random.nextInt(3000);
+			for (int op = 0; op < 2000; op++)
+			{
+				int k = random.nextInt(range) - range / 2; //-1 is a real key here
+				if (random.nextInt(3) > 0)
+				{
+					tree.insert(k, "v" + k);
+					expected.putIfAbsent(k, "v" + k);
+				}
+				else
+				{
+					tree.delete(k);
+					expected.remove(k);
+				}
+			}
+			for (int k = -range / 2 - 2; k <= range / 2 + 2; k++)
+			{
+				assertEquals(key(expected.floorEntry(k)), tree.floorKey(k, NOT_FOUND), "floorKey " + k);
+				assertEquals(key(expected.ceilingEntry(k)), tree.ceilingKey(k, NOT_FOUND), "ceilingKey " + k);
+				assertEquals(key(expected.lowerEntry(k)), tree.lowerKey(k, NOT_FOUND), "lowerKey " + k);
+				assertEquals(key(expected.higherEntry(k)), tree.higherKey(k, NOT_FOUND), "higherKey " + k);
+				assertEquals(value(expected.floorEntry(k)), tree.floorValue(k), "floorValue " + k);
+				assertEquals(value(expected.ceilingEntry(k)), tree.ceilingValue(k), "ceilingValue " + k);
+				assertEquals(value(expected.lowerEntry(k)), tree.lowerValue(k), "lowerValue " + k);
+				assertEquals(value(expected.higherEntry(k)), tree.higherValue(k), "higherValue " + k);
+			}
+			//a walk along the successor links, and back along the predecessor links
+			WAVLTree.WAVLNode node = expected.isEmpty() ? null : tree.findNodeFromKey(expected.firstKey());
+			for (int k : expected.keySet())
+			{
+				assertEquals(k, node.getKey());
+				node = tree.successor(node);
+			}
+			assertNull(node);
+			node = expected.isEmpty() ? null : tree.findNodeFromKey(expected.lastKey());
+			for (int k : expected.descendingKeySet())
+			{
+				assertEquals(k, node.getKey());
+				node = tree.predecessor(node);
+			}
+			assertNull(node);
+		}
+	}
+
+	@Test
+	void defaultNotFound()
+	{
+		WAVLTree tree = new WAVLTree();
+		assertEquals(-1, tree.floorKey(5));
+		assertEquals(-1, tree.higherKey(5));
+		tree.insert(3, "a");
+		assertEquals(3, tree.floorKey(5));
+		assertEquals(-1, tree.ceilingKey(5));
+		assertEquals(-1, tree.lowerKey(3));
+		assertEquals(3, tree.higherKey(2));
+	}
+}
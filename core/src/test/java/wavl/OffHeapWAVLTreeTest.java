@@ -0,0 +1,152 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * OffHeapWAVLTreeTest
+ *
+ * The off-heap tree gives the results of PooledWAVLTree, step for step, and has the ranks of WAVLTree in
+ * every node (the rank and rotation steps are SlotWAVLCore's, shared with the pooled tree). Its info strings (UTF-8
+ * encoded, or null) survive the compaction of the value area, and a closed tree refuses to be used.
+ */
+class OffHeapWAVLTreeTest {
+
+	//an info string of 0-20 chars, some of them outside ASCII, or null
+	private static String randomInfo(Random random)
+	{
+		if (random.nextInt(20) == 0)
+			return null;
+		StringBuilder info = new StringBuilder();
+		for (int n = random.nextInt(21); n > 0; n--)
+			info.append(random.nextInt(4) == 0 ? (char) (0x3b1 + random.nextInt(24)) : (char) ('a' + random.nextInt(26)));
+		if (random.nextInt(10) == 0)
+			info.append("🌳"); //a surrogate pair, 4 bytes of UTF-8
+		return info.toString();
+	}
+
+	@Test
+	void sameResultsAsPooledWAVLTree()
+	{
+		Random random = new Random(15);
+		for (int round = 0; round < 20; round++)
+		{
+			int range = 1 + random.nextInt(round < 10 ? 200 : 20000);
+			PooledWAVLTree reference = new PooledWAVLTree();
+			try (OffHeapWAVLTree tree = new OffHeapWAVLTree())
+			{
+				for (int op = 0; op < 5000; op++)
+				{
+					int k = random.nextInt(range);
+					if (random.nextInt(3) > 0)
+					{
+						String info = randomInfo(random);
+						assertEquals(reference.insert(k, info), tree.insert(k, info), "insert " + k);
+					}
+					else
+						assertEquals(reference.delete(k), tree.delete(k), "delete " + k);
+				}
+				assertEquals(reference.size(), tree.size());
+				assertArrayEquals(reference.keysToArray(), tree.keysToArray());
+				assertArrayEquals(reference.infoToArray(), tree.infoToArray());
+				assertEquals(reference.min(), tree.min());
+				assertEquals(reference.max(), tree.max());
+				for (int i = 1; i <= reference.size(); i += 1 + random.nextInt(5))
+				{
+					assertEquals(reference.select(i), tree.select(i));
+					assertEquals(reference.selectKey(i), tree.selectKey(i));
+				}
+				for (int k = -1; k <= range; k += 1 + random.nextInt(5))
+				{
+					assertEquals(reference.search(k), tree.search(k), "search " + k);
+					assertEquals(reference.rank(k), tree.rank(k), "rank " + k);
+				}
+				if (!reference.empty())
+					assertArrayEquals(reference.selectRange(1, reference.size()), tree.selectRange(1, tree.size()));
+			}
+		}
+	}
+
+	//the structure and the ranks, checked through the node records, against the same steps on WAVLTree
+	@Test
+	void sameStepsAsWAVLTree()
+	{
+		Random random = new Random(40);
+		for (int round = 0; round < 40; round++)
+		{
+			int range = 1 + random.nextInt(round < 20 ? 100 : 5000);
+			WAVLTree reference = new WAVLTree();
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			try (OffHeapWAVLTree tree = new OffHeapWAVLTree())
+			{
+				for (int op = 0; op < 3000; op++)
+				{
+					int k = random.nextInt(range);
+					if (random.nextInt(3) > 0)
+					{
+						assertEquals(reference.insert(k, "v" + k), tree.insert(k, "v" + k), "insert " + k);
+						expected.putIfAbsent(k, "v" + k);
+					}
+					else
+					{
+						assertEquals(reference.delete(k), tree.delete(k), "delete " + k);
+						expected.remove(k);
+					}
+					if (op % 150 == 0)
+						WAVLInvariants.check(tree, reference);
+				}
+				WAVLInvariants.check(tree, reference);
+				assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), tree.keysToArray());
+				assertArrayEquals(expected.values().toArray(new String[0]), tree.infoToArray());
+			}
+		}
+	}
+
+	//about 100MB of 2KB infos go through the 16MB value chunks, so the value area is compacted several times
+	@Test
+	void infosSurviveCompaction()
+	{
+		Random random = new Random(16);
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		try (OffHeapWAVLTree tree = new OffHeapWAVLTree())
+		{
+			for (int op = 0; op < 100000; op++)
+			{
+				int k = random.nextInt(3000);
+				if (expected.containsKey(k))
+				{
+					tree.delete(k);
+					expected.remove(k);
+				}
+				else
+				{
+					String info = k + ":" + "x".repeat(2000) + op;
+					tree.insert(k, info);
+					expected.put(k, info);
+				}
+			}
+			assertArrayEquals(expected.values().toArray(new String[0]), tree.infoToArray());
+			//about 3MB are live, and the garbage is compacted once it is more than the live info and than a chunk
+			assertTrue(tree.offHeapBytes() <= 3L * (1 << 24) + (2 << 20), "reserved " + tree.offHeapBytes() + " bytes");
+		}
+	}
+
+	@Test
+	void closedTree()
+	{
+		OffHeapWAVLTree tree = new OffHeapWAVLTree();
+		tree.insert(1, "a");
+		tree.close();
+		tree.close();
+		assertThrows(IllegalStateException.class, () -> tree.search(1));
+		assertThrows(IllegalStateException.class, () -> tree.insert(2, "b"));
+		assertThrows(IllegalStateException.class, tree::offHeapBytes);
+	}
+}
@@ -0,0 +1,167 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * PersistentWAVLTreeTest
+ *
+ * The persistent tree runs the insert/delete steps of WAVLTree: the same rebalance counts and the same
+ * ranks. A snapshot keeps its version whatever is written after it, also while other threads read it.
+ */
+class PersistentWAVLTreeTest {
+
+	private static int[] keys(TreeMap<Integer, String> items)
+	{
+		return items.keySet().stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	private static void checkSnapshot(PersistentWAVLTree.Snapshot snapshot, TreeMap<Integer, String> expected)
+	{
+		WAVLInvariants.check(snapshot.root, null, Long.MIN_VALUE, Long.MAX_VALUE);
+		assertEquals(expected.size(), snapshot.size());
+		assertArrayEquals(keys(expected), snapshot.keysToArray());
+		assertArrayEquals(expected.values().toArray(new String[0]), snapshot.infoToArray());
+		for (int k : expected.keySet())
+		{
+			assertEquals(expected.get(k), snapshot.search(k));
+			assertEquals(k, snapshot.selectKey(snapshot.rank(k)));
+		}
+	}
+
+	@Test
+	void sameStepsAsWAVLTree()
+	{
+		Random random = new Random(11);
+		for (int round = 0; round < 10; round++)
+		{
+			int range = 10 + random.nextInt(3000);
+			WAVLTree reference = new WAVLTree();
+			PersistentWAVLTree tree = new PersistentWAVLTree();
+			for (int op = 0; op < 6000; op++)
+			{
+				int k = random.nextInt(range);
+				if (random.nextInt(10) < 6)
+					assertEquals(reference.insert(k, "v" + k), tree.insert(k, "v" + k), "insert " + k);
+				else
+					assertEquals(reference.delete(k), tree.delete(k), "delete " + k);
+				if (random.nextInt(100) == 0)
+					tree.snapshot(); //later writes copy the paths this snapshot shares
+				if (op % 101 == 0)
+					WAVLInvariants.check(tree.root, reference, Long.MIN_VALUE, Long.MAX_VALUE);
+			}
+			WAVLInvariants.check(tree.root, reference, Long.MIN_VALUE, Long.MAX_VALUE);
+			assertArrayEquals(reference.keysToArray(), tree.keysToArray());
+			assertArrayEquals(reference.infoToArray(), tree.infoToArray());
+			for (int i = 1; i <= tree.size(); i++)
+				assertEquals(reference.selectKey(i), tree.selectKey(i));
+			for (int k = -1; k <= range; k++)
+			{
+				assertEquals(reference.rank(k), tree.rank(k), "rank " + k);
+				assertEquals(reference.search(k), tree.search(k), "search " + k);
+			}
+			assertEquals(reference.min(), tree.min());
+			assertEquals(reference.max(), tree.max());
+		}
+	}
+
+	@Test
+	void snapshotsKeepTheirVersion()
+	{
+		Random random = new Random(12);
+		PersistentWAVLTree tree = new PersistentWAVLTree();
+		TreeMap<Integer, String> current = new TreeMap<>();
+		List<PersistentWAVLTree.Snapshot> snapshots = new ArrayList<>();
+		List<TreeMap<Integer, String>> versions = new ArrayList<>();
+		for (int op = 0; op < 20000; op++)
+		{
+			int k = random.nextInt(2000);
+			if (random.nextInt(10) < 6)
+			{
+				tree.insert(k, "v" + op);
+				current.putIfAbsent(k, "v" + op);
+			}
+			else
+			{
+				tree.delete(k);
+				current.remove(k);
+			}
+			if (random.nextInt(200) == 0)
+			{
+				snapshots.add(tree.snapshot());
+				versions.add(new TreeMap<>(current));
+			}
+		}
+		for (int s = 0; s < snapshots.size(); s++)
+			checkSnapshot(snapshots.get(s), versions.get(s));
+		assertThrows(UnsupportedOperationException.class, () -> snapshots.get(0).insert(1, "x"));
+		assertThrows(UnsupportedOperationException.class, () -> snapshots.get(0).delete(1));
+	}
+
+	//readers scan the latest published snapshot twice while a writer keeps changing the tree
+	@Test
+	void concurrentSnapshotReaders() throws InterruptedException
+	{
+		PersistentWAVLTree tree = new PersistentWAVLTree();
+		for (int i = 0; i < 5000; i++)
+			tree.insert(i, "v" + i);
+		AtomicBoolean stop = new AtomicBoolean();
+		AtomicLong bad = new AtomicLong();
+		AtomicLong scans = new AtomicLong();
+		AtomicReference<PersistentWAVLTree.Snapshot> published = new AtomicReference<>(tree.snapshot());
+		Thread writer = new Thread(() -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for (int n = 1; !stop.get(); n++)
+			{
+				int k = random.nextInt(10000);
+				if (random.nextBoolean())
+					tree.insert(k, "v" + k);
+				else
+					tree.delete(k);
+				if (n % 100 == 0)
+					published.set(tree.snapshot());
+			}
+		});
+		Thread[] readers = new Thread[3];
+		for (int r = 0; r < readers.length; r++)
+		{
+			readers[r] = new Thread(() -> {
+				while (!stop.get())
+				{
+					PersistentWAVLTree.Snapshot snapshot = published.get();
+					int[] first = snapshot.keysToArray();
+					Thread.yield();
+					int[] second = snapshot.keysToArray();
+					boolean ok = Arrays.equals(first, second) && first.length == snapshot.size();
+					for (int j = 0; ok && j < first.length; j++)
+						ok = (j == 0 || first[j-1] < first[j]) && ("v" + first[j]).equals(snapshot.search(first[j]));
+					if (!ok)
+						bad.incrementAndGet();
+					scans.incrementAndGet();
+				}
+			});
+			readers[r].start();
+		}
+		writer.start();
+		Thread.sleep(1500);
+		stop.set(true);
+		writer.join();
+		for (Thread reader : readers)
+			reader.join();
+		assertEquals(0, bad.get(), "changed snapshots out of " + scans.get() + " scans");
+		WAVLInvariants.check(tree.root, null, Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+}
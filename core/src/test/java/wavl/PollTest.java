@@ -0,0 +1,67 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * PollTest
+ *
+ * The cached min/max nodes through inserts, deletes, pollFirst and pollLast (a priority queue
+ * workload), checked against TreeMap after every operation.
+ */
+class PollTest {
+
+	private static String value(Map.Entry<Integer, String> entry)
+	{
+		return entry == null ? null : entry.getValue();
+	}
+
+	@Test
+	void priorityQueueMatchesTreeMap()
+	{
+		Random random = new Random(25);
+		WAVLTree tree = new WAVLTree();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int op = 0; op < 30000; op++)
+		{
+			int k = random.nextInt(2000) - 1000; //-1 is a real key
+			switch (random.nextInt(5))
+			{
+				case 0:
+					assertEquals(value(expected.pollFirstEntry()), tree.pollFirst());
+					break;
+				case 1:
+					assertEquals(value(expected.pollLastEntry()), tree.pollLast());
+					break;
+				case 2:
+					tree.delete(k);
+					expected.remove(k);
+					break;
+				default:
+					tree.insert(k, "v" + k);
+					expected.putIfAbsent(k, "v" + k);
+					break;
+			}
+			assertEquals(value(expected.firstEntry()), tree.min(), "min");
+			assertEquals(value(expected.lastEntry()), tree.max(), "max");
+			assertEquals(expected.isEmpty() ? Integer.MAX_VALUE : expected.firstKey(), tree.peekFirstKey(Integer.MAX_VALUE));
+			assertEquals(expected.isEmpty() ? Integer.MIN_VALUE : expected.lastKey(), tree.peekLastKey(Integer.MIN_VALUE));
+			if (op % 1000 == 0)
+				WAVLInvariants.check(tree, expected);
+		}
+		//drain it
+		while (!expected.isEmpty())
+			assertEquals(expected.pollFirstEntry().getValue(), tree.pollFirst());
+		assertNull(tree.pollFirst());
+		assertNull(tree.pollLast());
+		assertEquals(-1, tree.peekFirstKey());
+		assertEquals(-1, tree.peekLastKey());
+		WAVLInvariants.check(tree, expected);
+	}
+}
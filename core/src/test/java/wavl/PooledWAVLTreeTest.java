@@ -0,0 +1,85 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * PooledWAVLTreeTest
+ *
+ * The pooled tree runs the insert/delete steps of WAVLTree: the same rebalance counts, the same rank in
+ * every slot and the same answers, from tiny initial capacities (the arrays grow) and with the free
+ * list reusing the deleted slots.
+ */
+class PooledWAVLTreeTest {
+
+	private static void checkSame(WAVLTree reference, PooledWAVLTree tree, int range, Random random)
+	{
+		WAVLInvariants.check(tree, reference);
+		assertEquals(reference.size(), tree.size());
+		assertEquals(reference.empty(), tree.empty());
+		assertArrayEquals(reference.keysToArray(), tree.keysToArray());
+		assertArrayEquals(reference.infoToArray(), tree.infoToArray());
+		assertEquals(reference.min(), tree.min());
+		assertEquals(reference.max(), tree.max());
+		for (int q = 0; q < 20; q++)
+		{
+			int k = random.nextInt(range + 2) - 1;
+			assertEquals(reference.search(k), tree.search(k), "search " + k);
+			assertEquals(reference.rank(k), tree.rank(k), "rank " + k);
+			if (!reference.empty())
+			{
+				int i = 1 + random.nextInt(reference.size());
+				assertEquals(reference.select(i), tree.select(i));
+				assertEquals(reference.selectKey(i), tree.selectKey(i));
+				assertArrayEquals(reference.selectRange(i, reference.size()), tree.selectRange(i, tree.size()));
+			}
+		}
+	}
+
+	@Test
+	void sameStepsAsWAVLTree()
+	{
+		Random random = new Random(13);
+		for (int round = 0; round < 60; round++)
+		{
+			int range = 1 + random.nextInt(round < 30 ? 100 : 5000);
+			WAVLTree reference = new WAVLTree();
+			PooledWAVLTree tree = new PooledWAVLTree(random.nextInt(4));
+			for (int op = 0; op < 3000; op++)
+			{
+				int k = random.nextInt(range);
+				if (random.nextInt(3) > 0)
+					assertEquals(reference.insert(k, "v" + k), tree.insert(k, "v" + k), "insert " + k);
+				else
+					assertEquals(reference.delete(k), tree.delete(k), "delete " + k);
+				if (op % 150 == 0)
+					checkSame(reference, tree, range, random);
+			}
+			checkSame(reference, tree, range, random);
+		}
+	}
+
+	@Test
+	void emptiedAndRefilled()
+	{
+		Random random = new Random(14);
+		WAVLTree reference = new WAVLTree();
+		PooledWAVLTree tree = new PooledWAVLTree();
+		for (int round = 0; round < 5; round++)
+		{
+			for (int i = 0; i < 2000; i++)
+			{
+				int k = random.nextInt(4000);
+				assertEquals(reference.insert(k, "r" + round), tree.insert(k, "r" + round));
+			}
+			checkSame(reference, tree, 4000, random);
+			for (int k : reference.keysToArray())
+				assertEquals(reference.delete(k), tree.delete(k), "delete " + k);
+			checkSame(reference, tree, 4000, random);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * RangeTest
+ *
+ * countRange and a reused cursor, forward and backward, against the sub-maps of a TreeMap.
+ */
+class RangeTest {
+
+	//key=info pairs, as the cursor scans them
+	private static List<String> scan(WAVLTree.Cursor cursor)
+	{
+		List<String> items = new ArrayList<>();
+		while (cursor.next())
+			items.add(cursor.key() + "=" + cursor.value());
+		assertFalse(cursor.next(), "a finished cursor stays finished");
+		return items;
+	}
+
+	private static List<String> items(NavigableMap<Integer, String> map)
+	{
+		List<String> items = new ArrayList<>();
+		for (Map.Entry<Integer, String> entry : map.entrySet())
+			items.add(entry.getKey() + "=" + entry.getValue());
+		return items;
+	}
+
+	@Test
+	void matchesSubMaps()
+	{
+		Random random = new Random(23);
+		for (int round = 0; round < 10; round++)
+		{
+			WAVLTree tree = new WAVLTree();
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			int range = 10 + random.nextInt(5000);
+			for (int i = random.nextInt(3000); i > 0; i--)
+			{
+				int k = random.nextInt(range);
+				tree.insert(k, "v" + k);
+				expected.putIfAbsent(k, "v" + k);
+			}
+			WAVLTree.Cursor cursor = tree.cursor(); //reused for every scan
+			for (int q = 0; q < 300; q++)
+			{
+				int lo = random.nextInt(range + 20) - 10;
+				int hi = random.nextInt(range + 20) - 10;
+				NavigableMap<Integer, String> sub = lo < hi ? expected.subMap(lo, true, hi, false) : new TreeMap<>();
+				assertEquals(sub.size(), tree.countRange(lo, hi), "countRange " + lo + ", " + hi);
+				assertEquals(items(sub), scan(cursor.forward(lo, hi)), "forward " + lo + ", " + hi);
+				assertEquals(items(sub.descendingMap()), scan(cursor.backward(lo, hi)), "backward " + lo + ", " + hi);
+			}
+			assertEquals(items(expected), scan(cursor.forward(Integer.MIN_VALUE, Integer.MAX_VALUE)));
+		}
+	}
+
+	@Test
+	void extremeBounds()
+	{
+		WAVLTree tree = new WAVLTree();
+		for (int k : new int[] {Integer.MIN_VALUE, -1, 0, Integer.MAX_VALUE})
+			tree.insert(k, "v" + k);
+		assertEquals(3, tree.countRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+		assertEquals(2, tree.countRange(Integer.MIN_VALUE, 0));
+		assertEquals(0, tree.countRange(5, 5));
+		assertEquals(0, tree.countRange(5, -5));
+		assertEquals(List.of("0=v0", "-1=v-1"), scan(tree.cursor().backward(-1, 1)));
+		assertEquals(List.of(), scan(new WAVLTree().cursor().forward(0, 10)));
+	}
+}
@@ -0,0 +1,106 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * SetOperationTest
+ *
+ * union, intersection and difference against the same operations on TreeMaps, on a single thread and
+ * forked down to small subproblems, with the invariants checked on every result.
+ */
+class SetOperationTest {
+
+	private static ForkJoinPool pool;
+
+	@BeforeAll
+	static void startPool()
+	{
+		pool = new ForkJoinPool(4);
+	}
+
+	@AfterAll
+	static void stopPool()
+	{
+		pool.shutdown();
+	}
+
+	private static TreeMap<Integer, String> randomItems(Random random, int n, int range, String tag)
+	{
+		TreeMap<Integer, String> items = new TreeMap<>();
+		for (int i = 0; i < n; i++)
+		{
+			int k = random.nextInt(range);
+			items.put(k, tag + k);
+		}
+		return items;
+	}
+
+	private static WAVLTree tree(TreeMap<Integer, String> items)
+	{
+		WAVLTree tree = new WAVLTree();
+		for (int k : items.keySet())
+			tree.insert(k, items.get(k));
+		return tree;
+	}
+
+	//runs the three operations on a and b, with the given cutoff (Integer.MAX_VALUE never forks)
+	private static void checkAll(TreeMap<Integer, String> a, TreeMap<Integer, String> b, int cutoff)
+	{
+		TreeMap<Integer, String> union = new TreeMap<>(b);
+		union.putAll(a); //the info of a wins
+		TreeMap<Integer, String> intersection = new TreeMap<>(a);
+		intersection.keySet().retainAll(b.keySet());
+		TreeMap<Integer, String> difference = new TreeMap<>(a);
+		difference.keySet().removeAll(b.keySet());
+
+		WAVLTree left = tree(a);
+		WAVLTree right = tree(b);
+		WAVLInvariants.check(WAVLTree.union(left, right, pool, cutoff), union);
+		assertTrue(left.empty() && right.empty(), "union empties its arguments");
+		WAVLInvariants.check(WAVLTree.intersection(tree(a), tree(b), pool, cutoff), intersection);
+		WAVLInvariants.check(WAVLTree.difference(tree(a), tree(b), pool, cutoff), difference);
+	}
+
+	@Test
+	void sequentialMatchesTreeMap()
+	{
+		Random random = new Random(8);
+		int[] sizes = {0, 1, 3, 50, 1000};
+		for (int aSize : sizes)
+			for (int bSize : sizes)
+				checkAll(randomItems(random, aSize, 2000, "a"), randomItems(random, bSize, 2000, "b"), Integer.MAX_VALUE);
+	}
+
+	@Test
+	void forkedMatchesTreeMap()
+	{
+		Random random = new Random(9);
+		for (int round = 0; round < 30; round++)
+		{
+			int range = 100 + random.nextInt(50000);
+			checkAll(randomItems(random, random.nextInt(8000), range, "a"),
+					randomItems(random, random.nextInt(8000), range, "b"), 1 + random.nextInt(64));
+		}
+	}
+
+	@Test
+	void disjointAndIdenticalTrees()
+	{
+		Random random = new Random(10);
+		TreeMap<Integer, String> low = randomItems(random, 3000, 10000, "a");
+		TreeMap<Integer, String> high = new TreeMap<>();
+		for (int k : randomItems(random, 3000, 10000, "b").keySet())
+			high.put(k + 10000, "b" + k);
+		checkAll(low, high, 16);
+		checkAll(high, low, 16);
+		checkAll(low, new TreeMap<>(low), 16);
+	}
+}
@@ -0,0 +1,130 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * SnapshotFileTest
+ *
+ * writeSnapshot and loadSnapshot round trips (null, empty and non-ASCII infos, info longer than the
+ * write buffer), and the files loadSnapshot rejects: truncated, corrupt, not a snapshot, unordered keys.
+ */
+class SnapshotFileTest {
+
+	@TempDir
+	Path directory;
+
+	private TreeMap<Integer, String> randomItems(Random random, int n)
+	{
+		TreeMap<Integer, String> items = new TreeMap<>();
+		for (int i = 0; i < n; i++)
+		{
+			int k = random.nextInt(4 * n + 1) - n;
+			switch (random.nextInt(6))
+			{
+				case 0:
+					items.put(k, null);
+					break;
+				case 1:
+					items.put(k, "");
+					break;
+				case 2:
+					items.put(k, "ключ " + k + " 🌳");
+					break;
+				default:
+					items.put(k, "v" + k);
+					break;
+			}
+		}
+		return items;
+	}
+
+	private static WAVLTree tree(TreeMap<Integer, String> items)
+	{
+		WAVLTree tree = new WAVLTree();
+		for (int k : items.keySet())
+			tree.insert(k, items.get(k));
+		return tree;
+	}
+
+	@Test
+	void roundTrips() throws IOException
+	{
+		Random random = new Random(32);
+		Path file = directory.resolve("tree.wavl");
+		for (int n : new int[] {0, 1, 2, 100, 20000})
+		{
+			TreeMap<Integer, String> items = randomItems(random, n);
+			tree(items).writeSnapshot(file); //replaces the previous round's file
+			WAVLTree loaded = WAVLTree.loadSnapshot(file);
+			WAVLInvariants.check(loaded, items);
+			loaded.insert(Integer.MAX_VALUE, "after");
+			WAVLInvariants.check(loaded);
+		}
+		//an info longer than the 64KB write buffer
+		TreeMap<Integer, String> items = new TreeMap<>();
+		items.put(1, "x".repeat(200000));
+		items.put(2, "y");
+		tree(items).writeSnapshot(file);
+		WAVLInvariants.check(WAVLTree.loadSnapshot(file), items);
+	}
+
+	@Test
+	void rejectsDamagedFiles() throws IOException
+	{
+		Path file = directory.resolve("tree.wavl");
+		tree(randomItems(new Random(33), 500)).writeSnapshot(file);
+		byte[] good = Files.readAllBytes(file);
+
+		Path truncated = directory.resolve("truncated.wavl");
+		Files.write(truncated, Arrays.copyOf(good, good.length - 3));
+		IOException error = assertThrows(IOException.class, () -> WAVLTree.loadSnapshot(truncated));
+		assertTrue(error.getMessage().contains("truncated"), error.getMessage());
+
+		Path tooShort = directory.resolve("short.wavl");
+		Files.write(tooShort, Arrays.copyOf(good, 10));
+		assertThrows(IOException.class, () -> WAVLTree.loadSnapshot(tooShort));
+
+		Path corrupt = directory.resolve("corrupt.wavl");
+		byte[] flipped = good.clone();
+		flipped[good.length / 2] ^= 1;
+		Files.write(corrupt, flipped);
+		error = assertThrows(IOException.class, () -> WAVLTree.loadSnapshot(corrupt));
+		assertTrue(error.getMessage().contains("checksum"), error.getMessage());
+
+		Path notSnapshot = directory.resolve("other.wavl");
+		byte[] magic = good.clone();
+		magic[0] = 'X';
+		Files.write(notSnapshot, magic);
+		assertThrows(IOException.class, () -> WAVLTree.loadSnapshot(notSnapshot));
+
+		//the first two keys swapped, with a checksum that matches
+		Path unordered = directory.resolve("unordered.wavl");
+		ByteBuffer swapped = ByteBuffer.wrap(good.clone()).order(ByteOrder.LITTLE_ENDIAN);
+		int first = swapped.getInt(32);
+		swapped.putInt(32, swapped.getInt(36)).putInt(36, first);
+		CRC32C checksum = new CRC32C();
+		checksum.update(swapped.array(), 32, good.length - 32);
+		swapped.putLong(24, checksum.getValue());
+		Files.write(unordered, swapped.array());
+		error = assertThrows(IOException.class, () -> WAVLTree.loadSnapshot(unordered));
+		assertTrue(error.getMessage().contains("not strictly ascending"), error.getMessage());
+
+		//the good file still loads
+		assertArrayEquals(tree(randomItems(new Random(33), 500)).keysToArray(), WAVLTree.loadSnapshot(file).keysToArray());
+	}
+}
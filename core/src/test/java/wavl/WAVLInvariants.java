@@ -0,0 +1,133 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.NavigableMap;
+
+import wavl.WAVLTree.WAVLNode;
+
+/**
+ * WAVLInvariants
+ *
+ * Structural checks shared by the tests: the keys are in search tree order, every rank difference
+ * is 1 or 2, every leaf has rank 0 (no 2,2 leaf), and the subtree sizes and parent links are right.
+ */
+final class WAVLInvariants {
+
+	private WAVLInvariants()
+	{
+	}
+
+	//checks the structure of the tree, and that it holds exactly the items of expected
+	static void check(WAVLTree tree, NavigableMap<Integer, String> expected)
+	{
+		check(tree);
+		assertEquals(expected.size(), tree.size(), "size");
+		int i = 0;
+		int[] keys = tree.keysToArray();
+		String[] infos = tree.infoToArray();
+		for (Map.Entry<Integer, String> entry : expected.entrySet())
+		{
+			assertEquals(entry.getKey(), keys[i], "key " + i);
+			assertEquals(entry.getValue(), infos[i], "info of " + entry.getKey());
+			i++;
+		}
+		assertEquals(expected.isEmpty() ? null : expected.firstEntry().getValue(), tree.min(), "min");
+		assertEquals(expected.isEmpty() ? null : expected.lastEntry().getValue(), tree.max(), "max");
+	}
+
+	//checks the structure of the tree
+	static void check(WAVLTree tree)
+	{
+		WAVLNode root = tree.getRoot();
+		assertEquals(tree.empty(), root == null, "an empty tree has no root");
+		if (root != null)
+			checkNode(root, Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	//returns the size of the subtree, all of whose keys are in (lo, hi)
+	private static int checkNode(WAVLNode node, long lo, long hi)
+	{
+		if (!node.isRealNode())
+		{
+			assertEquals(-1, node.getRank(), "external leaf rank");
+			return 0;
+		}
+		int key = node.getKey();
+		assertTrue(key > lo && key < hi, "key " + key + " out of order");
+		WAVLNode left = node.getLeft();
+		WAVLNode right = node.getRight();
+		checkRanks(key, node.getRank(), left.getRank(), right.getRank());
+		if (left.isRealNode())
+			assertSame(node, left.getParent(), "parent of " + left.getKey());
+		if (right.isRealNode())
+			assertSame(node, right.getParent(), "parent of " + right.getKey());
+		int size = checkNode(left, lo, key) + checkNode(right, key, hi) + 1;
+		assertEquals(size, node.getSubtreeSize(), "size of " + key);
+		return size;
+	}
+
+	//checks the structure of a persistent tree (or of a snapshot's root), and that its ranks are those of
+	//reference: both ran the same insert/delete steps. returns the size of the subtree
+	static int check(PersistentWAVLTree.Node node, WAVLTree reference, long lo, long hi)
+	{
+		if (node == null)
+			return 0;
+		assertTrue(node.key > lo && node.key < hi, "key " + node.key + " out of order");
+		checkRanks(node.key, node.rank, node.left == null ? -1 : node.left.rank, node.right == null ? -1 : node.right.rank);
+		if (reference != null)
+			assertEquals(reference.findNodeFromKey(node.key).getRank(), node.rank, "rank of " + node.key);
+		int size = check(node.left, reference, lo, node.key) + check(node.right, reference, node.key, hi) + 1;
+		assertEquals(size, node.size, "size of " + node.key);
+		return size;
+	}
+
+	//checks the structure of a tree whose nodes are slots (pooled tree or set, off-heap tree) through its
+	//accessors. with a reference tree, that ran the same insert/delete steps, every node must have the
+	//rank of the node with its key in reference
+	static void check(SlotWAVLCore tree, WAVLTree reference)
+	{
+		assertEquals(0, tree.getSize(SlotWAVLCore.EXT), "size of the external leaf");
+		assertEquals(-1, tree.getRank(SlotWAVLCore.EXT), "rank of the external leaf");
+		if (tree.root != SlotWAVLCore.EXT)
+		{
+			assertEquals(SlotWAVLCore.EXT, tree.getParent(tree.root), "parent of the root");
+			checkSlot(tree, tree.root, reference, Long.MIN_VALUE, Long.MAX_VALUE);
+		}
+	}
+
+	//returns the size of the subtree of the slot n, all of whose keys are in (lo, hi)
+	private static int checkSlot(SlotWAVLCore tree, int n, WAVLTree reference, long lo, long hi)
+	{
+		if (n == SlotWAVLCore.EXT)
+			return 0;
+		int key = tree.getKey(n);
+		int left = tree.getLeft(n);
+		int right = tree.getRight(n);
+		assertTrue(key > lo && key < hi, "key " + key + " out of order");
+		checkRanks(key, tree.getRank(n), tree.getRank(left), tree.getRank(right));
+		if (reference != null)
+			assertEquals(reference.findNodeFromKey(key).getRank(), tree.getRank(n), "rank of " + key);
+		if (left != SlotWAVLCore.EXT)
+			assertEquals(n, tree.getParent(left), "parent of " + tree.getKey(left));
+		if (right != SlotWAVLCore.EXT)
+			assertEquals(n, tree.getParent(right), "parent of " + tree.getKey(right));
+		int size = checkSlot(tree, left, reference, lo, key) + checkSlot(tree, right, reference, key, hi) + 1;
+		assertEquals(size, tree.getSize(n), "size of " + key);
+		return size;
+	}
+
+	//the rank rule of a node, from its rank and the ranks of its children (-1 for an external leaf)
+	static void checkRanks(int key, int rank, int leftRank, int rightRank)
+	{
+		int leftDif = rank - leftRank;
+		int rightDif = rank - rightRank;
+		assertTrue(leftDif == 1 || leftDif == 2, "rank difference " + leftDif + " left of " + key);
+		assertTrue(rightDif == 1 || rightDif == 2, "rank difference " + rightDif + " right of " + key);
+		if (leftRank == -1 && rightRank == -1)
+			assertEquals(0, rank, "rank of the leaf " + key);
+	}
+}
@@ -0,0 +1,122 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * WAVLTreeTest
+ *
+ * Random inserts and deletes against a TreeMap, with the invariants checked as the tree changes.
+ */
+class WAVLTreeTest {
+
+	@Test
+	void insertAndDeleteMatchTreeMap()
+	{
+		Random random = new Random(1);
+		for (int round = 0; round < 20; round++)
+		{
+			WAVLTree tree = new WAVLTree();
+			TreeMap<Integer, String> expected = new TreeMap<>();
+			int range = 10 + random.nextInt(2000);
+			for (int op = 0; op < 4000; op++)
+			{
+				int k = random.nextInt(range);
+				if (random.nextInt(10) < 6)
+				{
+					int steps = tree.insert(k, "v" + k);
+					assertEquals(expected.containsKey(k), steps == -1, "insert " + k);
+					expected.putIfAbsent(k, "v" + k);
+				}
+				else
+				{
+					int steps = tree.delete(k);
+					assertEquals(!expected.containsKey(k), steps == -1, "delete " + k);
+					expected.remove(k);
+				}
+				assertEquals(expected.get(k), tree.search(k));
+				if (op % 97 == 0)
+					WAVLInvariants.check(tree, expected);
+			}
+			WAVLInvariants.check(tree, expected);
+		}
+	}
+
+	@Test
+	void selectAndRankMatchTreeMap()
+	{
+		Random random = new Random(2);
+		WAVLTree tree = new WAVLTree();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int i = 0; i < 3000; i++)
+		{
+			int k = random.nextInt(10000);
+			tree.insert(k, "v" + k);
+			expected.putIfAbsent(k, "v" + k);
+		}
+		Integer[] keys = expected.keySet().toArray(new Integer[0]);
+		for (int i = 1; i <= keys.length; i++)
+		{
+			assertEquals(keys[i-1], tree.selectKey(i));
+			assertEquals("v" + keys[i-1], tree.select(i));
+			assertEquals(i, tree.rank(keys[i-1]));
+		}
+		assertEquals(-1, tree.selectKey(keys.length + 1));
+		assertNull(tree.select(0));
+		for (int k = -1; k < 10001; k += 7)
+			assertEquals(expected.headMap(k, true).size(), tree.rank(k), "rank " + k);
+	}
+
+	@Test
+	void upsertsMatchTreeMap()
+	{
+		Random random = new Random(3);
+		WAVLTree tree = new WAVLTree();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+		for (int op = 0; op < 5000; op++)
+		{
+			int k = random.nextInt(300);
+			String v = "v" + op;
+			switch (random.nextInt(5))
+			{
+				case 0:
+					assertEquals(expected.put(k, v), tree.put(k, v));
+					break;
+				case 1:
+					assertEquals(expected.putIfAbsent(k, v), tree.putIfAbsent(k, v));
+					break;
+				case 2:
+					assertEquals(expected.computeIfAbsent(k, key -> v), tree.computeIfAbsent(k, key -> v));
+					break;
+				case 3:
+					assertEquals(expected.merge(k, v, String::concat), tree.merge(k, v, String::concat));
+					break;
+				default:
+					tree.delete(k);
+					expected.remove(k);
+					break;
+			}
+		}
+		WAVLInvariants.check(tree, expected);
+	}
+
+	@Test
+	void emptyTree()
+	{
+		WAVLTree tree = new WAVLTree();
+		assertTrue(tree.empty());
+		assertNull(tree.getRoot());
+		assertEquals(-1, tree.delete(1));
+		tree.insert(1, "a");
+		assertEquals(0, tree.delete(1));
+		assertTrue(tree.empty());
+		assertNull(tree.min());
+		WAVLInvariants.check(tree);
+	}
+}
@@ -0,0 +1,196 @@
+package wavl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * WorkloadTraceTest
+ *
+ * Writer and read round trips (zigzag arguments at the int extremes, times across the wrap of
+ * nanoTime), torn last records, times that go backwards, and TraceRecorder against the tree it wraps.
+ */
+class WorkloadTraceTest {
+
+	private static final byte[] OPS = {WorkloadTrace.INSERT, WorkloadTrace.DELETE, WorkloadTrace.SEARCH, WorkloadTrace.SELECT};
+
+	@TempDir
+	Path directory;
+
+	private static void write(Path file, byte[] ops, int[] args, long[] starts, int n) throws IOException
+	{
+		try (WorkloadTrace.Writer writer = new WorkloadTrace.Writer(file))
+		{
+			for (int i = 0; i < n; i++)
+				writer.write(ops[i], args[i], starts[i]);
+		}
+	}
+
+	@Test
+	void roundTrips() throws IOException
+	{
+		Random random = new Random(36);
+		int n = 5000;
+		byte[] ops = new byte[n];
+		int[] args = new int[n];
+		long[] starts = new long[n];
+		int[] extremes = {0, -1, 1, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE + 1, Integer.MAX_VALUE - 1};
+		long start = Long.MAX_VALUE - 1000000; //nanoTime wraps to negative values half way through
+		for (int i = 0; i < n; i++)
+		{
+			ops[i] = OPS[random.nextInt(OPS.length)];
+			args[i] = i < extremes.length ? extremes[i] : random.nextInt();
+			starts[i] = start;
+			start += random.nextInt(3) == 0 ? random.nextInt(1 << 20) : random.nextInt(100); //one to three varint bytes
+		}
+		Path file = directory.resolve("trace.wtrc");
+		write(file, ops, args, starts, n);
+		WorkloadTrace trace = WorkloadTrace.read(file);
+		assertEquals(n, trace.size());
+		for (int i = 0; i < n; i++)
+		{
+			assertEquals(ops[i], trace.op(i), "op " + i);
+			assertEquals(args[i], trace.arg(i), "arg " + i);
+			assertEquals(starts[i] - starts[0], trace.nanos(i), "nanos " + i);
+		}
+		for (byte op : OPS)
+		{
+			int count = 0;
+			for (byte o : ops)
+				if (o == op)
+					count++;
+			assertEquals(count, trace.count(op));
+		}
+
+		//an empty trace
+		write(file, ops, args, starts, 0);
+		assertEquals(0, WorkloadTrace.read(file).size());
+	}
+
+	//a trace cut anywhere inside its last record ends at the record before
+	@Test
+	void tornLastRecord() throws IOException
+	{
+		byte[] ops = {WorkloadTrace.INSERT, WorkloadTrace.SELECT, WorkloadTrace.DELETE};
+		int[] args = {7, Integer.MIN_VALUE, Integer.MAX_VALUE};
+		long[] starts = {-5, 1000, 1000 + (1L << 40)}; //the last time takes six varint bytes
+		Path whole = directory.resolve("whole.wtrc");
+		Path shorter = directory.resolve("shorter.wtrc");
+		write(whole, ops, args, starts, 3);
+		write(shorter, ops, args, starts, 2);
+		byte[] bytes = Files.readAllBytes(whole);
+		int end = (int) Files.size(shorter);
+		assertEquals(12, bytes.length - end, "the last record: the op, a five byte argument and a six byte time");
+		Path torn = directory.resolve("torn.wtrc");
+		for (int cut = end; cut < bytes.length; cut++)
+		{
+			Files.write(torn, Arrays.copyOf(bytes, cut));
+			WorkloadTrace trace = WorkloadTrace.read(torn);
+			assertEquals(2, trace.size(), "cut at " + cut);
+			assertEquals(Integer.MIN_VALUE, trace.arg(1));
+			assertEquals(1005, trace.nanos(1));
+		}
+		Files.write(torn, Arrays.copyOf(bytes, 6));
+		assertThrows(IOException.class, () -> WorkloadTrace.read(torn), "no whole header");
+		Files.write(torn, "not a trace".getBytes());
+		assertThrows(IOException.class, () -> WorkloadTrace.read(torn));
+	}
+
+	//a start time before the latest one (nanoTime read on another thread) is a zero delta, and the
+	//next times are measured from the latest one
+	@Test
+	void timesGoingBack() throws IOException
+	{
+		byte[] ops = new byte[5];
+		Arrays.fill(ops, WorkloadTrace.SEARCH);
+		int[] args = {1, 2, 3, 4, 5};
+		long[] starts = {1000, 1100, 1050, 900, 1300};
+		Path file = directory.resolve("back.wtrc");
+		write(file, ops, args, starts, 5);
+		WorkloadTrace trace = WorkloadTrace.read(file);
+		long[] nanos = new long[trace.size()];
+		for (int i = 0; i < nanos.length; i++)
+			nanos[i] = trace.nanos(i);
+		assertArrayEquals(new long[] {0, 100, 100, 100, 300}, nanos);
+		//three bytes a record, the time of 200 takes two (a negative delta would take ten)
+		assertEquals(8 + 3 * 5 + 1, Files.size(file));
+	}
+
+	@Test
+	void recorderForwardsResults() throws IOException
+	{
+		Random random = new Random(37);
+		Path file = directory.resolve("recorded.wtrc");
+		WAVLTree reference = new WAVLTree();
+		List<Byte> ops = new ArrayList<>();
+		List<Integer> args = new ArrayList<>();
+		try (TraceRecorder recorder = new TraceRecorder(new WAVLTree(), file))
+		{
+			for (int call = 0; call < 20000; call++)
+			{
+				int k = random.nextInt(2000) - 1000;
+				int choice = random.nextInt(5);
+				if (choice == 2 && reference.empty())
+					choice = 3;
+				switch (choice)
+				{
+					case 0:
+						assertEquals(reference.delete(k), recorder.delete(k));
+						ops.add(WorkloadTrace.DELETE);
+						break;
+					case 1:
+						assertEquals(reference.search(k), recorder.search(k));
+						ops.add(WorkloadTrace.SEARCH);
+						break;
+					case 2:
+						k = 1 + random.nextInt(reference.size()); //the index of select
+						if (random.nextBoolean())
+							assertEquals(reference.select(k), recorder.select(k));
+						else
+							assertEquals(reference.selectKey(k), recorder.selectKey(k));
+						ops.add(WorkloadTrace.SELECT);
+						break;
+					default:
+						assertEquals(reference.insert(k, "v" + call), recorder.insert(k, "v" + call));
+						ops.add(WorkloadTrace.INSERT);
+						break;
+				}
+				args.add(k);
+				if (call % 1000 == 0)
+				{
+					//the calls that are not recorded
+					assertEquals(reference.size(), recorder.size());
+					assertEquals(reference.empty(), recorder.empty());
+					assertEquals(reference.min(), recorder.min());
+					assertEquals(reference.max(), recorder.max());
+					assertArrayEquals(reference.keysToArray(), recorder.keysToArray());
+					assertArrayEquals(reference.infoToArray(), recorder.infoToArray());
+					assertEquals(reference.rank(k), recorder.rank(k));
+					if (reference.size() > 1)
+						assertArrayEquals(reference.selectRange(1, 2), recorder.selectRange(1, 2));
+				}
+			}
+		}
+		WorkloadTrace trace = WorkloadTrace.read(file);
+		assertEquals(ops.size(), trace.size());
+		for (int i = 0; i < trace.size(); i++)
+		{
+			assertEquals((byte) ops.get(i), trace.op(i), "op " + i);
+			assertEquals((int) args.get(i), trace.arg(i), "arg " + i);
+			if (i > 0)
+				assertTrue(trace.nanos(i) >= trace.nanos(i - 1));
+		}
+	}
+}